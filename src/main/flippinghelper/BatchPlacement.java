@@ -0,0 +1,145 @@
+package flippinghelper;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The steps of placing several buy offers in a row, one per free GE slot.
+ *
+ * The step of the current offer is worked out from the GE state (open slot,
+ * selected item, quantity and price) each time it changes, and the batch moves
+ * on to the next offer once the GE reports the current one as placed.
+ */
+final class BatchPlacement {
+
+    enum Step {
+        SELECT_SLOT("open an empty slot"),
+        SELECT_ITEM("select"),
+        SET_QUANTITY("set the quantity of"),
+        SET_PRICE("set the price of"),
+        CONFIRM("confirm"),
+        DONE("done");
+
+        private final String description;
+
+        Step(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * An offer to place, with the quantity and price it should be placed at.
+     */
+    @Value
+    static class Offer {
+        FlippingItem item;
+        int itemId;
+        int quantity;
+        int price;
+    }
+
+    private List<Offer> offers = Collections.emptyList();
+    private int index;
+    private Step step = Step.DONE;
+
+    /**
+     * Start placing {@code offers} in order, dropping any batch in progress.
+     */
+    void start(List<Offer> offers) {
+        this.offers = new ArrayList<>(offers);
+        index = 0;
+        step = offers.isEmpty() ? Step.DONE : Step.SELECT_SLOT;
+    }
+
+    void cancel() {
+        offers = Collections.emptyList();
+        index = 0;
+        step = Step.DONE;
+    }
+
+    boolean isActive() {
+        return step != Step.DONE;
+    }
+
+    /**
+     * The offer being placed, or null if the batch is done.
+     */
+    Offer current() {
+        return isActive() ? offers.get(index) : null;
+    }
+
+    Step getStep() {
+        return step;
+    }
+
+    /**
+     * Work out the step of the current offer from the GE state.
+     *
+     * @param openSlot the open GE slot, -1 on the home screen
+     * @param selectedItemId the item selected in the open slot, -1 if none
+     */
+    Step update(int openSlot, int selectedItemId, int quantity, int price) {
+        Offer offer = current();
+        if (offer == null) {
+            return step;
+        }
+
+        if (openSlot == -1) {
+            step = Step.SELECT_SLOT;
+        } else if (selectedItemId != offer.getItemId()) {
+            step = Step.SELECT_ITEM;
+        } else if (quantity != offer.getQuantity()) {
+            step = Step.SET_QUANTITY;
+        } else if (price != offer.getPrice()) {
+            step = Step.SET_PRICE;
+        } else {
+            step = Step.CONFIRM;
+        }
+        return step;
+    }
+
+    /**
+     * A buy offer for {@code itemId} was placed. Moves on to the next offer if
+     * it was the current one.
+     *
+     * @return whether the batch moved on
+     */
+    boolean onOfferPlaced(int itemId) {
+        Offer offer = current();
+        if (offer == null || offer.getItemId() != itemId) {
+            return false;
+        }
+        next();
+        return true;
+    }
+
+    /**
+     * Leave the current offer unplaced and move on to the next one.
+     */
+    void skip() {
+        if (isActive()) {
+            next();
+        }
+    }
+
+    private void next() {
+        index++;
+        step = index < offers.size() ? Step.SELECT_SLOT : Step.DONE;
+    }
+
+    /**
+     * A short description of the progress, e.g. "Batch 2/5: set the price of Rune bar".
+     */
+    String describe() {
+        Offer offer = current();
+        if (offer == null) {
+            return "Batch done";
+        }
+        String prefix = "Batch " + (index + 1) + "/" + offers.size() + ": " + step.description;
+        return step == Step.SELECT_SLOT ? prefix + " for " + offer.getItem().getName()
+            : prefix + " " + offer.getItem().getName();
+    }
+}
@@ -0,0 +1,198 @@
+package flippinghelper;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.GrandExchangeOffer;
+import net.runelite.api.GrandExchangeOfferState;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.InterfaceID;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static net.runelite.api.VarPlayer.CURRENT_GE_ITEM;
+
+/**
+ * Walks the user through placing buy offers for several suggestions in a row.
+ *
+ * The offer being placed becomes the highlighted item, so the overlay
+ * highlights each step and the search shows it as the helper item. Price and
+ * quantity inputs are pre-filled as soon as they open, so each step is a
+ * single click or key press. Client thread only.
+ */
+@Slf4j
+@Singleton
+public class BatchPlacementHandler {
+
+    private final Client client;
+    private final GrandExchangeHelper geHelper;
+    private final HighlightManager highlightManager;
+    private final GeSearchAutoFillHandler searchAutoFillHandler;
+    private final GeInteractionHandler interactionHandler;
+    private final BuyLimitTracker buyLimitTracker;
+
+    private final BatchPlacement batch = new BatchPlacement();
+    private Consumer<String> statusListener = status -> { };
+    private String lastStatus;
+
+    @Inject
+    public BatchPlacementHandler(Client client, GrandExchangeHelper geHelper, HighlightManager highlightManager,
+                                 GeSearchAutoFillHandler searchAutoFillHandler, GeInteractionHandler interactionHandler,
+                                 BuyLimitTracker buyLimitTracker) {
+        this.client = client;
+        this.geHelper = geHelper;
+        this.highlightManager = highlightManager;
+        this.searchAutoFillHandler = searchAutoFillHandler;
+        this.interactionHandler = interactionHandler;
+        this.buyLimitTracker = buyLimitTracker;
+    }
+
+    /**
+     * Called with a description of the progress whenever it changes, or null
+     * once the batch is over.
+     */
+    public void setStatusListener(Consumer<String> statusListener) {
+        this.statusListener = statusListener;
+    }
+
+    public boolean isActive() {
+        return batch.isActive();
+    }
+
+    /**
+     * Start placing buy offers for {@code items}, in order. Items that are not
+     * bought or have nothing left to buy under their limit are left out.
+     */
+    public void start(List<FlippingItem> items) {
+        List<BatchPlacement.Offer> offers = new ArrayList<>();
+        for (FlippingItem item : items) {
+            if (!"buy".equals(item.getPredictedAction())) {
+                continue;
+            }
+            int quantity = buyLimitTracker.getCappedQuantity(item);
+            if (quantity <= 0) {
+                continue;
+            }
+            try {
+                offers.add(new BatchPlacement.Offer(item, Integer.parseInt(item.getId()), quantity,
+                    (int) item.getAdjustedLowPrice()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid item ID: {}", item.getId());
+            }
+        }
+
+        log.info("Starting batch placement of {} offers", offers.size());
+        batch.start(offers);
+        onOfferChanged();
+    }
+
+    /**
+     * Stop the batch, leaving the current offer as it is.
+     */
+    public void cancel() {
+        if (batch.isActive()) {
+            log.info("Batch placement cancelled");
+            batch.cancel();
+            highlightManager.clearCurrentItem();
+            searchAutoFillHandler.clearCurrentItem();
+        }
+        publishStatus();
+    }
+
+    /**
+     * Leave the current offer unplaced and move on to the next one.
+     */
+    public void skip() {
+        batch.skip();
+        onOfferChanged();
+    }
+
+    public void onVarbitChanged(VarbitChanged event) {
+        if (batch.isActive() && (event.getVarpId() == CURRENT_GE_ITEM || GrandExchangeHelper.isOfferVarbit(event.getVarbitId()))) {
+            update();
+        }
+    }
+
+    public void onWidgetLoaded(WidgetLoaded event) {
+        if (event.getGroupId() == InterfaceID.GRAND_EXCHANGE && batch.isActive()) {
+            update();
+        }
+    }
+
+    public void onWidgetClosed(WidgetClosed event) {
+        if (event.getGroupId() == InterfaceID.GRAND_EXCHANGE && batch.isActive()) {
+            update();
+        }
+    }
+
+    /**
+     * Move on to the next offer once the current one shows up as a new buy offer.
+     */
+    public void onGrandExchangeOffer(GrandExchangeOffer offer) {
+        if (offer.getState() == GrandExchangeOfferState.BUYING && offer.getQuantitySold() == 0
+                && batch.onOfferPlaced(offer.getItemId())) {
+            log.debug("Batch offer for item {} placed", offer.getItemId());
+            onOfferChanged();
+        }
+    }
+
+    /**
+     * Fill in the quantity or price of the current offer when the chatbox asks for it.
+     */
+    public void onChatboxInputOpened() {
+        BatchPlacement.Offer offer = batch.current();
+        // Only once the offer's item is selected
+        if (offer == null || batch.getStep().compareTo(BatchPlacement.Step.SET_QUANTITY) < 0) {
+            return;
+        }
+
+        if (interactionHandler.isSettingQuantity()) {
+            interactionHandler.setQuantity(offer.getQuantity());
+        } else if (interactionHandler.isSettingPrice()) {
+            interactionHandler.setPrice(offer.getPrice());
+        }
+    }
+
+    /**
+     * Highlight the offer now being placed, or end the batch when there is none
+     * left or no empty slot for it.
+     */
+    private void onOfferChanged() {
+        BatchPlacement.Offer offer = batch.current();
+        if (offer != null && geHelper.isHomeScreenOpen() && geHelper.findEmptySlot() == -1) {
+            log.info("No empty GE slot left, ending batch placement");
+            batch.cancel();
+            offer = null;
+        }
+
+        if (offer == null) {
+            highlightManager.clearCurrentItem();
+            searchAutoFillHandler.clearCurrentItem();
+        } else {
+            highlightManager.setCurrentItem(offer.getItem());
+            searchAutoFillHandler.setCurrentItem(offer.getItem());
+        }
+        update();
+    }
+
+    private void update() {
+        if (batch.isActive()) {
+            batch.update(geHelper.getOpenSlot(), client.getVarpValue(CURRENT_GE_ITEM),
+                geHelper.getOfferQuantity(), geHelper.getOfferPrice());
+        }
+        publishStatus();
+    }
+
+    private void publishStatus() {
+        String status = batch.isActive() ? batch.describe() : null;
+        if (status == null ? lastStatus != null : !status.equals(lastStatus)) {
+            lastStatus = status;
+            statusListener.accept(status);
+        }
+    }
+}
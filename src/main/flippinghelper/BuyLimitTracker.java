@@ -0,0 +1,213 @@
+package flippinghelper;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.game.ItemStats;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Tracks how much of each item was bought in the last four hours, to cap
+ * suggested quantities at the remaining GE buy limit.
+ *
+ * Built from the buy fills in the trade journal, so it survives restarts.
+ */
+@Slf4j
+@Singleton
+public class BuyLimitTracker {
+
+    static final long WINDOW_MILLIS = 4 * 60 * 60 * 1000;
+
+    private final TradeJournal tradeJournal;
+    // GE buy limit by item ID, 0 if unknown
+    private final IntUnaryOperator geLimits;
+    private final TradeFill.Tracker fillTracker = new TradeFill.Tracker();
+    private final Map<Integer, FillWindow> windows = new ConcurrentHashMap<>();
+
+    private volatile Runnable updateListener;
+
+    @Inject
+    public BuyLimitTracker(TradeJournal tradeJournal, ItemManager itemManager) {
+        this(tradeJournal, itemId -> {
+            ItemStats stats = itemManager.getItemStats(itemId);
+            return stats == null ? 0 : stats.getGeLimit();
+        });
+    }
+
+    BuyLimitTracker(TradeJournal tradeJournal, IntUnaryOperator geLimits) {
+        this.tradeJournal = tradeJournal;
+        this.geLimits = geLimits;
+    }
+
+    /**
+     * Rebuild the windows from the journal and follow new buys.
+     * Must be called after the journal has been started.
+     */
+    public void startUp() {
+        tradeJournal.replayAndListen(this::onRecord, this::reset);
+    }
+
+    /**
+     * Drop the windows, before replaying the journal of another account.
+     * Package-private for testing.
+     */
+    void reset() {
+        fillTracker.reset();
+        windows.clear();
+
+        Runnable listener = updateListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Set a callback run (on the journal thread) whenever a buy is recorded.
+     */
+    public void setUpdateListener(Runnable updateListener) {
+        this.updateListener = updateListener;
+    }
+
+    /**
+     * Quantity of an item bought in the current window.
+     */
+    public int getBoughtInWindow(int itemId, long now) {
+        FillWindow window = windows.get(itemId);
+        return window == null ? 0 : window.sum(now);
+    }
+
+    /**
+     * Remaining buy limit for an item, or -1 if the limit is unknown.
+     */
+    public int getRemainingLimit(int itemId, long now) {
+        int limit = geLimits.applyAsInt(itemId);
+        if (limit <= 0) {
+            return -1;
+        }
+        return Math.max(0, limit - getBoughtInWindow(itemId, now));
+    }
+
+    /**
+     * The item with the quantity of a buy suggestion capped at the remaining buy
+     * limit (and at its capital allocation, if any). Items may be published, so
+     * they are never modified: this is the item itself if the cap leaves its
+     * quantity as is, otherwise a copy. The copy keeps the API quantity, so the
+     * cap can be re-applied as fills expire.
+     */
+    public FlippingItem withCap(FlippingItem item) {
+        int quantity = getCappedQuantity(item);
+        if (quantity == item.getQuantity()) {
+            return item;
+        }
+
+        FlippingItem capped = item.copy();
+        if (capped.getApiQuantity() == null) {
+            capped.setApiQuantity(item.getQuantity());
+        }
+        capped.setQuantity(quantity);
+        return capped;
+    }
+
+    /**
+     * The quantity of {@link #withCap}, without copying the item.
+     */
+    public int getCappedQuantity(FlippingItem item) {
+        int quantity = item.getApiQuantity() != null ? item.getApiQuantity() : item.getQuantity();
+        if ("buy".equals(item.getPredictedAction())) {
+            try {
+                int remaining = getRemainingLimit(Integer.parseInt(item.getId()), System.currentTimeMillis());
+                if (remaining >= 0) {
+                    quantity = Math.min(quantity, remaining);
+                }
+            } catch (NumberFormatException e) {
+                // Leave the API quantity untouched
+            }
+            if (item.getAllocatedQuantity() != null) {
+                quantity = Math.min(quantity, item.getAllocatedQuantity());
+            }
+        }
+        return quantity;
+    }
+
+    /**
+     * Whether an item is a buy suggestion with none of its buy limit left, so
+     * there is nothing to buy.
+     */
+    public boolean isLimitReached(FlippingItem item) {
+        return "buy".equals(item.getPredictedAction()) && getCappedQuantity(item) <= 0;
+    }
+
+    /**
+     * Apply a journal record. Package-private for testing.
+     */
+    void onRecord(TradeRecord record) {
+        TradeFill fill = fillTracker.apply(record);
+        if (fill == null || !fill.isBuy()) {
+            return;
+        }
+
+        FillWindow window = windows.computeIfAbsent(fill.getItemId(), id -> new FillWindow());
+        window.add(fill.getTimestamp(), fill.getQuantity());
+        log.debug("Bought {} x item {}, {} in the current limit window",
+            fill.getQuantity(), fill.getItemId(), window.sum(fill.getTimestamp()));
+
+        Runnable listener = updateListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Ring buffer of timestamped buy fills with a running total.
+     * Expired fills are dropped from the head, so queries are amortized O(1).
+     */
+    private static class FillWindow {
+        private long[] timestamps = new long[4];
+        private int[] quantities = new int[4];
+        private int head;
+        private int size;
+        private int total;
+
+        synchronized void add(long timestamp, int quantity) {
+            expire(timestamp);
+            if (size == timestamps.length) {
+                grow();
+            }
+            int tail = (head + size) % timestamps.length;
+            timestamps[tail] = timestamp;
+            quantities[tail] = quantity;
+            size++;
+            total += quantity;
+        }
+
+        synchronized int sum(long now) {
+            expire(now);
+            return total;
+        }
+
+        private void expire(long now) {
+            while (size > 0 && now - timestamps[head] >= WINDOW_MILLIS) {
+                total -= quantities[head];
+                head = (head + 1) % timestamps.length;
+                size--;
+            }
+        }
+
+        private void grow() {
+            long[] newTimestamps = new long[timestamps.length * 2];
+            int[] newQuantities = new int[quantities.length * 2];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) % timestamps.length;
+                newTimestamps[i] = timestamps[index];
+                newQuantities[i] = quantities[index];
+            }
+            timestamps = newTimestamps;
+            quantities = newQuantities;
+            head = 0;
+        }
+    }
+}
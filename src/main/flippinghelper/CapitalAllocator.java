@@ -0,0 +1,218 @@
+package flippinghelper;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Picks the items and quantities to buy with the free GE slots.
+ *
+ * Maximizes expected profit over one buy-limit window (and so profit per hour)
+ * subject to the available gp, the number of free slots and, per item, the
+ * remaining buy limit and the quantity that can fill within the window.
+ * Solved with a branch-and-bound search over candidates in profit/cost order,
+ * bounded by the fractional knapsack relaxation and by the best values left
+ * for the remaining slots. A picked item always takes the largest quantity that
+ * fits, so only rounding leftovers of the budget can be missed.
+ */
+final class CapitalAllocator {
+
+    static final double WINDOW_HOURS = 4.0;
+
+    // Share of an item's hourly volume we can expect to fill ourselves
+    static final double VOLUME_SHARE = 0.1;
+
+    static final int MAX_CANDIDATES = 256;
+    static final long NODE_LIMIT = 200_000;
+
+    @Value
+    static class Allocation {
+        FlippingItem item;
+        int quantity;
+        long expectedProfit;
+    }
+
+    private CapitalAllocator() {
+    }
+
+    /**
+     * Allocate the budget across at most {@code slots} items.
+     * Returned allocations are ordered by expected profit, highest first.
+     */
+    static List<Allocation> allocate(List<FlippingItem> items, long budget, int slots) {
+        if (budget <= 0 || slots <= 0) {
+            return new ArrayList<>();
+        }
+
+        Candidate[] candidates = items.stream()
+            .map(item -> Candidate.of(item, budget))
+            .filter(Objects::nonNull)
+            .sorted(Comparator.comparingLong((Candidate c) -> c.standaloneValue).reversed())
+            .limit(MAX_CANDIDATES)
+            .sorted(Comparator.comparingDouble((Candidate c) -> c.ratio).reversed())
+            .toArray(Candidate[]::new);
+
+        Search search = new Search(candidates, slots);
+        search.run(budget);
+
+        List<Allocation> allocations = new ArrayList<>();
+        for (int i = 0; i < candidates.length; i++) {
+            int quantity = search.bestQuantities[i];
+            if (quantity > 0) {
+                Candidate candidate = candidates[i];
+                allocations.add(new Allocation(candidate.item, quantity, candidate.profit * quantity));
+            }
+        }
+        allocations.sort(Comparator.comparingLong(Allocation::getExpectedProfit).reversed());
+        return allocations;
+    }
+
+    /**
+     * Expected quantity of an item that fills within the window.
+     */
+    static long fillableQuantity(FlippingItem item) {
+        return (long) (ItemColumns.hourlyVolume(item) * VOLUME_SHARE * WINDOW_HOURS);
+    }
+
+    private static class Candidate {
+        final FlippingItem item;
+        final long price;
+        final long profit;
+        final long cap;
+        final double ratio;
+        final long standaloneValue;
+
+        private Candidate(FlippingItem item, long price, long profit, long cap, long budget) {
+            this.item = item;
+            this.price = price;
+            this.profit = profit;
+            this.cap = cap;
+            this.ratio = (double) profit / price;
+            this.standaloneValue = profit * Math.min(cap, budget / price);
+        }
+
+        static Candidate of(FlippingItem item, long budget) {
+            long price = item.getAdjustedLowPrice();
+            long profit = item.getProfit();
+            long cap = Math.min(item.getQuantity(), fillableQuantity(item));
+            if (price <= 0 || profit <= 0 || cap <= 0 || price > budget) {
+                return null;
+            }
+            return new Candidate(item, price, profit, cap, budget);
+        }
+    }
+
+    private static class Search {
+        private final Candidate[] candidates;
+        private final int slots;
+
+        // Prefix sums over candidates (in ratio order) of cost and value at full cap
+        private final long[] prefixCost;
+        private final long[] prefixValue;
+
+        // bestSuffixValues[i][m] = sum of the m largest standalone values among candidates i..n-1
+        private final long[][] bestSuffixValues;
+
+        private final int[] quantities;
+        final int[] bestQuantities;
+        private long bestValue = -1;
+        private long nodes;
+
+        Search(Candidate[] candidates, int slots) {
+            this.candidates = candidates;
+            this.slots = slots;
+            int n = candidates.length;
+
+            prefixCost = new long[n + 1];
+            prefixValue = new long[n + 1];
+            for (int i = 0; i < n; i++) {
+                prefixCost[i + 1] = prefixCost[i] + candidates[i].price * candidates[i].cap;
+                prefixValue[i + 1] = prefixValue[i] + candidates[i].profit * candidates[i].cap;
+            }
+
+            bestSuffixValues = new long[n + 1][slots + 1];
+            long[] top = new long[slots];
+            for (int i = n - 1; i >= 0; i--) {
+                insertTop(top, candidates[i].standaloneValue);
+                long sum = 0;
+                for (int m = 1; m <= slots; m++) {
+                    sum += top[m - 1];
+                    bestSuffixValues[i][m] = sum;
+                }
+            }
+
+            quantities = new int[n];
+            bestQuantities = new int[n];
+        }
+
+        void run(long budget) {
+            search(0, budget, slots, 0);
+        }
+
+        private void search(int index, long budget, int slotsLeft, long value) {
+            if (value > bestValue) {
+                bestValue = value;
+                System.arraycopy(quantities, 0, bestQuantities, 0, quantities.length);
+            }
+
+            if (index == candidates.length || slotsLeft == 0 || ++nodes > NODE_LIMIT) {
+                return;
+            }
+
+            long bound = value + Math.min(fractionalBound(index, budget), bestSuffixValues[index][slotsLeft]);
+            if (bound <= bestValue) {
+                return;
+            }
+
+            Candidate candidate = candidates[index];
+            long quantity = Math.min(candidate.cap, budget / candidate.price);
+            if (quantity > 0) {
+                quantities[index] = (int) quantity;
+                search(index + 1, budget - quantity * candidate.price, slotsLeft - 1, value + quantity * candidate.profit);
+                quantities[index] = 0;
+            }
+
+            search(index + 1, budget, slotsLeft, value);
+        }
+
+        /**
+         * Best value of the fractional knapsack over candidates index..n-1,
+         * ignoring the slot count.
+         */
+        private long fractionalBound(int index, long budget) {
+            // Last candidate whose full cap still fits when taking every candidate before it
+            int low = index;
+            int high = candidates.length;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (prefixCost[mid] - prefixCost[index] <= budget) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            long value = prefixValue[low] - prefixValue[index];
+            if (low < candidates.length) {
+                long remaining = budget - (prefixCost[low] - prefixCost[index]);
+                value += (long) Math.ceil(remaining * candidates[low].ratio);
+            }
+            return value;
+        }
+
+        private static void insertTop(long[] top, long value) {
+            int i = top.length - 1;
+            if (value <= top[i]) {
+                return;
+            }
+            while (i > 0 && top[i - 1] < value) {
+                top[i] = top[i - 1];
+                i--;
+            }
+            top[i] = value;
+        }
+    }
+}
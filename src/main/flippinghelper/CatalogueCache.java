@@ -0,0 +1,319 @@
+package flippinghelper;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The last catalogue fetched from the items API, in a file shared by every
+ * client running on the machine.
+ *
+ * The file is memory-mapped: a fixed header (format, sequence number, fetch
+ * time, payload length) followed by the catalogue in the {@link CatalogueCodec}
+ * format, which is decoded in place. Writers take a lock on a
+ * separate lock file and make the sequence number odd while they write, so
+ * readers, which take no lock, retry until they read the same even number
+ * before and after copying the payload. The sequence number is read with
+ * acquire and written with release semantics, with fences around the payload,
+ * so neither side's accesses to the payload can be reordered past it. A new
+ * sequence number tells the other clients that a new catalogue was published.
+ * The file only ever grows, in steps, so mappings held by other clients stay
+ * valid.
+ *
+ * The lock file also has a region taken by the client fetching the catalogue,
+ * so the others wait for its result instead of fetching it too.
+ */
+@Slf4j
+@Singleton
+public class CatalogueCache {
+
+    private static final int MAGIC = 0x46484343; // "FHCC"
+    private static final int FORMAT_VERSION = 3;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int FETCHED_AT_OFFSET = 16;
+    private static final int LENGTH_OFFSET = 24;
+    static final int HEADER_SIZE = 32;
+
+    // The file grows in steps of this size, with room for larger catalogues
+    private static final int GROWTH_STEP = 1 << 20;
+    private static final int READ_ATTEMPTS = 20;
+
+    // Ordered access to the sequence number in the mapped file
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    // Lock file regions
+    static final long FETCH_REGION = 0;
+    static final long WRITE_REGION = 1;
+
+    /**
+     * A saved catalogue, the sequence number it was published under and when it was fetched.
+     */
+    @Value
+    public static class CachedCatalogue {
+        long sequence;
+        long fetchedAt;
+        List<FlippingItem> items;
+    }
+
+    /**
+     * The right to fetch the catalogue for every client, until closed.
+     */
+    public static final class FetchLock implements AutoCloseable {
+        // Null if nothing is locked: the lock file could not be used, or this client holds the lock
+        private final FileLock lock;
+
+        private FetchLock(FileLock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public void close() {
+            if (lock == null) {
+                return;
+            }
+            try {
+                lock.release();
+            } catch (IOException e) {
+                log.debug("Failed to release the catalogue fetch lock", e);
+            }
+        }
+    }
+
+    private final File file;
+    private final File lockFile;
+    private final Object lockChannelLock = new Object();
+
+    // Kept open: closing any channel to the lock file releases every lock this JVM holds on it
+    private FileChannel lockChannel;
+
+    private MappedByteBuffer readMap;
+    // Sequence number of the catalogue last saved or loaded by this client
+    private long seenSequence;
+    // Sequence number of the catalogue last saved by this client
+    private long savedSequence;
+
+    @Inject
+    public CatalogueCache() {
+        this(new File(FlippingHelperPlugin.DATA_DIR, "catalogue.cache"));
+    }
+
+    CatalogueCache(File file) {
+        this.file = file;
+        this.lockFile = new File(file.getPath() + ".lock");
+    }
+
+    /**
+     * Publish a catalogue to every client. Items should be saved as fetched,
+     * before local dumps are flagged and their quantities are capped.
+     */
+    public synchronized void save(List<FlippingItem> items, long fetchedAt) {
+        byte[] payload = CatalogueCodec.encode(items);
+        try {
+            createParent();
+            try (FileLock ignored = lockChannel().lock(WRITE_REGION, 1, false);
+                 FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long needed = HEADER_SIZE + (long) payload.length;
+                long capacity = channel.size();
+                if (capacity < needed) {
+                    capacity = (needed + needed / 2 + GROWTH_STEP - 1) / GROWTH_STEP * GROWTH_STEP;
+                }
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+                long sequence = map.getInt(MAGIC_OFFSET) == MAGIC ? sequence(map) : 0;
+                // Odd while writing; a writer that died mid-write left it odd already
+                long writing = sequence % 2 == 0 ? sequence + 1 : sequence + 2;
+                LONGS.setRelease(map, SEQUENCE_OFFSET, writing);
+                // Readers must see the odd number before any of the payload
+                VarHandle.storeStoreFence();
+                map.putInt(MAGIC_OFFSET, MAGIC);
+                map.putInt(VERSION_OFFSET, FORMAT_VERSION);
+                map.putLong(FETCHED_AT_OFFSET, fetchedAt);
+                map.putInt(LENGTH_OFFSET, payload.length);
+                ByteBuffer body = map.duplicate();
+                body.position(HEADER_SIZE);
+                body.put(payload);
+                LONGS.setRelease(map, SEQUENCE_OFFSET, writing + 1);
+                map.force();
+
+                seenSequence = writing + 1;
+                savedSequence = writing + 1;
+            }
+            log.debug("Published catalogue {} of {} items", savedSequence, items.size());
+        } catch (OverlappingFileLockException e) {
+            log.warn("Catalogue is being saved elsewhere in this client, not saved");
+        } catch (IOException e) {
+            log.warn("Failed to save catalogue", e);
+        }
+    }
+
+    /**
+     * The saved catalogue, or null if there is none or it cannot be read.
+     */
+    public synchronized CachedCatalogue load() {
+        try {
+            for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+                MappedByteBuffer map = map();
+                if (map == null || map.getInt(MAGIC_OFFSET) != MAGIC) {
+                    return null;
+                }
+                if (map.getInt(VERSION_OFFSET) != FORMAT_VERSION) {
+                    log.warn("Ignoring catalogue cache with unknown format");
+                    return null;
+                }
+
+                long sequence = sequence(map);
+                if (sequence % 2 != 0) {
+                    // Being written
+                    Thread.sleep(attempt + 1);
+                    continue;
+                }
+                long fetchedAt = map.getLong(FETCHED_AT_OFFSET);
+                int length = map.getInt(LENGTH_OFFSET);
+                if (length < 0 || HEADER_SIZE + (long) length > map.capacity()) {
+                    // Grown by another client since it was mapped
+                    readMap = null;
+                    continue;
+                }
+                ByteBuffer body = map.duplicate();
+                body.limit(HEADER_SIZE + length).position(HEADER_SIZE);
+                List<FlippingItem> items;
+                try {
+                    items = CatalogueCodec.decode(body);
+                } catch (IllegalArgumentException | BufferUnderflowException | IndexOutOfBoundsException e) {
+                    VarHandle.acquireFence();
+                    if (sequence(map) != sequence) {
+                        // Overwritten while being decoded
+                        continue;
+                    }
+                    throw e;
+                }
+                // The payload reads must not move past the check
+                VarHandle.acquireFence();
+                if (sequence(map) != sequence) {
+                    continue;
+                }
+                seenSequence = sequence;
+                return new CachedCatalogue(sequence, fetchedAt, items);
+            }
+            log.warn("Catalogue cache kept changing while being read");
+        } catch (IOException | IllegalArgumentException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            log.warn("Failed to load catalogue cache", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * The saved catalogue if another client published it less than
+     * {@code maxAgeMillis} ago, otherwise null.
+     */
+    public synchronized CachedCatalogue loadFresh(long maxAgeMillis, long now) {
+        try {
+            MappedByteBuffer map = map();
+            if (map == null || map.getInt(MAGIC_OFFSET) != MAGIC
+                    || now - map.getLong(FETCHED_AT_OFFSET) >= maxAgeMillis
+                    || sequence(map) == savedSequence) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        CachedCatalogue cached = load();
+        return cached != null && cached.getSequence() != savedSequence && now - cached.getFetchedAt() < maxAgeMillis
+            ? cached : null;
+    }
+
+    /**
+     * Whether a catalogue was published since this client last saved or loaded one.
+     */
+    public synchronized boolean hasNewer() {
+        try {
+            MappedByteBuffer map = map();
+            if (map == null || map.getInt(MAGIC_OFFSET) != MAGIC) {
+                return false;
+            }
+            long sequence = sequence(map);
+            return sequence % 2 == 0 && sequence != seenSequence;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Take the right to fetch the catalogue, or null if another client is fetching it.
+     * A lock held by an earlier request of this client is not waited for: the
+     * returned lock then locks nothing, as that request will not publish for this one.
+     */
+    public FetchLock tryLockFetch() {
+        try {
+            FileLock lock = lockChannel().tryLock(FETCH_REGION, 1, false);
+            return lock != null ? new FetchLock(lock) : null;
+        } catch (OverlappingFileLockException e) {
+            return new FetchLock(null);
+        } catch (IOException e) {
+            log.debug("Failed to take the catalogue fetch lock, fetching anyway", e);
+            return new FetchLock(null);
+        }
+    }
+
+    /**
+     * The channel every lock on the lock file is taken through, opened on first use.
+     * Not guarded by this cache's monitor, which a save holds while it waits for the write lock.
+     */
+    private FileChannel lockChannel() throws IOException {
+        synchronized (lockChannelLock) {
+            if (lockChannel == null) {
+                createParent();
+                lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            return lockChannel;
+        }
+    }
+
+    /**
+     * The file mapped read-only, mapped again if it grew. Null if there is no file yet.
+     */
+    private MappedByteBuffer map() throws IOException {
+        long size = file.length();
+        if (size < HEADER_SIZE) {
+            return null;
+        }
+        if (readMap == null || readMap.capacity() != size) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                readMap = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        return readMap;
+    }
+
+    private static long sequence(ByteBuffer map) {
+        return (long) LONGS.getAcquire(map, SEQUENCE_OFFSET);
+    }
+
+    private void createParent() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+    }
+}
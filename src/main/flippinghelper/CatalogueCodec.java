@@ -0,0 +1,423 @@
+package flippinghelper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot format for a catalogue of items.
+ *
+ * A snapshot is a fixed header, then one fixed-width column per field (all
+ * rows of a column together), a table of the distinct strings (names, icon
+ * paths, actions, dump reasons) and a section of variable-length extras per
+ * item: the sparkline as varint deltas and the dump reasons as string
+ * references. The header holds the item count, the section offsets and a
+ * CRC32 of everything after it.
+ *
+ * Every read is an absolute read of the buffer, so a snapshot can be read in
+ * place from a memory-mapped file. Transient fields are not written, as with
+ * Gson.
+ */
+final class CatalogueCodec {
+
+    private static final int MAGIC = 0x46484353; // "FHCS"
+    static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int STRING_COUNT_OFFSET = 12;
+    private static final int STRINGS_OFFSET = 16;
+    private static final int EXTRAS_OFFSET = 20;
+    private static final int LENGTH_OFFSET = 24;
+    private static final int CHECKSUM_OFFSET = 28;
+    static final int HEADER_SIZE = 32;
+
+    // Columns, the 8-byte ones first so they stay aligned
+    private static final int DAILY_VOLUME = 0;
+    private static final int LOW_PRICE = 1;
+    private static final int HIGH_PRICE = 2;
+    private static final int PROFIT = 3;
+    private static final int HOURLY_VOLUME = 4;
+    private static final int DUMP_PEAK_PRICE = 5;
+    private static final int DUMP_DETECTED_AT = 6;
+    private static final int SCORE = 7;
+    private static final int DUMP_SCORE = 8;
+    private static final int ID = 9;
+    private static final int NAME = 10;
+    private static final int ICON = 11;
+    private static final int ACTION = 12;
+    private static final int QUANTITY = 13;
+    private static final int EXTRAS = 14;
+    private static final int FLAGS = 15;
+    private static final int[] COLUMN_WIDTHS = {8, 8, 8, 8, 8, 8, 8, 8, 8, 4, 4, 4, 4, 4, 4, 1};
+    // Width of the columns before each column, per row
+    private static final int[] COLUMN_STARTS = new int[COLUMN_WIDTHS.length + 1];
+
+    static {
+        for (int i = 0; i < COLUMN_WIDTHS.length; i++) {
+            COLUMN_STARTS[i + 1] = COLUMN_STARTS[i] + COLUMN_WIDTHS[i];
+        }
+    }
+
+    static final int ROW_WIDTH = COLUMN_STARTS[COLUMN_WIDTHS.length];
+
+    private static final int MEMBERS = 1;
+    private static final int HAS_DUMP_SCORE = 1 << 1;
+    private static final int HAS_DUMP_PEAK_PRICE = 1 << 2;
+    private static final int HAS_DUMP_DETECTED_AT = 1 << 3;
+
+    // String references; ids that are not plain numbers are stored as -2 - reference, so null stays -1
+    private static final int NO_STRING = -1;
+
+    private CatalogueCodec() {
+    }
+
+    private static int column(int column, int count) {
+        return HEADER_SIZE + count * COLUMN_STARTS[column];
+    }
+
+    static byte[] encode(List<FlippingItem> items) {
+        int count = items.size();
+        int columnsEnd = HEADER_SIZE + count * ROW_WIDTH;
+        ByteBuffer columns = ByteBuffer.allocate(columnsEnd).order(ByteOrder.BIG_ENDIAN);
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream extras = new ByteArrayOutputStream();
+
+        for (int i = 0; i < count; i++) {
+            FlippingItem item = items.get(i);
+            columns.putLong(column(DAILY_VOLUME, count) + i * 8, item.getDailyVolume());
+            columns.putLong(column(LOW_PRICE, count) + i * 8, item.getAdjustedLowPrice());
+            columns.putLong(column(HIGH_PRICE, count) + i * 8, item.getAdjustedHighPrice());
+            columns.putLong(column(PROFIT, count) + i * 8, item.getProfit());
+            columns.putLong(column(HOURLY_VOLUME, count) + i * 8, item.getMedianHourlyVolume());
+            columns.putDouble(column(SCORE, count) + i * 8, item.getScore());
+
+            int flags = item.isMembers() ? MEMBERS : 0;
+            if (item.getDumpSignalScore() != null) {
+                flags |= HAS_DUMP_SCORE;
+                columns.putDouble(column(DUMP_SCORE, count) + i * 8, item.getDumpSignalScore());
+            }
+            if (item.getDumpPeakPrice() != null) {
+                flags |= HAS_DUMP_PEAK_PRICE;
+                columns.putLong(column(DUMP_PEAK_PRICE, count) + i * 8, item.getDumpPeakPrice());
+            }
+            if (item.getDumpDetectedAt() != null) {
+                flags |= HAS_DUMP_DETECTED_AT;
+                columns.putLong(column(DUMP_DETECTED_AT, count) + i * 8, item.getDumpDetectedAt());
+            }
+            columns.put(column(FLAGS, count) + i, (byte) flags);
+
+            columns.putInt(column(ID, count) + i * 4, encodeId(item.getId(), strings));
+            columns.putInt(column(NAME, count) + i * 4, strings.add(item.getName()));
+            columns.putInt(column(ICON, count) + i * 4, strings.add(item.getDetailIcon()));
+            columns.putInt(column(ACTION, count) + i * 4, strings.add(item.getPredictedAction()));
+            columns.putInt(column(QUANTITY, count) + i * 4, item.getQuantity());
+            columns.putInt(column(EXTRAS, count) + i * 4, extras.size());
+            writeExtras(extras, item, strings);
+        }
+
+        byte[] stringTable = strings.encode();
+        int stringsOffset = columnsEnd;
+        int extrasOffset = stringsOffset + stringTable.length;
+        int length = extrasOffset + extras.size();
+
+        byte[] snapshot = Arrays.copyOf(columns.array(), length);
+        System.arraycopy(stringTable, 0, snapshot, stringsOffset, stringTable.length);
+        System.arraycopy(extras.toByteArray(), 0, snapshot, extrasOffset, extras.size());
+
+        ByteBuffer header = ByteBuffer.wrap(snapshot).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC_OFFSET, MAGIC);
+        header.putInt(VERSION_OFFSET, VERSION);
+        header.putInt(COUNT_OFFSET, count);
+        header.putInt(STRING_COUNT_OFFSET, strings.size());
+        header.putInt(STRINGS_OFFSET, stringsOffset);
+        header.putInt(EXTRAS_OFFSET, extrasOffset);
+        header.putInt(LENGTH_OFFSET, length);
+        CRC32 crc = new CRC32();
+        crc.update(snapshot, HEADER_SIZE, length - HEADER_SIZE);
+        header.putInt(CHECKSUM_OFFSET, (int) crc.getValue());
+        return snapshot;
+    }
+
+    /**
+     * Decode every item of the snapshot starting at the buffer's position.
+     *
+     * @throws IllegalArgumentException if the snapshot is malformed or corrupt
+     */
+    static List<FlippingItem> decode(ByteBuffer buffer) {
+        return Snapshot.open(buffer).items();
+    }
+
+    private static int encodeId(String id, StringTable strings) {
+        if (id == null) {
+            return NO_STRING;
+        }
+        int numeric = parseId(id);
+        return numeric >= 0 ? numeric : -2 - strings.add(id);
+    }
+
+    // The id as a number, if writing it back gives the same string; otherwise -1
+    private static int parseId(String id) {
+        if (id.isEmpty() || id.length() > 9 || (id.length() > 1 && id.charAt(0) == '0')) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Sparkline length + 1 (0 if null) and deltas, then dump reason count + 1
+     * (0 if null) and string references + 1 (0 if null). Null sparkline points
+     * are written as 0.
+     */
+    private static void writeExtras(ByteArrayOutputStream out, FlippingItem item, StringTable strings) {
+        List<Integer> sparkline = item.getSparklineData();
+        if (sparkline == null) {
+            VarInts.writeUnsigned(out, 0);
+        } else {
+            VarInts.writeUnsigned(out, sparkline.size() + 1L);
+            long previous = 0;
+            for (Integer point : sparkline) {
+                long value = point != null ? point : 0;
+                VarInts.writeSigned(out, value - previous);
+                previous = value;
+            }
+        }
+
+        List<String> reasons = item.getDumpSignalReasons();
+        if (reasons == null) {
+            VarInts.writeUnsigned(out, 0);
+        } else {
+            VarInts.writeUnsigned(out, reasons.size() + 1L);
+            for (String reason : reasons) {
+                VarInts.writeUnsigned(out, strings.add(reason) + 1L);
+            }
+        }
+    }
+
+    /**
+     * Distinct strings in the order they were first added.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> references = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private int bytes;
+
+        int add(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            Integer reference = references.get(value);
+            if (reference == null) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                reference = encoded.size();
+                references.put(value, reference);
+                encoded.add(utf8);
+                bytes += utf8.length;
+            }
+            return reference;
+        }
+
+        int size() {
+            return encoded.size();
+        }
+
+        /**
+         * The end offset of each string, relative to the first one, then the UTF-8 bytes.
+         */
+        byte[] encode() {
+            ByteBuffer out = ByteBuffer.allocate(encoded.size() * 4 + bytes).order(ByteOrder.BIG_ENDIAN);
+            int end = 0;
+            for (byte[] utf8 : encoded) {
+                end += utf8.length;
+                out.putInt(end);
+            }
+            for (byte[] utf8 : encoded) {
+                out.put(utf8);
+            }
+            return out.array();
+        }
+    }
+
+    /**
+     * A checked snapshot, read in place. Items are decoded on request; each
+     * string is decoded once and shared by the items using it.
+     */
+    static final class Snapshot {
+        private final ByteBuffer buffer;
+        private final int size;
+        private final int stringsOffset;
+        private final int stringDataOffset;
+        private final int extrasOffset;
+        private final int length;
+        private final String[] strings;
+
+        private Snapshot(ByteBuffer buffer) {
+            this.buffer = buffer;
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IllegalArgumentException("Not a catalogue snapshot");
+            }
+            if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IllegalArgumentException("Unknown snapshot version " + buffer.getInt(VERSION_OFFSET));
+            }
+
+            size = buffer.getInt(COUNT_OFFSET);
+            int stringCount = buffer.getInt(STRING_COUNT_OFFSET);
+            stringsOffset = buffer.getInt(STRINGS_OFFSET);
+            extrasOffset = buffer.getInt(EXTRAS_OFFSET);
+            length = buffer.getInt(LENGTH_OFFSET);
+            stringDataOffset = stringsOffset + 4 * stringCount;
+            if (size < 0 || stringCount < 0 || length > buffer.capacity()
+                    || stringsOffset != HEADER_SIZE + (long) size * ROW_WIDTH
+                    || stringDataOffset < stringsOffset || stringDataOffset > extrasOffset || extrasOffset > length) {
+                throw new IllegalArgumentException("Malformed snapshot header");
+            }
+
+            CRC32 crc = new CRC32();
+            ByteBuffer body = buffer.duplicate();
+            body.limit(length).position(HEADER_SIZE);
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(CHECKSUM_OFFSET)) {
+                throw new IllegalArgumentException("Snapshot checksum mismatch");
+            }
+            strings = new String[stringCount];
+        }
+
+        /**
+         * Check the snapshot starting at the buffer's position, without copying it.
+         *
+         * @throws IllegalArgumentException if the snapshot is malformed or corrupt
+         */
+        static Snapshot open(ByteBuffer buffer) {
+            return new Snapshot(buffer.slice().order(ByteOrder.BIG_ENDIAN));
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Bytes taken by the snapshot.
+         */
+        int length() {
+            return length;
+        }
+
+        List<FlippingItem> items() {
+            List<FlippingItem> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(item(i));
+            }
+            return items;
+        }
+
+        FlippingItem item(int i) {
+            Objects.checkIndex(i, size);
+            FlippingItem item = new FlippingItem();
+            item.setDailyVolume(buffer.getLong(column(DAILY_VOLUME, size) + i * 8));
+            item.setAdjustedLowPrice(buffer.getLong(column(LOW_PRICE, size) + i * 8));
+            item.setAdjustedHighPrice(buffer.getLong(column(HIGH_PRICE, size) + i * 8));
+            item.setProfit(buffer.getLong(column(PROFIT, size) + i * 8));
+            item.setMedianHourlyVolume(buffer.getLong(column(HOURLY_VOLUME, size) + i * 8));
+            item.setScore(buffer.getDouble(column(SCORE, size) + i * 8));
+
+            int flags = buffer.get(column(FLAGS, size) + i);
+            item.setMembers((flags & MEMBERS) != 0);
+            if ((flags & HAS_DUMP_SCORE) != 0) {
+                item.setDumpSignalScore(buffer.getDouble(column(DUMP_SCORE, size) + i * 8));
+            }
+            if ((flags & HAS_DUMP_PEAK_PRICE) != 0) {
+                item.setDumpPeakPrice(buffer.getLong(column(DUMP_PEAK_PRICE, size) + i * 8));
+            }
+            if ((flags & HAS_DUMP_DETECTED_AT) != 0) {
+                item.setDumpDetectedAt(buffer.getLong(column(DUMP_DETECTED_AT, size) + i * 8));
+            }
+
+            int id = buffer.getInt(column(ID, size) + i * 4);
+            item.setId(id >= 0 ? String.valueOf(id) : string(-2 - id));
+            item.setName(string(buffer.getInt(column(NAME, size) + i * 4)));
+            item.setDetailIcon(string(buffer.getInt(column(ICON, size) + i * 4)));
+            item.setPredictedAction(string(buffer.getInt(column(ACTION, size) + i * 4)));
+            item.setQuantity(buffer.getInt(column(QUANTITY, size) + i * 4));
+            readExtras(item, buffer.getInt(column(EXTRAS, size) + i * 4));
+            return item;
+        }
+
+        private void readExtras(FlippingItem item, int offset) {
+            if (offset < 0 || offset >= length - extrasOffset) {
+                throw new IllegalArgumentException("Invalid extras offset " + offset);
+            }
+            ByteBuffer in = buffer.duplicate();
+            in.limit(length).position(extrasOffset + offset);
+
+            int points = readLength(in);
+            if (points >= 0) {
+                List<Integer> sparkline = new ArrayList<>(points);
+                long previous = 0;
+                for (int p = 0; p < points; p++) {
+                    previous += VarInts.readSigned(in);
+                    sparkline.add((int) previous);
+                }
+                item.setSparklineData(sparkline);
+            }
+
+            int reasonCount = readLength(in);
+            if (reasonCount >= 0) {
+                List<String> reasons = new ArrayList<>(reasonCount);
+                for (int r = 0; r < reasonCount; r++) {
+                    reasons.add(string((int) VarInts.readUnsigned(in) - 1));
+                }
+                item.setDumpSignalReasons(reasons);
+            }
+        }
+
+        // A length + 1, or -1 if it was null
+        private int readLength(ByteBuffer in) {
+            long value = VarInts.readUnsigned(in);
+            if (value > in.remaining() + 1L) {
+                throw new IllegalArgumentException("Invalid length " + (value - 1));
+            }
+            return (int) value - 1;
+        }
+
+        private String string(int reference) {
+            if (reference == NO_STRING) {
+                return null;
+            }
+            if (reference < 0 || reference >= strings.length) {
+                throw new IllegalArgumentException("Invalid string reference " + reference);
+            }
+            String value = strings[reference];
+            if (value == null) {
+                int start = reference == 0 ? 0 : buffer.getInt(stringsOffset + 4 * (reference - 1));
+                int end = buffer.getInt(stringsOffset + 4 * reference);
+                if (start < 0 || end < start || stringDataOffset + (long) end > extrasOffset) {
+                    throw new IllegalArgumentException("Invalid string " + reference);
+                }
+                byte[] utf8 = new byte[end - start];
+                ByteBuffer data = buffer.duplicate();
+                data.position(stringDataOffset + start);
+                data.get(utf8);
+                value = new String(utf8, StandardCharsets.UTF_8);
+                strings[reference] = value;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package flippinghelper;
+
+import java.io.IOException;
+
+/**
+ * Stops calling a failing service for a while instead of waiting on it every time.
+ *
+ * After {@code failureThreshold} failures in a row the breaker opens and
+ * rejects requests at once. Once the open interval has passed it lets a single
+ * probe request through (half-open): success closes the breaker, failure opens
+ * it again for twice as long, up to {@code maxOpenMillis}.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Thrown for requests rejected while the breaker is open.
+     */
+    static class OpenException extends IOException {
+        private final long retryAt;
+
+        OpenException(long retryAt) {
+            super("Service unavailable, next attempt at " + retryAt);
+            this.retryAt = retryAt;
+        }
+
+        long getRetryAt() {
+            return retryAt;
+        }
+    }
+
+    private final int failureThreshold;
+    private final long baseOpenMillis;
+    private final long maxOpenMillis;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openMillis;
+    private long openedAt;
+
+    CircuitBreaker(int failureThreshold, long baseOpenMillis, long maxOpenMillis) {
+        this.failureThreshold = failureThreshold;
+        this.baseOpenMillis = baseOpenMillis;
+        this.maxOpenMillis = maxOpenMillis;
+        this.openMillis = baseOpenMillis;
+    }
+
+    /**
+     * Check whether a request may be sent now. While open, the first request
+     * after the open interval becomes the half-open probe.
+     *
+     * @throws OpenException if the request must not be sent
+     */
+    synchronized void acquire(long now) throws OpenException {
+        switch (state) {
+            case CLOSED:
+                return;
+            case OPEN:
+                if (now >= getRetryAt()) {
+                    state = State.HALF_OPEN;
+                    return;
+                }
+                throw new OpenException(getRetryAt());
+            default:
+                // A probe is already in flight
+                throw new OpenException(now + baseOpenMillis);
+        }
+    }
+
+    synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        openMillis = baseOpenMillis;
+    }
+
+    synchronized void recordFailure(long now) {
+        if (state == State.HALF_OPEN) {
+            openMillis = Math.min(maxOpenMillis, openMillis * 2);
+            open(now);
+        } else if (state == State.CLOSED && ++failures >= failureThreshold) {
+            open(now);
+        }
+    }
+
+    /**
+     * A request ended without an answer either way, e.g. it was cancelled.
+     * A cancelled probe frees the way for the next one.
+     */
+    synchronized void recordAbandoned() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * When the next probe may be sent, while the breaker is open.
+     */
+    synchronized long getRetryAt() {
+        return openedAt + openMillis;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+        failures = 0;
+    }
+}
@@ -0,0 +1,190 @@
+package flippinghelper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Detects dumps on the client between server updates.
+ *
+ * Keeps a time-decayed EWMA mean and variance of the buy price and daily volume
+ * of every item, in primitive arrays indexed by item id. A price far below its
+ * baseline (by z-score) is flagged as a dump, which the existing dump filter
+ * then picks up through the item's dump fields.
+ */
+@Slf4j
+@Singleton
+public class DumpDetector {
+
+    private static final long HALF_LIFE_MILLIS = 60 * 60 * 1000;
+    private static final long SIGNAL_HOLD_MILLIS = 30 * 60 * 1000;
+    private static final int MIN_SAMPLES = 3;
+    private static final double MIN_RELATIVE_DROP = 0.03;
+    private static final int INITIAL_CAPACITY = 32768;
+    private static final String LOCAL_REASON = "Local price drop";
+
+    private final PriceHistoryStore priceHistoryStore;
+
+    private int[] samples = new int[INITIAL_CAPACITY];
+    private long[] lastUpdate = new long[INITIAL_CAPACITY];
+    private double[] priceMean = new double[INITIAL_CAPACITY];
+    private double[] priceVariance = new double[INITIAL_CAPACITY];
+    private double[] volumeMean = new double[INITIAL_CAPACITY];
+    private double[] volumeVariance = new double[INITIAL_CAPACITY];
+
+    // Last local signal per item, kept for SIGNAL_HOLD_MILLIS
+    private long[] signalAt = new long[INITIAL_CAPACITY];
+    private double[] signalScore = new double[INITIAL_CAPACITY];
+    private long[] signalPeak = new long[INITIAL_CAPACITY];
+    private double[] signalZ = new double[INITIAL_CAPACITY];
+
+    @Inject
+    public DumpDetector(PriceHistoryStore priceHistoryStore) {
+        this.priceHistoryStore = priceHistoryStore;
+    }
+
+    /**
+     * Update the baselines with a fetched snapshot and mark items whose price
+     * dropped more than {@code zThreshold} standard deviations below it.
+     * Items flagged recently stay flagged for a while, even once the baseline
+     * has caught up with the lower price.
+     */
+    public synchronized void update(List<FlippingItem> items, long now, double zThreshold) {
+        int flagged = 0;
+        for (FlippingItem item : items) {
+            int itemId;
+            try {
+                itemId = Integer.parseInt(item.getId());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (itemId < 0 || item.getAdjustedLowPrice() <= 0) {
+                continue;
+            }
+
+            ensureCapacity(itemId);
+            if (samples[itemId] == 0) {
+                seedFromHistory(itemId);
+            }
+
+            double price = item.getAdjustedLowPrice();
+            double volume = item.getDailyVolume();
+
+            if (samples[itemId] >= MIN_SAMPLES && priceVariance[itemId] > 0) {
+                double z = (price - priceMean[itemId]) / Math.sqrt(priceVariance[itemId]);
+                double drop = (priceMean[itemId] - price) / priceMean[itemId];
+                if (z <= -zThreshold && drop >= MIN_RELATIVE_DROP) {
+                    double volumeZ = volumeVariance[itemId] > 0
+                        ? (volume - volumeMean[itemId]) / Math.sqrt(volumeVariance[itemId])
+                        : 0;
+                    signalAt[itemId] = now;
+                    signalScore[itemId] = score(z, volumeZ, zThreshold);
+                    signalPeak[itemId] = Math.round(priceMean[itemId]);
+                    signalZ[itemId] = z;
+                }
+            }
+
+            observe(itemId, now, price, volume);
+
+            if (signalAt[itemId] != 0 && now - signalAt[itemId] <= SIGNAL_HOLD_MILLIS) {
+                applySignal(item, itemId);
+                flagged++;
+            }
+        }
+
+        if (flagged > 0) {
+            log.debug("Local dump detection flagged {} items", flagged);
+        }
+    }
+
+    private void observe(int itemId, long now, double price, double volume) {
+        double alpha;
+        if (samples[itemId] == 0) {
+            alpha = 1;
+        } else {
+            long elapsed = Math.max(0, now - lastUpdate[itemId]);
+            alpha = 1 - Math.pow(0.5, (double) elapsed / HALF_LIFE_MILLIS);
+        }
+
+        double priceDiff = price - priceMean[itemId];
+        double priceIncrement = alpha * priceDiff;
+        priceMean[itemId] += priceIncrement;
+        priceVariance[itemId] = (1 - alpha) * (priceVariance[itemId] + priceDiff * priceIncrement);
+
+        double volumeDiff = volume - volumeMean[itemId];
+        double volumeIncrement = alpha * volumeDiff;
+        volumeMean[itemId] += volumeIncrement;
+        volumeVariance[itemId] = (1 - alpha) * (volumeVariance[itemId] + volumeDiff * volumeIncrement);
+
+        lastUpdate[itemId] = now;
+        samples[itemId]++;
+    }
+
+    /**
+     * Warm up the baseline of a newly seen item from the local price history.
+     */
+    private void seedFromHistory(int itemId) {
+        PriceHistoryStore.PriceSeries series = priceHistoryStore.getSeries(itemId, PriceHistoryStore.Resolution.FIVE_MINUTES);
+        for (int i = 0; i < series.size(); i++) {
+            if (series.getLow()[i] > 0) {
+                observe(itemId, series.getTimestamps()[i], series.getLow()[i], series.getVolume()[i]);
+            }
+        }
+    }
+
+    /**
+     * Map the z-scores to the 0-1 range used by the server's dump score.
+     * A drop at exactly the threshold scores 0.5; a volume spike adds up to 0.25.
+     */
+    private static double score(double priceZ, double volumeZ, double zThreshold) {
+        double score = -priceZ / (2 * zThreshold) + 0.1 * Math.max(0, Math.min(volumeZ, 2.5));
+        return Math.min(1.0, score);
+    }
+
+    private void applySignal(FlippingItem item, int itemId) {
+        Double serverScore = item.getDumpSignalScore();
+        if (serverScore == null || serverScore < signalScore[itemId]) {
+            item.setDumpSignalScore(signalScore[itemId]);
+        }
+
+        // Replaces the reason of an earlier local signal, if the item was flagged before
+        List<String> reasons = item.getDumpSignalReasons() == null
+            ? new ArrayList<>()
+            : new ArrayList<>(item.getDumpSignalReasons());
+        reasons.removeIf(reason -> reason.startsWith(LOCAL_REASON));
+        reasons.add(String.format(LOCAL_REASON + " (z=%.1f)", signalZ[itemId]));
+        item.setDumpSignalReasons(reasons);
+
+        if (item.getDumpPeakPrice() == null) {
+            item.setDumpPeakPrice(signalPeak[itemId]);
+        }
+        if (item.getDumpDetectedAt() == null) {
+            item.setDumpDetectedAt(signalAt[itemId]);
+        }
+    }
+
+    private void ensureCapacity(int itemId) {
+        if (itemId < samples.length) {
+            return;
+        }
+
+        int capacity = samples.length;
+        while (capacity <= itemId) {
+            capacity *= 2;
+        }
+        samples = Arrays.copyOf(samples, capacity);
+        lastUpdate = Arrays.copyOf(lastUpdate, capacity);
+        priceMean = Arrays.copyOf(priceMean, capacity);
+        priceVariance = Arrays.copyOf(priceVariance, capacity);
+        volumeMean = Arrays.copyOf(volumeMean, capacity);
+        volumeVariance = Arrays.copyOf(volumeVariance, capacity);
+        signalAt = Arrays.copyOf(signalAt, capacity);
+        signalScore = Arrays.copyOf(signalScore, capacity);
+        signalPeak = Arrays.copyOf(signalPeak, capacity);
+        signalZ = Arrays.copyOf(signalZ, capacity);
+    }
+}
@@ -0,0 +1,15 @@
+package flippinghelper;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The items of a catalogue request and when they were fetched, by this client
+ * or by the client that published them.
+ */
+@Value
+class FetchedCatalogue {
+    long fetchedAt;
+    List<FlippingItem> items;
+}
@@ -0,0 +1,408 @@
+package flippinghelper;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A filter written as an expression over item fields, for example
+ * {@code profit*quantity > 200k && members == false && roi > 2%}.
+ *
+ * The source is parsed once into a tree of closures that read the item columns
+ * directly, so evaluating it costs no config or reflection calls per item.
+ * Constant sub-expressions are folded while parsing.
+ *
+ * Grammar, loosest binding first:
+ * <pre>
+ * or         := and ('||' and)*
+ * and        := not ('&amp;&amp;' not)*
+ * not        := '!' not | comparison
+ * comparison := sum (('&lt;' | '&lt;=' | '&gt;' | '&gt;=' | '==' | '!=') sum)?
+ * sum        := product (('+' | '-') product)*
+ * product    := unary (('*' | '/') unary)*
+ * unary      := '-' unary | primary
+ * primary    := number ('k' | 'm' | 'b' | '%')? | 'true' | 'false' | field | '(' or ')'
+ * </pre>
+ */
+final class FilterExpression {
+
+    @FunctionalInterface
+    interface RowPredicate {
+        boolean test(ItemColumns columns, int row);
+    }
+
+    @FunctionalInterface
+    private interface NumberTerm {
+        double eval(ItemColumns columns, int row);
+    }
+
+    private static final Map<String, Term> FIELDS = new HashMap<>();
+
+    static {
+        field("buy", (c, i) -> c.buyPrice[i]);
+        field("sell", (c, i) -> c.sellPrice[i]);
+        field("profit", (c, i) -> c.profit[i]);
+        field("quantity", (c, i) -> c.quantity[i]);
+        field("volume", (c, i) -> c.dailyVolume[i]);
+        field("hourlyVolume", (c, i) -> c.hourlyVolume[i]);
+        field("score", (c, i) -> c.score[i]);
+        field("dump", (c, i) -> c.dumpScore[i]);
+        field("roi", (c, i) -> c.buyPrice[i] > 0 ? (double) c.profit[i] / c.buyPrice[i] : 0);
+        field("investment", (c, i) -> (double) c.quantity[i] * c.buyPrice[i]);
+        field("gpPerHour", (c, i) -> c.keyColumn(RankingStrategies.GP_PER_HOUR)[i]);
+        FIELDS.put("members", Term.predicate((c, i) -> c.members[i]));
+    }
+
+    private final String source;
+    private final RowPredicate predicate;
+
+    private FilterExpression(String source, RowPredicate predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Parse an expression. A blank source matches every item.
+     *
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    static FilterExpression parse(String source) {
+        if (source == null || source.trim().isEmpty()) {
+            return new FilterExpression("", (c, i) -> true);
+        }
+        Parser parser = new Parser(source);
+        return new FilterExpression(source, parser.parse());
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    boolean test(ItemColumns columns, int row) {
+        return predicate.test(columns, row);
+    }
+
+    /**
+     * Evaluate the filter over every row of the columns, in parallel for large columns.
+     */
+    boolean[] evaluate(ItemColumns columns) {
+        boolean[] passes = new boolean[columns.size];
+        ParallelColumns.forRanges(columns.size, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                passes[i] = predicate.test(columns, i);
+            }
+        });
+        return passes;
+    }
+
+    /**
+     * Combine two filters; the result matches items matching both.
+     */
+    FilterExpression and(FilterExpression other) {
+        if (source.isEmpty()) {
+            return other;
+        }
+        if (other.source.isEmpty()) {
+            return this;
+        }
+        RowPredicate left = predicate;
+        RowPredicate right = other.predicate;
+        return new FilterExpression("(" + source + ") && (" + other.source + ")",
+            (c, i) -> left.test(c, i) && right.test(c, i));
+    }
+
+    private static void field(String name, NumberTerm term) {
+        FIELDS.put(name.toLowerCase(Locale.ROOT), Term.number(term));
+    }
+
+    /**
+     * A parsed sub-expression: either a number or a predicate, possibly constant.
+     */
+    private static final class Term {
+        final NumberTerm number;
+        final RowPredicate predicate;
+        final boolean constant;
+        final double value;
+
+        private Term(NumberTerm number, RowPredicate predicate, boolean constant, double value) {
+            this.number = number;
+            this.predicate = predicate;
+            this.constant = constant;
+            this.value = value;
+        }
+
+        static Term number(NumberTerm number) {
+            return new Term(number, null, false, 0);
+        }
+
+        static Term predicate(RowPredicate predicate) {
+            return new Term(null, predicate, false, 0);
+        }
+
+        static Term constant(double value) {
+            return new Term((c, i) -> value, null, true, value);
+        }
+
+        static Term constant(boolean value) {
+            return new Term(null, (c, i) -> value, true, value ? 1 : 0);
+        }
+
+        boolean isNumber() {
+            return number != null;
+        }
+    }
+
+    private static final class Parser {
+        private final String source;
+        private int pos;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        RowPredicate parse() {
+            Term term = or();
+            skipSpaces();
+            if (pos < source.length()) {
+                throw error("Unexpected '" + source.charAt(pos) + "'");
+            }
+            return predicate(term);
+        }
+
+        private Term or() {
+            Term left = and();
+            while (accept("||")) {
+                RowPredicate a = predicate(left);
+                RowPredicate b = predicate(and());
+                left = Term.predicate((c, i) -> a.test(c, i) || b.test(c, i));
+            }
+            return left;
+        }
+
+        private Term and() {
+            Term left = not();
+            while (accept("&&")) {
+                RowPredicate a = predicate(left);
+                RowPredicate b = predicate(not());
+                left = Term.predicate((c, i) -> a.test(c, i) && b.test(c, i));
+            }
+            return left;
+        }
+
+        private Term not() {
+            if (peek("!") && !peek("!=")) {
+                pos++;
+                Term operand = not();
+                RowPredicate p = predicate(operand);
+                if (operand.constant) {
+                    return Term.constant(operand.value == 0);
+                }
+                return Term.predicate((c, i) -> !p.test(c, i));
+            }
+            return comparison();
+        }
+
+        private Term comparison() {
+            Term left = sum();
+            String op = acceptAny("<=", ">=", "==", "!=", "<", ">");
+            if (op == null) {
+                return left;
+            }
+            int opPos = pos;
+            Term right = sum();
+
+            if (left.isNumber() != right.isNumber()) {
+                throw error("Cannot compare a number with a condition", opPos);
+            }
+            if (!left.isNumber()) {
+                if (!op.equals("==") && !op.equals("!=")) {
+                    throw error("Conditions can only be compared with == or !=", opPos);
+                }
+                RowPredicate a = left.predicate;
+                RowPredicate b = right.predicate;
+                return op.equals("==")
+                    ? Term.predicate((c, i) -> a.test(c, i) == b.test(c, i))
+                    : Term.predicate((c, i) -> a.test(c, i) != b.test(c, i));
+            }
+
+            NumberTerm a = left.number;
+            if (right.constant) {
+                // The common case, a field against a literal
+                double v = right.value;
+                switch (op) {
+                    case "<": return Term.predicate((c, i) -> a.eval(c, i) < v);
+                    case "<=": return Term.predicate((c, i) -> a.eval(c, i) <= v);
+                    case ">": return Term.predicate((c, i) -> a.eval(c, i) > v);
+                    case ">=": return Term.predicate((c, i) -> a.eval(c, i) >= v);
+                    case "==": return Term.predicate((c, i) -> a.eval(c, i) == v);
+                    default: return Term.predicate((c, i) -> a.eval(c, i) != v);
+                }
+            }
+            NumberTerm b = right.number;
+            switch (op) {
+                case "<": return Term.predicate((c, i) -> a.eval(c, i) < b.eval(c, i));
+                case "<=": return Term.predicate((c, i) -> a.eval(c, i) <= b.eval(c, i));
+                case ">": return Term.predicate((c, i) -> a.eval(c, i) > b.eval(c, i));
+                case ">=": return Term.predicate((c, i) -> a.eval(c, i) >= b.eval(c, i));
+                case "==": return Term.predicate((c, i) -> a.eval(c, i) == b.eval(c, i));
+                default: return Term.predicate((c, i) -> a.eval(c, i) != b.eval(c, i));
+            }
+        }
+
+        private Term sum() {
+            Term left = product();
+            String op;
+            while ((op = acceptAny("+", "-")) != null) {
+                left = arithmetic(op.charAt(0), left, product());
+            }
+            return left;
+        }
+
+        private Term product() {
+            Term left = unary();
+            String op;
+            while ((op = acceptAny("*", "/")) != null) {
+                left = arithmetic(op.charAt(0), left, unary());
+            }
+            return left;
+        }
+
+        private Term unary() {
+            if (accept("-")) {
+                Term operand = unary();
+                NumberTerm n = number(operand);
+                return operand.constant ? Term.constant(-operand.value) : Term.number((c, i) -> -n.eval(c, i));
+            }
+            return primary();
+        }
+
+        private Term primary() {
+            skipSpaces();
+            if (pos >= source.length()) {
+                throw error("Unexpected end of expression");
+            }
+
+            char ch = source.charAt(pos);
+            if (ch == '(') {
+                pos++;
+                Term inner = or();
+                if (!accept(")")) {
+                    throw error("Expected ')'");
+                }
+                return inner;
+            }
+            if (Character.isDigit(ch) || ch == '.') {
+                return literal();
+            }
+            if (Character.isLetter(ch)) {
+                int start = pos;
+                while (pos < source.length() && Character.isLetterOrDigit(source.charAt(pos))) {
+                    pos++;
+                }
+                String name = source.substring(start, pos);
+                if (name.equalsIgnoreCase("true") || name.equalsIgnoreCase("false")) {
+                    return Term.constant(name.equalsIgnoreCase("true"));
+                }
+                Term field = FIELDS.get(name.toLowerCase(Locale.ROOT));
+                if (field == null) {
+                    throw error("Unknown field '" + name + "'", start);
+                }
+                return field;
+            }
+            throw error("Unexpected '" + ch + "'");
+        }
+
+        private Term literal() {
+            int start = pos;
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+                pos++;
+            }
+            double value;
+            try {
+                value = Double.parseDouble(source.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("Invalid number", start);
+            }
+
+            if (pos < source.length()) {
+                switch (Character.toLowerCase(source.charAt(pos))) {
+                    case 'k': value *= 1_000; pos++; break;
+                    case 'm': value *= 1_000_000; pos++; break;
+                    case 'b': value *= 1_000_000_000; pos++; break;
+                    case '%': value /= 100; pos++; break;
+                    default: break;
+                }
+            }
+            if (pos < source.length() && Character.isLetterOrDigit(source.charAt(pos))) {
+                throw error("Invalid number", start);
+            }
+            return Term.constant(value);
+        }
+
+        private Term arithmetic(char op, Term left, Term right) {
+            NumberTerm a = number(left);
+            NumberTerm b = number(right);
+            Term term;
+            switch (op) {
+                case '+': term = Term.number((c, i) -> a.eval(c, i) + b.eval(c, i)); break;
+                case '-': term = Term.number((c, i) -> a.eval(c, i) - b.eval(c, i)); break;
+                case '*': term = Term.number((c, i) -> a.eval(c, i) * b.eval(c, i)); break;
+                default: term = Term.number((c, i) -> {
+                    double divisor = b.eval(c, i);
+                    return divisor == 0 ? 0 : a.eval(c, i) / divisor;
+                });
+            }
+            return left.constant && right.constant ? Term.constant(term.number.eval(null, 0)) : term;
+        }
+
+        private NumberTerm number(Term term) {
+            if (!term.isNumber()) {
+                throw error("Expected a number");
+            }
+            return term.number;
+        }
+
+        private RowPredicate predicate(Term term) {
+            if (term.isNumber()) {
+                throw error("Expected a condition");
+            }
+            return term.predicate;
+        }
+
+        private boolean peek(String token) {
+            skipSpaces();
+            return source.startsWith(token, pos);
+        }
+
+        private boolean accept(String token) {
+            if (peek(token)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private String acceptAny(String... tokens) {
+            for (String token : tokens) {
+                if (accept(token)) {
+                    return token;
+                }
+            }
+            return null;
+        }
+
+        private void skipSpaces() {
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return error(message, pos);
+        }
+
+        private IllegalArgumentException error(String message, int at) {
+            return new IllegalArgumentException(message + " at position " + (at + 1) + " in '" + source + "'");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package flippinghelper;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named filter profiles, stored as JSON in the plugin's config group.
+ */
+@Slf4j
+@Singleton
+public class FilterProfileStore {
+
+    static final String PROFILES_KEY = "filterProfiles";
+    static final String ACTIVE_PROFILE_KEY = "activeFilterProfile";
+
+    private static final Type PROFILES_TYPE = new TypeToken<LinkedHashMap<String, FilterSettings>>() {
+    }.getType();
+
+    private final ConfigManager configManager;
+    private final Gson gson = new Gson();
+    private Map<String, FilterSettings> profiles;
+
+    @Inject
+    public FilterProfileStore(ConfigManager configManager) {
+        this.configManager = configManager;
+    }
+
+    public synchronized List<String> getNames() {
+        return new ArrayList<>(load().keySet());
+    }
+
+    public synchronized FilterSettings get(String name) {
+        return load().get(name);
+    }
+
+    /**
+     * Save (or replace) a profile.
+     */
+    public synchronized void save(String name, FilterSettings settings) {
+        load().put(name, settings);
+        store();
+    }
+
+    public synchronized void delete(String name) {
+        if (load().remove(name) != null) {
+            store();
+        }
+        if (name.equals(getActiveName())) {
+            configManager.unsetConfiguration(FlippingHelperPlugin.CONFIG_GROUP, ACTIVE_PROFILE_KEY);
+        }
+    }
+
+    /**
+     * Name of the last selected profile, or null.
+     */
+    public String getActiveName() {
+        return configManager.getConfiguration(FlippingHelperPlugin.CONFIG_GROUP, ACTIVE_PROFILE_KEY);
+    }
+
+    public void setActiveName(String name) {
+        configManager.setConfiguration(FlippingHelperPlugin.CONFIG_GROUP, ACTIVE_PROFILE_KEY, name);
+    }
+
+    private Map<String, FilterSettings> load() {
+        if (profiles == null) {
+            profiles = new LinkedHashMap<>();
+            String json = configManager.getConfiguration(FlippingHelperPlugin.CONFIG_GROUP, PROFILES_KEY);
+            if (json != null && !json.isEmpty()) {
+                try {
+                    Map<String, FilterSettings> stored = gson.fromJson(json, PROFILES_TYPE);
+                    if (stored != null) {
+                        profiles.putAll(stored);
+                    }
+                } catch (JsonParseException e) {
+                    log.warn("Ignoring unreadable filter profiles", e);
+                }
+            }
+        }
+        return profiles;
+    }
+
+    private void store() {
+        configManager.setConfiguration(FlippingHelperPlugin.CONFIG_GROUP, PROFILES_KEY, gson.toJson(profiles, PROFILES_TYPE));
+    }
+}
@@ -0,0 +1,110 @@
+package flippinghelper;
+
+import lombok.Value;
+import net.runelite.client.config.ConfigManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The filter values and ranking mode of the config, saved as a filter profile.
+ */
+@Value
+public class FilterSettings {
+    int minBuyPrice;
+    int maxBuyPrice;
+    int minProfit;
+    int minDailyVolume;
+    double minScore;
+    FlippingHelperConfig.DumpFilter dumpFilter;
+    int minQuantity;
+    int maxTotalInvestment;
+    String filterExpression;
+    FlippingHelperConfig.RankingMode rankingMode;
+
+    public static FilterSettings fromConfig(FlippingHelperConfig config) {
+        return new FilterSettings(
+            config.minBuyPrice(),
+            config.maxBuyPrice(),
+            config.minProfit(),
+            config.minDailyVolume(),
+            config.minScore(),
+            config.dumpFilter(),
+            config.minQuantity(),
+            config.maxTotalInvestment(),
+            config.filterExpression() == null ? "" : config.filterExpression(),
+            config.rankingMode());
+    }
+
+    /**
+     * Write these values to the config.
+     */
+    public void applyTo(ConfigManager configManager, String group) {
+        configManager.setConfiguration(group, "minBuyPrice", minBuyPrice);
+        configManager.setConfiguration(group, "maxBuyPrice", maxBuyPrice);
+        configManager.setConfiguration(group, "minProfit", minProfit);
+        configManager.setConfiguration(group, "minDailyVolume", minDailyVolume);
+        configManager.setConfiguration(group, "minScore", minScore);
+        configManager.setConfiguration(group, "dumpFilter", dumpFilter);
+        configManager.setConfiguration(group, "minQuantity", minQuantity);
+        configManager.setConfiguration(group, "maxTotalInvestment", maxTotalInvestment);
+        configManager.setConfiguration(group, "filterExpression", filterExpression == null ? "" : filterExpression);
+        if (rankingMode != null) {
+            configManager.setConfiguration(group, "rankingMode", rankingMode);
+        }
+    }
+
+    /**
+     * The fixed filters written as a filter expression (without the custom filter).
+     */
+    String toExpression() {
+        List<String> conditions = new ArrayList<>();
+
+        // Minimum and maximum buy price
+        if (minBuyPrice > 0) {
+            conditions.add("buy >= " + minBuyPrice);
+        }
+        if (maxBuyPrice > 0) {
+            conditions.add("buy <= " + maxBuyPrice);
+        }
+
+        // Minimum profit, daily volume and score
+        if (minProfit > 0) {
+            conditions.add("profit >= " + minProfit);
+        }
+        if (minDailyVolume > 0) {
+            conditions.add("volume >= " + minDailyVolume);
+        }
+        if (minScore > 0) {
+            // Plain notation, since the expression syntax has no exponents (1.0E-4)
+            conditions.add("score >= " + BigDecimal.valueOf(minScore).stripTrailingZeros().toPlainString());
+        }
+
+        // Dump filter
+        if (dumpFilter != null) {
+            switch (dumpFilter) {
+                case DUMP_ONLY:
+                    conditions.add("dump > 0");
+                    break;
+                case NO_DUMP:
+                    conditions.add("dump <= 0");
+                    break;
+                case ALL:
+                default:
+                    // No filtering based on dump status
+                    break;
+            }
+        }
+
+        // Minimum quantity and maximum total investment (quantity × buy price)
+        if (minQuantity > 0) {
+            conditions.add("quantity >= " + minQuantity);
+        }
+        if (maxTotalInvestment > 0) {
+            conditions.add("investment <= " + maxTotalInvestment);
+        }
+
+        return String.join(" && ", conditions);
+    }
+}
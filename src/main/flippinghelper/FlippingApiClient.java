@@ -9,27 +9,157 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Non-blocking client of the items API.
+ *
+ * One HttpClient is shared by every request, so its HTTP/2 connection is kept
+ * alive and reused between fetches. Responses are handled on a small pool of
+ * daemon threads whose idle threads exit, so nothing needs shutting down.
+ * Requests go through a circuit breaker, so while the API is down they fail
+ * at once instead of waiting for a timeout each time.
+ */
 @Slf4j
 public class FlippingApiClient {
 
+    /**
+     * Progress of a fetch, called on an HTTP client thread.
+     */
+    public interface FetchListener {
+        FetchListener NONE = new FetchListener() {
+        };
+
+        /**
+         * The response headers arrived. {@code contentLength} is -1 if unknown.
+         */
+        default void headersReceived(int statusCode, long contentLength) {
+        }
+
+        /**
+         * The body was downloaded and decoded into items.
+         */
+        default void bodyDecoded(int itemCount) {
+        }
+    }
+
     private static final String API_URL = "https://www.gielinorgains.com/api/items";
-    private final HttpClient client = HttpClient.newHttpClient();
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    // Until the response headers arrive
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
+    // Whole fetch, including downloading and decoding the body
+    private static final long FETCH_TIMEOUT_SECONDS = 30;
+    private static final int HTTP_THREADS = 2;
+    private static final int BREAKER_FAILURES = 3;
+    private static final long BREAKER_OPEN_MILLIS = 60_000;
+    private static final long BREAKER_MAX_OPEN_MILLIS = 10 * 60_000;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .executor(createExecutor())
+            .build();
     private final Gson gson = new Gson();
+    private final CircuitBreaker breaker = new CircuitBreaker(BREAKER_FAILURES, BREAKER_OPEN_MILLIS, BREAKER_MAX_OPEN_MILLIS);
+
+    private ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(HTTP_THREADS, HTTP_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "flipping-helper-http-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Fetch every item. Cancelling the returned future, or its failing, stops
+     * the download of the response body; a request still waiting for its
+     * response headers is dropped as soon as they arrive. It fails with a
+     * timeout if the fetch takes longer than {@value #FETCH_TIMEOUT_SECONDS}
+     * seconds, and at once with a {@link CircuitBreaker.OpenException} while
+     * the API is considered down.
+     */
+    public CompletableFuture<List<FlippingItem>> getItemsAsync(FetchListener listener) {
+        try {
+            breaker.acquire(System.currentTimeMillis());
+        } catch (CircuitBreaker.OpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-    public List<FlippingItem> getItems() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(API_URL))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        // Cancelling the future of sendAsync does not stop the exchange, cancelling the body subscription does
+        CancellableBody<String> body = new CancellableBody<>(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8));
+        CompletableFuture<HttpResponse<String>> response = client.sendAsync(request, info -> {
+            listener.headersReceived(info.statusCode(), info.headers().firstValueAsLong("Content-Length").orElse(-1));
+            return body;
+        });
+        CompletableFuture<List<FlippingItem>> items = response
+                .thenApply(this::parseItems)
+                .thenApply(parsed -> {
+                    listener.bodyDecoded(parsed.size());
+                    return parsed;
+                })
+                .orTimeout(FETCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        items.whenComplete((result, error) -> {
+            if (error != null) {
+                body.cancel();
+            }
+            if (error == null) {
+                breaker.recordSuccess();
+            } else if (items.isCancelled()) {
+                breaker.recordAbandoned();
+            } else {
+                breaker.recordFailure(System.currentTimeMillis());
+            }
+        });
+        return SingleFlight.cancelling(items, response);
+    }
+
+    /**
+     * Whether requests are currently rejected without being sent.
+     */
+    public boolean isUnavailable() {
+        return breaker.getState() == CircuitBreaker.State.OPEN;
+    }
+
+    /**
+     * When the next request will be sent to probe the API, if it is unavailable.
+     */
+    public long getRetryAt() {
+        return breaker.getRetryAt();
+    }
 
+    private List<FlippingItem> parseItems(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new CompletionException(new IOException("Items API returned HTTP " + response.statusCode()));
+        }
         log.debug("API Response: {}", response.body());
 
         ApiResponse apiResponse = gson.fromJson(response.body(), ApiResponse.class);
 
-        List<FlippingItem> items = apiResponse.getData();
+        List<FlippingItem> items = apiResponse == null || apiResponse.getData() == null
+                ? new ArrayList<>()
+                : apiResponse.getData();
         for (FlippingItem item : items) {
             item.setPredictedAction("buy"); // Default action is to buy
         }
@@ -42,4 +172,56 @@ public class FlippingApiClient {
         private List<FlippingItem> data;
         private int totalItems;
     }
+
+    /**
+     * A body subscriber whose subscription can be cancelled from outside, which
+     * makes the HttpClient abandon the exchange. Used for a single response.
+     */
+    static final class CancellableBody<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+
+        CancellableBody(HttpResponse.BodySubscriber<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        void cancel() {
+            cancelled = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            delegate.onSubscribe(subscription);
+            // Cancelled before the headers arrived
+            if (cancelled) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            delegate.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            delegate.onComplete();
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+    }
 }
@@ -119,6 +119,166 @@ public interface FlippingHelperConfig extends Config
 		return 0;
 	}
 
+	@ConfigItem(
+		keyName = "localDumpDetection",
+		name = "Local Dump Detection",
+		description = "Also flag dumps detected locally from price changes between fetches, for use with the dump filter",
+		section = filterSection,
+		position = 9
+	)
+	default boolean localDumpDetection()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "localDumpThreshold",
+		name = "Local Dump Threshold",
+		description = "How many standard deviations below its recent average the buy price must drop to count as a dump",
+		section = filterSection,
+		position = 10
+	)
+	@Range(min = 1, max = 10)
+	default double localDumpThreshold()
+	{
+		return 3.0;
+	}
+
+	@ConfigItem(
+		keyName = "filterExpression",
+		name = "Custom Filter",
+		description = "Extra filter expression, e.g. profit*quantity > 200k && members == false && roi > 2%."
+			+ " Fields: buy, sell, profit, quantity, volume, hourlyVolume, score, dump, roi, investment, gpPerHour, members",
+		section = filterSection,
+		position = 11
+	)
+	default String filterExpression()
+	{
+		return "";
+	}
+
+	@ConfigSection(
+		name = "Ranking",
+		description = "How flipping opportunities are ordered",
+		position = 1
+	)
+	String rankingSection = "ranking";
+
+	@ConfigItem(
+		keyName = "rankingMode",
+		name = "Ranking Mode",
+		description = "Order suggestions by server score, profit, ROI, expected gp per hour, volume-weighted margin,"
+			+ " a weighted blend of those, or the best use of the available capital",
+		section = rankingSection,
+		position = 1
+	)
+	default RankingMode rankingMode()
+	{
+		return RankingMode.SCORE;
+	}
+
+	@ConfigItem(
+		keyName = "availableCapital",
+		name = "Available Capital",
+		description = "GP available for new offers in capital allocation mode (0 = coins in inventory)",
+		section = rankingSection,
+		position = 2
+	)
+	@Range(min = 0)
+	default int availableCapital()
+	{
+		return 0;
+	}
+
+	@ConfigItem(
+		keyName = "blendScoreWeight",
+		name = "Blend: Score Weight",
+		description = "Weight of the score rank in the weighted blend ranking mode",
+		section = rankingSection,
+		position = 3
+	)
+	@Range(min = 0, max = 100)
+	default int blendScoreWeight()
+	{
+		return 50;
+	}
+
+	@ConfigItem(
+		keyName = "blendProfitWeight",
+		name = "Blend: Profit Weight",
+		description = "Weight of the profit rank in the weighted blend ranking mode",
+		section = rankingSection,
+		position = 4
+	)
+	@Range(min = 0, max = 100)
+	default int blendProfitWeight()
+	{
+		return 0;
+	}
+
+	@ConfigItem(
+		keyName = "blendRoiWeight",
+		name = "Blend: ROI Weight",
+		description = "Weight of the ROI rank in the weighted blend ranking mode",
+		section = rankingSection,
+		position = 5
+	)
+	@Range(min = 0, max = 100)
+	default int blendRoiWeight()
+	{
+		return 0;
+	}
+
+	@ConfigItem(
+		keyName = "blendGpPerHourWeight",
+		name = "Blend: GP/Hour Weight",
+		description = "Weight of the expected gp per hour rank in the weighted blend ranking mode",
+		section = rankingSection,
+		position = 6
+	)
+	@Range(min = 0, max = 100)
+	default int blendGpPerHourWeight()
+	{
+		return 50;
+	}
+
+	@ConfigItem(
+		keyName = "blendVolumeMarginWeight",
+		name = "Blend: Volume Margin Weight",
+		description = "Weight of the volume-weighted margin rank in the weighted blend ranking mode",
+		section = rankingSection,
+		position = 7
+	)
+	@Range(min = 0, max = 100)
+	default int blendVolumeMarginWeight()
+	{
+		return 0;
+	}
+
+	enum RankingMode
+	{
+		SCORE("Score"),
+		PROFIT("Profit"),
+		ROI("ROI"),
+		GP_PER_HOUR("GP per hour"),
+		VOLUME_MARGIN("Volume-weighted margin"),
+		BLEND("Weighted blend"),
+		CAPITAL_ALLOCATION("Capital allocation");
+
+		private final String name;
+
+		RankingMode(String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public String toString()
+		{
+			return name;
+		}
+	}
+
 	enum DumpFilter
 	{
 		ALL("Show All"),
@@ -1,10 +1,8 @@
 package flippinghelper;
 
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.client.game.ItemManager;
+import net.runelite.client.util.AsyncBufferedImage;
 import net.runelite.client.ui.PluginPanel;
-import net.runelite.client.util.ColorUtil;
-import net.runelite.client.util.QuantityFormatter;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -13,32 +11,59 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 @Slf4j
 public class FlippingHelperPanel extends PluginPanel {
 
-    private final ItemManager itemManager;
+    private static final String BATCH_START_TEXT = "Place Offers in Free Slots";
+    private static final String BATCH_STOP_TEXT = "Stop Placing Offers";
+
+    private final ItemIconCache iconCache;
+    private final ProfitTracker profitTracker;
     private final Consumer<Integer> refreshCallback;
     private final Consumer<Integer> refreshPricesCallback;
     private final Runnable reloadAllCallback;
     private final Consumer<FlippingItem> hoverCallback;
+    private final Runnable batchCallback;
+    private final Consumer<FlippingHelperConfig.RankingMode> rankingModeCallback;
+    private final Consumer<String> selectProfileCallback;
+    private final Consumer<String> saveProfileCallback;
+    private final Consumer<String> deleteProfileCallback;
 
     private final List<SuggestionRow> suggestionRows = new ArrayList<>();
     private final JPanel suggestionsContainer;
     private SuggestionRow selectedRow = null;
     private SuggestionRow hoveredRow = null;
     private JButton reloadAllButton;
-
-    public FlippingHelperPanel(ItemManager itemManager, Consumer<Integer> refreshCallback,
+    private final JButton batchButton;
+    private final JLabel sessionProfitLabel;
+    private final JLabel fetchStatusLabel;
+    private final JLabel batchStatusLabel;
+    private final JComboBox<FlippingHelperConfig.RankingMode> rankingModeBox;
+    private boolean updatingRankingMode = false;
+    private final JComboBox<String> profileBox;
+    private boolean updatingProfiles = false;
+
+    public FlippingHelperPanel(ItemIconCache iconCache, ProfitTracker profitTracker, Consumer<Integer> refreshCallback,
                                 Consumer<Integer> refreshPricesCallback, Runnable reloadAllCallback,
-                                Consumer<FlippingItem> hoverCallback) {
+                                Consumer<FlippingItem> hoverCallback, Runnable batchCallback,
+                                Consumer<FlippingHelperConfig.RankingMode> rankingModeCallback,
+                                Consumer<String> selectProfileCallback, Consumer<String> saveProfileCallback,
+                                Consumer<String> deleteProfileCallback) {
         super();
-        this.itemManager = itemManager;
+        this.iconCache = iconCache;
+        this.profitTracker = profitTracker;
         this.refreshCallback = refreshCallback;
         this.refreshPricesCallback = refreshPricesCallback;
         this.reloadAllCallback = reloadAllCallback;
         this.hoverCallback = hoverCallback;
+        this.batchCallback = batchCallback;
+        this.rankingModeCallback = rankingModeCallback;
+        this.selectProfileCallback = selectProfileCallback;
+        this.saveProfileCallback = saveProfileCallback;
+        this.deleteProfileCallback = deleteProfileCallback;
 
         setLayout(new BorderLayout());
         setBorder(new EmptyBorder(10, 10, 10, 10));
@@ -50,7 +75,80 @@ public class FlippingHelperPanel extends PluginPanel {
         reloadAllButton = new JButton("Reload All Items");
         reloadAllButton.setToolTipText("Fetch fresh data from API and reload all items");
         reloadAllButton.addActionListener(e -> reloadAllCallback.run());
-        headerPanel.add(reloadAllButton, BorderLayout.CENTER);
+
+        // Coloca as sugestões nos slots livres, uma após a outra
+        batchButton = new JButton(BATCH_START_TEXT);
+        batchButton.setToolTipText("Place buy offers for the suggestions shown in every free GE slot, step by step");
+        batchButton.addActionListener(e -> batchCallback.run());
+
+        JPanel actionsPanel = new JPanel(new GridLayout(2, 1, 0, 2));
+        actionsPanel.add(reloadAllButton);
+        actionsPanel.add(batchButton);
+        headerPanel.add(actionsPanel, BorderLayout.CENTER);
+
+        // Seletor do modo de ordenação
+        JPanel rankingPanel = new JPanel(new BorderLayout(5, 0));
+        rankingPanel.setBorder(new EmptyBorder(0, 0, 5, 0));
+        rankingPanel.add(new JLabel("Rank by:"), BorderLayout.WEST);
+        rankingModeBox = new JComboBox<>(FlippingHelperConfig.RankingMode.values());
+        rankingModeBox.addActionListener(e -> {
+            if (!updatingRankingMode) {
+                rankingModeCallback.accept((FlippingHelperConfig.RankingMode) rankingModeBox.getSelectedItem());
+            }
+        });
+        rankingPanel.add(rankingModeBox, BorderLayout.CENTER);
+
+        // Perfis de filtros salvos
+        JPanel profilePanel = new JPanel(new BorderLayout(5, 0));
+        profilePanel.add(new JLabel("Profile:"), BorderLayout.WEST);
+        profileBox = new JComboBox<>();
+        profileBox.setToolTipText("Saved filters and ranking mode");
+        profileBox.addActionListener(e -> {
+            if (!updatingProfiles && profileBox.getSelectedItem() != null) {
+                selectProfileCallback.accept((String) profileBox.getSelectedItem());
+            }
+        });
+        profilePanel.add(profileBox, BorderLayout.CENTER);
+
+        JPanel profileButtons = new JPanel(new GridLayout(1, 2, 2, 0));
+        JButton saveProfileButton = new JButton("Save");
+        saveProfileButton.setToolTipText("Save the current filters and ranking mode as a profile");
+        saveProfileButton.addActionListener(e -> promptSaveProfile());
+        profileButtons.add(saveProfileButton);
+        JButton deleteProfileButton = new JButton("Delete");
+        deleteProfileButton.setToolTipText("Delete the selected profile");
+        deleteProfileButton.addActionListener(e -> {
+            if (profileBox.getSelectedItem() != null) {
+                deleteProfileCallback.accept((String) profileBox.getSelectedItem());
+            }
+        });
+        profileButtons.add(deleteProfileButton);
+        profilePanel.add(profileButtons, BorderLayout.EAST);
+
+        JPanel selectorsPanel = new JPanel(new BorderLayout());
+        selectorsPanel.setBorder(new EmptyBorder(0, 0, 5, 0));
+        selectorsPanel.add(rankingPanel, BorderLayout.NORTH);
+        selectorsPanel.add(profilePanel, BorderLayout.SOUTH);
+        headerPanel.add(selectorsPanel, BorderLayout.NORTH);
+
+        // Lucro realizado na sessão atual (a partir do diário de trocas)
+        sessionProfitLabel = new JLabel();
+        sessionProfitLabel.setBorder(new EmptyBorder(5, 0, 0, 0));
+        updateSessionProfit();
+
+        // Progresso da última busca de itens
+        fetchStatusLabel = new JLabel(" ");
+        fetchStatusLabel.setBorder(new EmptyBorder(2, 0, 0, 0));
+
+        // Passo atual da colocação em lote
+        batchStatusLabel = new JLabel(" ");
+        batchStatusLabel.setBorder(new EmptyBorder(2, 0, 0, 0));
+
+        JPanel statusPanel = new JPanel(new GridLayout(3, 1));
+        statusPanel.add(sessionProfitLabel);
+        statusPanel.add(fetchStatusLabel);
+        statusPanel.add(batchStatusLabel);
+        headerPanel.add(statusPanel, BorderLayout.SOUTH);
 
         add(headerPanel, BorderLayout.NORTH);
 
@@ -72,21 +170,10 @@ public class FlippingHelperPanel extends PluginPanel {
         add(scrollPane, BorderLayout.CENTER);
     }
 
-    public void updateSuggestions(List<FlippingItem> items) {
+    public void updateSuggestionsWithPinning(List<SuggestionRowModel> rows, java.util.Set<Integer> pinnedIndices) {
         for (int i = 0; i < suggestionRows.size(); i++) {
-            if (i < items.size()) {
-                suggestionRows.get(i).updateItem(items.get(i));
-                suggestionRows.get(i).setPinned(false);
-            } else {
-                suggestionRows.get(i).clear();
-            }
-        }
-    }
-
-    public void updateSuggestionsWithPinning(List<FlippingItem> items, java.util.Set<Integer> pinnedIndices) {
-        for (int i = 0; i < suggestionRows.size(); i++) {
-            if (i < items.size()) {
-                suggestionRows.get(i).updateItem(items.get(i));
+            if (i < rows.size()) {
+                suggestionRows.get(i).updateItem(rows.get(i));
                 boolean isPinned = pinnedIndices.contains(i);
                 suggestionRows.get(i).setPinned(isPinned);
             } else {
@@ -95,9 +182,9 @@ public class FlippingHelperPanel extends PluginPanel {
         }
     }
 
-    public void updateSuggestion(int index, FlippingItem item) {
+    public void updateSuggestion(int index, SuggestionRowModel row) {
         if (index >= 0 && index < suggestionRows.size()) {
-            suggestionRows.get(index).updateItem(item);
+            suggestionRows.get(index).updateItem(row);
         }
     }
 
@@ -107,6 +194,76 @@ public class FlippingHelperPanel extends PluginPanel {
         }
     }
 
+    /**
+     * Mark the rows of stale GE offers, keyed by slot, with what to do about them.
+     * Rows of active offers are pinned to the index of their slot.
+     */
+    public void setStaleOffers(Map<Integer, String> warningsBySlot) {
+        SwingUtilities.invokeLater(() -> {
+            for (int i = 0; i < suggestionRows.size(); i++) {
+                suggestionRows.get(i).setStaleWarning(warningsBySlot.get(i));
+            }
+        });
+    }
+
+    /**
+     * Redraw trade-dependent information: realized profit for the session and,
+     * for every displayed item, its realized profit and capped quantity.
+     * Must be called on the EDT.
+     */
+    public void refreshTradeInfo(List<SuggestionRowModel> rows) {
+        updateSessionProfit();
+        for (int i = 0; i < suggestionRows.size() && i < rows.size(); i++) {
+            suggestionRows.get(i).updateItem(rows.get(i));
+        }
+    }
+
+    /**
+     * Show the ranking mode selected in the config, without notifying the callback.
+     * Must be called on the EDT.
+     */
+    public void setRankingMode(FlippingHelperConfig.RankingMode mode) {
+        updatingRankingMode = true;
+        try {
+            rankingModeBox.setSelectedItem(mode);
+        } finally {
+            updatingRankingMode = false;
+        }
+    }
+
+    /**
+     * Show the saved profiles, selecting the active one, without notifying the callback.
+     * Must be called on the EDT.
+     */
+    public void setProfiles(List<String> names, String activeName) {
+        updatingProfiles = true;
+        try {
+            profileBox.removeAllItems();
+            for (String name : names) {
+                profileBox.addItem(name);
+            }
+            profileBox.setSelectedItem(names.contains(activeName) ? activeName : null);
+        } finally {
+            updatingProfiles = false;
+        }
+    }
+
+    private void promptSaveProfile() {
+        Object selected = profileBox.getSelectedItem();
+        String name = (String) JOptionPane.showInputDialog(this, "Profile name:", "Save filter profile",
+            JOptionPane.PLAIN_MESSAGE, null, null, selected == null ? "" : selected);
+        if (name != null && !name.trim().isEmpty()) {
+            saveProfileCallback.accept(name.trim());
+        }
+    }
+
+    private void updateSessionProfit() {
+        long sessionProfit = profitTracker.getSessionProfit();
+        sessionProfitLabel.setText("Session profit: " + SuggestionRowModel.formatSigned(sessionProfit) + " gp");
+        sessionProfitLabel.setToolTipText("All-time realized profit: "
+            + SuggestionRowModel.formatSigned(profitTracker.getTotalProfit()) + " gp");
+    }
+
     public void setReloadAllButtonLoading(boolean loading) {
         SwingUtilities.invokeLater(() -> {
             if (loading) {
@@ -121,6 +278,28 @@ public class FlippingHelperPanel extends PluginPanel {
         });
     }
 
+    /**
+     * Show the progress or outcome of the latest item fetch. Stale statuses,
+     * shown while prices could not be refreshed, are highlighted.
+     */
+    public void setFetchStatus(String status, boolean stale) {
+        SwingUtilities.invokeLater(() -> {
+            fetchStatusLabel.setText(status);
+            fetchStatusLabel.setForeground(stale ? Color.ORANGE : null);
+        });
+    }
+
+    /**
+     * Show the step of the batch placement in progress, or null once it is over.
+     */
+    public void setBatchStatus(String status) {
+        SwingUtilities.invokeLater(() -> {
+            batchStatusLabel.setText(status == null ? " " : status);
+            batchStatusLabel.setToolTipText(status);
+            batchButton.setText(status == null ? BATCH_START_TEXT : BATCH_STOP_TEXT);
+        });
+    }
+
     public void setRefreshButtonLoading(int index, boolean loading) {
         if (index >= 0 && index < suggestionRows.size()) {
             suggestionRows.get(index).setRefreshButtonLoading(loading);
@@ -129,17 +308,20 @@ public class FlippingHelperPanel extends PluginPanel {
 
     private class SuggestionRow {
         // AJUSTE AQUI: Altura de cada retângulo em pixels (recomendado: 80-120)
-        private static final int ROW_HEIGHT = 89;
+        private static final int ROW_HEIGHT = 105;
 
         private final int index;
         private final JPanel panel;
         private final JLabel iconLabel;
-        private final JLabel infoLabel;
+        private final SuggestionRowView infoView;
         private final JButton nextItemButton;
         private final JButton refreshPricesButton;
         private boolean selected = false;
         private boolean pinned = false;
+        // Shown while the row's GE offer is stale
+        private String staleWarning = null;
         private FlippingItem currentItem = null;
+        private AsyncBufferedImage shownIcon = null;
 
         public SuggestionRow(int index) {
             this.index = index;
@@ -160,16 +342,8 @@ public class FlippingHelperPanel extends PluginPanel {
             iconLabel.setMaximumSize(new Dimension(36, 36));
             iconLabel.setVerticalAlignment(SwingConstants.TOP);
 
-            // Panel central com informações distribuídas verticalmente
-            JPanel infoPanel = new JPanel();
-            infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-
-            infoLabel = new JLabel();
-            infoLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-            infoPanel.add(Box.createVerticalGlue());
-            infoPanel.add(infoLabel);
-            infoPanel.add(Box.createVerticalGlue());
+            // Informações pintadas diretamente, distribuídas verticalmente
+            infoView = new SuggestionRowView();
 
             // Panel com botões à direita
             JPanel buttonsPanel = new JPanel();
@@ -198,7 +372,7 @@ public class FlippingHelperPanel extends PluginPanel {
             buttonsPanel.add(nextItemButton);
 
             panel.add(iconLabel, BorderLayout.WEST);
-            panel.add(infoPanel, BorderLayout.CENTER);
+            panel.add(infoView, BorderLayout.CENTER);
             panel.add(buttonsPanel, BorderLayout.EAST);
 
             // Adiciona listener de clique ao painel
@@ -276,11 +450,20 @@ public class FlippingHelperPanel extends PluginPanel {
             }
         }
 
+        public void setStaleWarning(String staleWarning) {
+            this.staleWarning = staleWarning;
+            updateBorder();
+        }
+
         private void updateBorder() {
             Color borderColor;
             int borderWidth;
 
-            if (pinned) {
+            if (pinned && staleWarning != null) {
+                // Stale GE offer: red border, advice in the tooltip
+                borderColor = new Color(231, 76, 60); // Red
+                borderWidth = 2;
+            } else if (pinned) {
                 // Pinned items: green border (active GE offer)
                 borderColor = new Color(46, 204, 113); // Green
                 borderWidth = 2;
@@ -298,43 +481,29 @@ public class FlippingHelperPanel extends PluginPanel {
                 BorderFactory.createLineBorder(borderColor, borderWidth),
                 new EmptyBorder(5, 5, 5, 5)
             ));
+            // The warning is about the offer in the slot, so only for the row pinned to it
+            panel.setToolTipText(pinned ? staleWarning : null);
         }
 
         public JPanel getPanel() {
             return panel;
         }
 
-        public void updateItem(FlippingItem item) {
-            this.currentItem = item;
-
-            String action = item.getPredictedAction().equals("buy") ? "Buy" : "Sell";
-            String itemName = item.getName();
-            String quantity = String.valueOf(item.getQuantity());
-            // CORRIGIDO: Buy = Low (comprar baixo), Sell = High (vender alto)
-            String buyPrice = QuantityFormatter.formatNumber(item.getAdjustedLowPrice());
-            String sellPrice = QuantityFormatter.formatNumber(item.getAdjustedHighPrice());
-
-            String profitColor = ColorUtil.toHexColor(Color.GREEN);
-            String profit = QuantityFormatter.formatNumber(item.getProfit());
-
-            // Tudo em uma única label com espaçamento proporcional entre linhas
-            // O nome do item é limitado a uma única linha com truncamento automático
-            infoLabel.setText("<html><div style='line-height: 2.2; width: 150px;'>" +
-                "<div style='white-space: nowrap; overflow: hidden; text-overflow: ellipsis;'>" +
-                "<b>" + itemName + "</b></div>" +
-                action + " " + quantity + "<br>" +
-                "Buy: " + buyPrice + "<br>" +
-                "Sell: " + sellPrice + "<br>" +
-                "<font color='" + profitColor + "'>Profit: +" + profit + "</font>" +
-                "</div></html>");
-
-            try {
-                int itemId = Integer.parseInt(item.getId());
-                itemManager.getImage(itemId, item.getQuantity(), false).addTo(iconLabel);
-                log.debug("Solicitada imagem assíncrona do item {} (ID: {}) para índice {}", item.getName(), itemId, index);
-            } catch (NumberFormatException e) {
+        public void updateItem(SuggestionRowModel row) {
+            this.currentItem = row.getItem();
+            infoView.setModel(row);
+
+            if (row.getItemId() < 0) {
                 iconLabel.setIcon(null);
-                log.warn("Could not parse item ID: {}", item.getId());
+                shownIcon = null;
+                log.warn("Could not parse item ID: {}", row.getItem().getId());
+            } else {
+                // Usually already loaded by the prefetch after ranking
+                AsyncBufferedImage icon = iconCache.get(row.getItemId(), row.getItem().getQuantity());
+                if (icon != shownIcon) {
+                    icon.addTo(iconLabel);
+                    shownIcon = icon;
+                }
             }
 
             panel.setVisible(true);
@@ -342,8 +511,9 @@ public class FlippingHelperPanel extends PluginPanel {
 
         public void clear() {
             this.currentItem = null;
-            infoLabel.setText("");
+            infoView.setModel(null);
             iconLabel.setIcon(null);
+            shownIcon = null;
             setSelected(false);
             panel.setVisible(false);
         }
@@ -4,16 +4,27 @@ import com.google.inject.Provides;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.GrandExchangeOffer;
+import net.runelite.api.GrandExchangeOfferState;
 import net.runelite.api.Point;
 import net.runelite.api.VarClientInt;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
+import net.runelite.api.events.GrandExchangeOfferChanged;
+import net.runelite.api.events.ItemContainerChanged;
 import net.runelite.api.events.MenuEntryAdded;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.events.VarClientIntChanged;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.ComponentID;
 import net.runelite.api.widgets.Widget;
+import net.runelite.client.RuneLite;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.input.MouseListener;
 import net.runelite.client.input.MouseManager;
@@ -22,12 +33,28 @@ import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.util.ImageUtil;
+import net.runelite.client.util.QuantityFormatter;
 
 import java.awt.event.MouseEvent;
 
 import javax.swing.*;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.net.http.HttpTimeoutException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -39,6 +66,9 @@ public class FlippingHelperPlugin extends Plugin
 	@Inject
 	private FlippingHelperConfig config;
 
+	@Inject
+	private ConfigManager configManager;
+
 	@Inject
 	private ClientToolbar clientToolbar;
 
@@ -69,30 +99,129 @@ public class FlippingHelperPlugin extends Plugin
 	@Inject
 	private GrandExchangeHelper grandExchangeHelper;
 
+	@Inject
+	private InventoryIndex inventoryIndex;
+
+	@Inject
+	private BatchPlacementHandler batchPlacementHandler;
+
+	@Inject
+	private StaleOfferDetector staleOfferDetector;
+
+	@Inject
+	private TradeJournal tradeJournal;
+
+	@Inject
+	private ProfitTracker profitTracker;
+
+	@Inject
+	private PriceHistoryStore priceHistoryStore;
+
+	@Inject
+	private DumpDetector dumpDetector;
+
+	@Inject
+	private BuyLimitTracker buyLimitTracker;
+
+	@Inject
+	private FilterProfileStore profileStore;
+
+	@Inject
+	private PluginExecutor pluginExecutor;
+
+	@Inject
+	private CatalogueCache catalogueCache;
+
+	@Inject
+	private ItemIconCache iconCache;
+
+	@Inject
+	private ScheduledExecutorService scheduledExecutor;
+
 	private FlippingHelperPanel panel;
 	private NavigationButton navButton;
 	private final FlippingApiClient apiClient = new FlippingApiClient();
 	private final MouseListener mouseListener = new OverlayMouseListener();
 	private GeOfferAutoFillWidget autoFillWidget = null;
 
+	static final File DATA_DIR = new File(RuneLite.RUNELITE_DIR, "flipping-helper");
+
 	private static final int MAX_SUGGESTIONS = 8;
+	// About 30 seconds
+	private static final int STALE_CHECK_TICKS = 50;
 	private static final long COOLDOWN_MILLIS = 5 * 60 * 1000; // 5 minutos
-
-	private List<FlippingItem> allItems = new ArrayList<>();
-	private List<FlippingItem> currentSuggestions = new ArrayList<>();
-	private Map<String, Long> cooldownMap = new HashMap<>(); // itemId -> timestamp quando foi colocado em cooldown
+	private static final int FILTER_CACHE_SIZE = 4;
+	// Ranked candidates whose icons are requested after each ranking pass
+	private static final int ICON_PREFETCH_COUNT = 32;
+	// Rows kept ready for the "»" button, and the size below which they are refilled
+	private static final int REPLACEMENT_QUEUE_SIZE = 16;
+	private static final int REPLACEMENT_LOW_WATER = 4;
+	// A catalogue request still running after this long is replaced by the next one;
+	// longer than the API client's own timeouts, so normally those end it first
+	private static final long STALE_FETCH_MILLIS = 45_000;
+	// A catalogue published by another client this recently is used instead of fetching one
+	private static final long SHARED_FRESH_MILLIS = 30_000;
+	// How long to wait for the catalogue of another client that is fetching one
+	private static final long SHARED_WAIT_MILLIS = 10_000;
+	private static final long SHARED_POLL_MILLIS = 500;
+	// How often the shared catalogue is checked for versions published by other clients
+	private static final long SHARED_WATCH_MILLIS = 5_000;
+	static final String CONFIG_GROUP = "flippinghelper";
+	// Config keys the filtered and ranked suggestions depend on
+	private static final Set<String> RANKING_KEYS = new HashSet<>(Arrays.asList(
+		"minBuyPrice", "maxBuyPrice", "minProfit", "minDailyVolume", "minScore", "dumpFilter", "minQuantity",
+		"maxTotalInvestment", "filterExpression", "rankingMode", "availableCapital", "blendScoreWeight",
+		"blendProfitWeight", "blendRoiWeight", "blendGpPerHourWeight", "blendVolumeMarginWeight"));
+
+	// Published suggestions, replaced as a whole; neither they nor their items are ever modified
+	private final AtomicReference<SuggestionSnapshot> snapshot = new AtomicReference<>(SuggestionSnapshot.EMPTY);
+	private final AtomicLong snapshotGeneration = new AtomicLong();
+	// Held while building and publishing a snapshot
+	private final Object rankLock = new Object();
+	// Reload and refresh clicks share one in-flight catalogue request
+	private final SingleFlight<FetchedCatalogue> catalogueFetch = new SingleFlight<>(STALE_FETCH_MILLIS);
+	// Generation of the fetch the current catalogue came from, guarded by rankLock
+	private long appliedFetchGeneration = 0;
+	// When the shown catalogue was fetched; older than the last fetch while offline
+	private volatile long shownFetchedAt = 0;
+	private final AtomicBoolean probeScheduled = new AtomicBoolean();
+	private ScheduledFuture<?> sharedCatalogueWatch;
+	// Filtered and buy-limit capped items of the catalogue, in score order, by filter expression and
+	// the items exempt from it (those with active offers); cleared when the catalogue, prices or trades change
+	private final LruCache<Map.Entry<String, Set<String>>, ItemColumns> filterCache = new LruCache<>(FILTER_CACHE_SIZE);
+	private volatile boolean applyingProfile = false;
+	private FilterExpression fixedFilter = FilterExpression.parse("");
+	private String fixedFilterSource = "";
+	private FilterExpression customFilter = FilterExpression.parse("");
+	private String customFilterSource = "";
+	private final ReplacementQueue replacementQueue = new ReplacementQueue(REPLACEMENT_QUEUE_SIZE, REPLACEMENT_LOW_WATER);
+	private final Map<String, Long> cooldownMap = new ConcurrentHashMap<>(); // itemId -> timestamp quando foi colocado em cooldown
 	private boolean panelWasVisible = false;
+	private final AtomicBoolean tradeRefreshPending = new AtomicBoolean();
+	private final PendingSells pendingSells = new PendingSells();
+	private Map<Integer, String> staleOfferWarnings = Collections.emptyMap();
 
 	@Override
 	protected void startUp() throws Exception
 	{
+		pluginExecutor.startUp();
+		ParallelColumns.startUp(ParallelColumns.DEFAULT_PARALLELISM);
+
 		panel = new FlippingHelperPanel(
-			itemManager,
+			iconCache,
+			profitTracker,
 			this::refreshSuggestion,
 			this::refreshItemPrices,
 			this::reloadAllItems,
-			this::handleItemHover
+			this::handleItemHover,
+			this::toggleBatchPlacement,
+			this::setRankingMode,
+			this::selectProfile,
+			this::saveProfile,
+			this::deleteProfile
 		);
+		panel.setRankingMode(config.rankingMode());
+		panel.setProfiles(profileStore.getNames(), profileStore.getActiveName());
 		final BufferedImage icon = ImageUtil.loadImageResource(getClass(), "/icon.png");
 		navButton = NavigationButton.builder()
 				.tooltip("Flipping Helper")
@@ -108,26 +237,37 @@ public class FlippingHelperPlugin extends Plugin
 
 		// Initialize the highlight overlay system
 		highlightManager.initialize();
+		clientThread.invoke(inventoryIndex::rebuild);
+		clientThread.invoke(grandExchangeHelper::refreshOffers);
+
+		// Start recording GE offer updates and rebuild realized profit and buy limits from them
+		tradeJournal.startUp();
+		profitTracker.setUpdateListener(this::scheduleTradeRefresh);
+		profitTracker.startUp();
+		buyLimitTracker.setUpdateListener(this::scheduleTradeRefresh);
+		buyLimitTracker.startUp();
+		clientThread.invoke(this::openTradeJournal);
+		batchPlacementHandler.setStatusListener(panel::setBatchStatus);
 
 		// Adiciona listener para detectar quando o painel fica visível
 		panel.addComponentListener(new java.awt.event.ComponentAdapter() {
 			@Override
 			public void componentShown(java.awt.event.ComponentEvent e) {
 				log.debug("Painel ficou visível");
-				if (!currentSuggestions.isEmpty() && !panelWasVisible) {
+				SuggestionSnapshot current = snapshot.get();
+				if (!current.isEmpty() && !panelWasVisible) {
 					panelWasVisible = true;
 					log.info("Painel visível pela primeira vez, atualizando itens");
-					SwingUtilities.invokeLater(() -> {
-						panel.updateSuggestions(currentSuggestions);
-						panel.revalidate();
-						panel.repaint();
-					});
+					displaySnapshot(current);
 				}
 			}
 		});
 
 		// Busca os itens imediatamente ao iniciar o plugin
 		fetchAndDisplayItems();
+		sharedCatalogueWatch = scheduledExecutor.scheduleWithFixedDelay(
+			() -> pluginExecutor.execute("watch shared catalogue", this::checkSharedCatalogue),
+			SHARED_WATCH_MILLIS, SHARED_WATCH_MILLIS, TimeUnit.MILLISECONDS);
 	}
 
 	@Override
@@ -136,6 +276,48 @@ public class FlippingHelperPlugin extends Plugin
 		clientToolbar.removeNavigation(navButton);
 		mouseManager.unregisterMouseListener(mouseListener);
 		highlightManager.shutdown();
+		clientThread.invoke(batchPlacementHandler::cancel);
+		profitTracker.setUpdateListener(null);
+		buyLimitTracker.setUpdateListener(null);
+		tradeJournal.shutDown();
+		if (sharedCatalogueWatch != null) {
+			sharedCatalogueWatch.cancel(false);
+			sharedCatalogueWatch = null;
+		}
+		catalogueFetch.cancel();
+		pluginExecutor.shutDown();
+		ParallelColumns.shutDown();
+		priceHistoryStore.shutDown();
+	}
+
+	/**
+	 * Refresh realized profit and buy limit caps in the panel, coalescing bursts
+	 * of updates (e.g. while the journal is replayed) into a single task.
+	 * Caps are part of the filtered items, so those are filtered and ranked again.
+	 */
+	private void scheduleTradeRefresh() {
+		if (tradeRefreshPending.compareAndSet(false, true)) {
+			boolean queued = pluginExecutor.execute("trade refresh", () -> {
+				tradeRefreshPending.set(false);
+				SuggestionSnapshot next;
+				synchronized (rankLock) {
+					next = snapshot.get();
+					if (!next.getCatalogue().isEmpty()) {
+						filterCache.clear();
+						next = buildSnapshot(next.getCatalogue());
+						publish(next);
+					}
+				}
+				SuggestionSnapshot shown = next;
+				SwingUtilities.invokeLater(() -> {
+					panel.updateSuggestionsWithPinning(shown.getRows(), shown.getPinnedIndices());
+					panel.refreshTradeInfo(shown.getRows());
+				});
+			});
+			if (!queued) {
+				tradeRefreshPending.set(false);
+			}
+		}
 	}
 
 	/**
@@ -146,6 +328,11 @@ public class FlippingHelperPlugin extends Plugin
 	private void handleItemHover(FlippingItem item) {
 		// Schedule on client thread to avoid "must be called on client thread" errors
 		clientThread.invokeLater(() -> {
+			// While placing a batch the highlighted item is the offer being placed
+			if (batchPlacementHandler.isActive()) {
+				return;
+			}
+
 			if (item != null) {
 				log.debug("Item hovered: {} ({})", item.getName(), item.getId());
 				highlightManager.setCurrentItem(item);
@@ -158,6 +345,30 @@ public class FlippingHelperPlugin extends Plugin
 		});
 	}
 
+	/**
+	 * Start placing buy offers for the suggestions shown, as many as there are
+	 * free GE slots, or stop the batch in progress. Called on the EDT.
+	 */
+	private void toggleBatchPlacement() {
+		clientThread.invokeLater(() -> {
+			if (batchPlacementHandler.isActive()) {
+				batchPlacementHandler.cancel();
+				return;
+			}
+
+			// Items with an active offer already have their slot
+			SuggestionSnapshot current = snapshot.get();
+			List<FlippingItem> items = new ArrayList<>();
+			int freeSlots = countFreeSlots();
+			for (int i = 0; i < current.getSuggestions().size() && items.size() < freeSlots; i++) {
+				if (!current.getPinnedIndices().contains(i)) {
+					items.add(current.getSuggestions().get(i));
+				}
+			}
+			batchPlacementHandler.start(items);
+		});
+	}
+
 	/**
 	 * Update highlights on every game tick to keep them in sync with the GE state.
 	 * Also check for GE search interface opening.
@@ -166,6 +377,152 @@ public class FlippingHelperPlugin extends Plugin
 	public void onGameTick(GameTick event) {
 		highlightManager.redraw();
 		searchAutoFillHandler.tick();
+		if (client.getTickCount() % STALE_CHECK_TICKS == 0) {
+			checkStaleOffers();
+		}
+	}
+
+	/**
+	 * Record every GE offer update in the trade journal.
+	 */
+	@Subscribe
+	public void onGrandExchangeOfferChanged(GrandExchangeOfferChanged event) {
+		GrandExchangeOffer offer = event.getOffer();
+
+		// While logging in all slots are reported as empty before the real offers arrive
+		if (offer.getState() == GrandExchangeOfferState.EMPTY && client.getGameState() != GameState.LOGGED_IN) {
+			return;
+		}
+
+		grandExchangeHelper.onOfferChanged(event.getSlot(), offer);
+		openTradeJournal();
+		tradeJournal.append(event.getSlot(), offer);
+		batchPlacementHandler.onGrandExchangeOffer(offer);
+		trackPendingSell(event.getSlot(), offer);
+		staleOfferDetector.onOfferChanged(event.getSlot(), offer, System.currentTimeMillis());
+		checkStaleOffers();
+	}
+
+	/**
+	 * Flag the active offers that are unlikely to fill on the rows pinned to their slot.
+	 */
+	private void checkStaleOffers() {
+		List<StaleOfferDetector.StaleOffer> stale = staleOfferDetector.check(
+			snapshot.get()::findCatalogueItem, System.currentTimeMillis());
+		Map<Integer, String> warnings = new HashMap<>();
+		for (StaleOfferDetector.StaleOffer offer : stale) {
+			warnings.put(offer.getSlot(), offer.describe());
+		}
+		if (warnings.equals(staleOfferWarnings)) {
+			return;
+		}
+
+		for (Map.Entry<Integer, String> warning : warnings.entrySet()) {
+			if (!warning.getValue().equals(staleOfferWarnings.get(warning.getKey()))) {
+				log.info("Oferta parada no slot {}: {}", warning.getKey(), warning.getValue());
+			}
+		}
+		staleOfferWarnings = warnings;
+		panel.setStaleOffers(warnings);
+	}
+
+	/**
+	 * Suggest selling what a completed buy offer bought, on top of the panel,
+	 * until a sell offer for it is placed.
+	 */
+	private void trackPendingSell(int slot, GrandExchangeOffer offer) {
+		if (offer.getState() == GrandExchangeOfferState.BOUGHT && offer.getQuantitySold() > 0) {
+			FlippingItem bought = snapshot.get().findCatalogueItem(offer.getItemId());
+			if (bought == null) {
+				log.debug("Item {} bought but not in the catalogue, no sell suggestion", offer.getItemId());
+				return;
+			}
+
+			FlippingItem sell = pendingSells.onBought(bought, offer.getItemId(), slot, offer.getQuantitySold());
+			log.info("Compra de {} concluída, sugerindo vender {} a {} gp",
+				sell.getName(), sell.getQuantity(), sell.getAdjustedHighPrice());
+			// Highlight collecting and selling it, unless a batch of buy offers is being placed
+			if (!batchPlacementHandler.isActive()) {
+				highlightManager.setCurrentItem(sell);
+			}
+			rerankItems();
+		} else if (offer.getState() == GrandExchangeOfferState.SELLING && pendingSells.remove(offer.getItemId())) {
+			FlippingItem current = highlightManager.getCurrentItem();
+			if (current != null && "sell".equals(current.getPredictedAction())
+					&& current.getId().equals(String.valueOf(offer.getItemId()))) {
+				highlightManager.clearCurrentItem();
+			}
+			rerankItems();
+		} else if (offer.getState() == GrandExchangeOfferState.EMPTY) {
+			// Collected: a new offer in this slot buys more, it does not report this one again
+			pendingSells.onSlotEmptied(slot);
+		}
+	}
+
+	/**
+	 * Open the trade journal of the account logging in, and let other clients
+	 * write it once logged out.
+	 */
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event) {
+		if (event.getGameState() == GameState.LOGGED_IN) {
+			openTradeJournal();
+		} else if (event.getGameState() == GameState.LOGIN_SCREEN) {
+			tradeJournal.release();
+		}
+	}
+
+	private void openTradeJournal() {
+		long accountHash = client.getAccountHash();
+		if (accountHash != -1) {
+			tradeJournal.openAccount(accountHash);
+		}
+	}
+
+	@Subscribe
+	public void onWidgetLoaded(WidgetLoaded event) {
+		grandExchangeHelper.onWidgetLoaded(event);
+		batchPlacementHandler.onWidgetLoaded(event);
+	}
+
+	@Subscribe
+	public void onWidgetClosed(WidgetClosed event) {
+		grandExchangeHelper.onWidgetClosed(event);
+		batchPlacementHandler.onWidgetClosed(event);
+	}
+
+	@Subscribe
+	public void onVarbitChanged(VarbitChanged event) {
+		grandExchangeHelper.onVarbitChanged(event);
+		batchPlacementHandler.onVarbitChanged(event);
+	}
+
+	/**
+	 * Index the inventory, for sell highlights and the default capital budget.
+	 */
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event) {
+		inventoryIndex.onItemContainerChanged(event);
+	}
+
+	/**
+	 * Re-filter and re-rank the current items when the filter or ranking settings change.
+	 * Other settings, such as local dump detection, only apply to the next fetch.
+	 */
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event) {
+		if (!CONFIG_GROUP.equals(event.getGroup()) || applyingProfile) {
+			return;
+		}
+
+		String key = event.getKey();
+		if (!RANKING_KEYS.contains(key)) {
+			return;
+		}
+		if ("rankingMode".equals(key)) {
+			SwingUtilities.invokeLater(() -> panel.setRankingMode(config.rankingMode()));
+		}
+		rerankItems();
 	}
 
 	/**
@@ -215,11 +572,12 @@ public class FlippingHelperPlugin extends Plugin
 				}
 
 				if (interactionHandler.isSettingQuantity()) {
-					autoFillWidget.showQuantity(currentItem.getQuantity());
+					autoFillWidget.showQuantity(buyLimitTracker.getCappedQuantity(currentItem));
 				} else if (interactionHandler.isSettingPrice()) {
 					int price = getPriceForItem(currentItem);
 					autoFillWidget.showPrice(price);
 				}
+				batchPlacementHandler.onChatboxInputOpened();
 			});
 		}
 	}
@@ -239,103 +597,585 @@ public class FlippingHelperPlugin extends Plugin
 		// Show loading state
 		panel.setReloadAllButtonLoading(true);
 
-		new SwingWorker<List<FlippingItem>, Void>() {
-			@Override
-			protected List<FlippingItem> doInBackground() throws Exception {
-				log.info("Fetching items from API...");
-				List<FlippingItem> fetchedItems = apiClient.getItems();
-				log.info("API returned {} items", fetchedItems.size());
-
-				if (fetchedItems.isEmpty()) {
-					log.warn("No items received from API!");
-					return new ArrayList<>();
+		// Always restore button state, even if there was an error
+		onCatalogueFetched(fetchCatalogue(), "apply items", this::applyCatalogue,
+			() -> panel.setReloadAllButtonLoading(false));
+	}
+
+	/**
+	 * Show a fetched catalogue, unless a newer fetch was already shown.
+	 */
+	private void applyCatalogue(long fetchGeneration, FetchedCatalogue fetched) {
+		List<FlippingItem> fetchedItems = fetched.getItems();
+		if (fetchedItems.isEmpty()) {
+			return;
+		}
+
+		// Apply filters from config, then order by the selected ranking mode
+		SuggestionSnapshot next;
+		synchronized (rankLock) {
+			if (fetchGeneration <= appliedFetchGeneration) {
+				log.debug("Dropping fetch {}, fetch {} is already shown", fetchGeneration, appliedFetchGeneration);
+				return;
+			}
+			appliedFetchGeneration = fetchGeneration;
+			shownFetchedAt = fetched.getFetchedAt();
+			filterCache.clear();
+			next = buildSnapshot(fetchedItems);
+			publish(next);
+		}
+
+		log.info("Final result: {} items to display (from {} fetched, {} after filtering)",
+			next.getSuggestions().size(), fetchedItems.size(), next.getRanked().size());
+		panel.setFetchStatus(QuantityFormatter.formatNumber(next.getRanked().size()) + " of "
+			+ QuantityFormatter.formatNumber(fetchedItems.size()) + " items pass the filters", false);
+		displaySnapshot(next);
+	}
+
+	/**
+	 * Hand the items of a catalogue request to {@code onItems} on a plugin worker,
+	 * then run {@code always}. Callers of a request replaced by a newer one wait
+	 * for the newer one instead.
+	 */
+	private void onCatalogueFetched(SingleFlight.Flight<FetchedCatalogue> flight, String name,
+		BiConsumer<Long, FetchedCatalogue> onItems, Runnable always)
+	{
+		flight.getFuture().whenComplete((items, error) -> {
+			if (error == null) {
+				boolean queued = pluginExecutor.execute(name, () -> {
+					try {
+						onItems.accept(flight.getGeneration(), items);
+					} finally {
+						always.run();
+					}
+				});
+				if (!queued) {
+					always.run();
 				}
+				return;
+			}
 
-				// Log sample of first item for debugging
-				if (!fetchedItems.isEmpty()) {
-					FlippingItem sample = fetchedItems.get(0);
-					log.info("Sample item: {} - Price: {}, Profit: {}, Volume: {}, Score: {}, Dump: {}",
-						sample.getName(),
-						sample.getAdjustedLowPrice(),
-						sample.getProfit(),
-						sample.getDailyVolume(),
-						sample.getScore(),
-						sample.getDumpSignalScore());
+			Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+			if (cause instanceof CancellationException) {
+				SingleFlight.Flight<FetchedCatalogue> latest = catalogueFetch.latest();
+				if (latest != null && latest != flight) {
+					onCatalogueFetched(latest, name, onItems, always);
+					return;
+				}
+				log.debug("Catalogue request {} cancelled", flight.getGeneration());
+			} else {
+				if (cause instanceof CircuitBreaker.OpenException) {
+					log.debug("Items API unavailable, request not sent");
+				} else {
+					log.error("Erro ao buscar itens da API", cause);
 				}
+				pluginExecutor.execute("serve offline", () -> serveOffline(cause));
+			}
+			always.run();
+		});
+	}
+
+	/**
+	 * After a failed fetch, show the last saved catalogue if nothing is shown yet,
+	 * mark the shown prices as stale and, while the API is considered down,
+	 * schedule the next probe.
+	 */
+	private void serveOffline(Throwable cause) {
+		if (snapshot.get().getCatalogue().isEmpty()) {
+			applyCachedCatalogue();
+		}
+
+		long now = System.currentTimeMillis();
+		String status;
+		if (apiClient.isUnavailable()) {
+			long retryAt = apiClient.getRetryAt();
+			status = "Items API unavailable, retrying in " + formatDuration(retryAt - now);
+			scheduleProbe(retryAt - now);
+		} else if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+			status = "Items API timed out";
+		} else {
+			status = "Could not fetch items";
+		}
+		if (shownFetchedAt > 0) {
+			status += "; prices from " + formatDuration(now - shownFetchedAt) + " ago";
+		}
+		panel.setFetchStatus(status, true);
+	}
 
-				// Count items with dump signals
-				long dumpItemCount = fetchedItems.stream()
-					.filter(item -> item.getDumpSignalScore() != null && item.getDumpSignalScore() > 0)
-					.count();
-				log.info("Items with dump signals: {} out of {}", dumpItemCount, fetchedItems.size());
+	/**
+	 * Show the catalogue saved by the last successful fetch.
+	 */
+	private void applyCachedCatalogue() {
+		CatalogueCache.CachedCatalogue cached = catalogueCache.load();
+		if (cached == null || cached.getItems().isEmpty()) {
+			return;
+		}
 
-				// Log a few items with dump signals if any exist
-				fetchedItems.stream()
-					.filter(item -> item.getDumpSignalScore() != null && item.getDumpSignalScore() > 0)
-					.limit(3)
-					.forEach(item -> log.info("Dump item found: {} (ID: {}) - Dump Score: {}, Reasons: {}, Peak Price: {}",
-						item.getName(),
-						item.getId(),
-						item.getDumpSignalScore(),
-						item.getDumpSignalReasons(),
-						item.getDumpPeakPrice()));
+		List<FlippingItem> cachedItems = new ArrayList<>(cached.getItems());
 
-				// Apply filters from config
-				allItems = filterItems(fetchedItems);
+		SuggestionSnapshot next;
+		synchronized (rankLock) {
+			// A fetch may have succeeded meanwhile
+			if (!snapshot.get().getCatalogue().isEmpty()) {
+				return;
+			}
+			filterCache.clear();
+			next = buildSnapshot(cachedItems);
+			publish(next);
+			shownFetchedAt = cached.getFetchedAt();
+		}
 
-				// Ordena por score descendente
-				allItems.sort(Comparator.comparing(FlippingItem::getScore).reversed());
+		log.info("Showing saved catalogue of {} items from {}", cachedItems.size(), new Date(cached.getFetchedAt()));
+		displaySnapshot(next);
+	}
 
-				log.info("Final result: {} items to display (from {} fetched, {} after filtering)",
-					Math.min(MAX_SUGGESTIONS, allItems.size()), fetchedItems.size(), allItems.size());
+	/**
+	 * Fetch again once the circuit breaker lets the next probe through.
+	 * The probe shows its result like a reload, without the button state.
+	 */
+	private void scheduleProbe(long delayMillis) {
+		if (!probeScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		Executor delayed = CompletableFuture.delayedExecutor(Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+		delayed.execute(() -> {
+			probeScheduled.set(false);
+			// Dropped if the plugin was shut down meanwhile
+			pluginExecutor.execute("probe items API", () ->
+				onCatalogueFetched(fetchCatalogue(), "apply items", this::applyCatalogue, () -> {}));
+		});
+	}
+
+	private static String formatDuration(long millis) {
+		long minutes = TimeUnit.MILLISECONDS.toMinutes(millis);
+		if (minutes < 1) {
+			return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(millis)) + " s";
+		}
+		if (minutes < 120) {
+			return minutes + " min";
+		}
+		return TimeUnit.MINUTES.toHours(minutes) + " h";
+	}
 
-				return selectTopSuggestions();
+	/**
+	 * Join the catalogue request in flight, or start one.
+	 */
+	private SingleFlight.Flight<FetchedCatalogue> fetchCatalogue() {
+		return catalogueFetch.join(() -> {
+			CompletableFuture<FetchedCatalogue> result = new CompletableFuture<>();
+			long waitUntil = System.currentTimeMillis() + SHARED_WAIT_MILLIS;
+			if (!pluginExecutor.execute("request catalogue", () -> requestCatalogue(result, waitUntil))) {
+				result.cancel(false);
 			}
+			return result;
+		});
+	}
 
-			@Override
-			protected void done() {
+	/**
+	 * Complete {@code result} with the catalogue another client published moments
+	 * ago, or fetch it from the API and publish it. While another client is
+	 * fetching it, wait up to {@code waitUntil} for its result instead.
+	 */
+	private void requestCatalogue(CompletableFuture<FetchedCatalogue> result, long waitUntil) {
+		if (result.isDone()) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		CatalogueCache.CachedCatalogue shared = catalogueCache.loadFresh(SHARED_FRESH_MILLIS, now);
+		if (shared != null) {
+			log.info("Using the catalogue of {} items published by another client {} ago",
+				shared.getItems().size(), formatDuration(now - shared.getFetchedAt()));
+			result.complete(prepareCatalogue(new ArrayList<>(shared.getItems()), shared.getFetchedAt(), false));
+			return;
+		}
+
+		CatalogueCache.FetchLock lock = catalogueCache.tryLockFetch();
+		if (lock == null && now < waitUntil) {
+			panel.setFetchStatus("Waiting for another client...", false);
+			CompletableFuture.delayedExecutor(SHARED_POLL_MILLIS, TimeUnit.MILLISECONDS).execute(() -> {
+				if (!pluginExecutor.execute("request catalogue", () -> requestCatalogue(result, waitUntil))) {
+					result.cancel(false);
+				}
+			});
+			return;
+		}
+
+		log.info("Fetching items from API...");
+		panel.setFetchStatus("Connecting...", false);
+		CompletableFuture<List<FlippingItem>> items = apiClient.getItemsAsync(fetchListener);
+		SingleFlight.cancelling(result, items);
+		items.whenComplete((fetched, error) -> {
+			if (error != null) {
+				releaseFetchLock(lock);
+				result.completeExceptionally(error);
+				return;
+			}
+			// Prepared on a plugin worker, keeping the HTTP threads free for responses
+			boolean queued = pluginExecutor.execute("prepare catalogue", () -> {
 				try {
-					currentSuggestions = get();
-					if (!currentSuggestions.isEmpty()) {
-						log.info("Obtidos {} itens únicos", currentSuggestions.size());
-
-						// Get pinned item IDs
-						Map<Integer, String> pinnedItemIds = getPinnedItemIds();
-						Set<Integer> pinnedIndices = new HashSet<>();
-						for (int i = 0; i < currentSuggestions.size(); i++) {
-							FlippingItem item = currentSuggestions.get(i);
-							if (pinnedItemIds.containsKey(i) && pinnedItemIds.get(i).equals(item.getId())) {
-								pinnedIndices.add(i);
-							}
-						}
-
-						// IMPORTANTE: Toda atualização de UI deve ser feita no EDT
-						SwingUtilities.invokeLater(() -> {
-							panel.updateSuggestionsWithPinning(currentSuggestions, pinnedIndices);
-							panel.revalidate();
-							panel.repaint();
-						});
-					}
-				} catch (Exception e) {
-					log.error("Erro ao buscar ou exibir itens", e);
+					result.complete(prepareCatalogue(fetched, System.currentTimeMillis(), true));
+				} catch (RuntimeException e) {
+					result.completeExceptionally(e);
 				} finally {
-					// Always restore button state, even if there was an error
-					panel.setReloadAllButtonLoading(false);
+					releaseFetchLock(lock);
 				}
+			});
+			if (!queued) {
+				releaseFetchLock(lock);
+				result.cancel(false);
 			}
-		}.execute();
+		});
 	}
 
 	/**
-	 * Check if an item has an active GE offer (should be pinned).
+	 * Let other clients fetch the catalogue. Held until the catalogue is
+	 * published, or the fetch failed.
 	 */
-	private boolean hasActiveGeOffer(FlippingItem item) {
-		// In test environment or if GE helper is not available, no items are pinned
-		if (grandExchangeHelper == null) {
-			return false;
+	private static void releaseFetchLock(CatalogueCache.FetchLock lock) {
+		if (lock != null) {
+			lock.close();
+		}
+	}
+
+	/**
+	 * Show the catalogue another client published, if there is a new one.
+	 * Run every {@value #SHARED_WATCH_MILLIS} ms while the plugin runs.
+	 */
+	private void checkSharedCatalogue() {
+		if (!catalogueCache.hasNewer()) {
+			return;
 		}
+		CatalogueCache.CachedCatalogue shared = catalogueCache.load();
+		if (shared == null || shared.getItems().isEmpty()) {
+			return;
+		}
+		log.info("Another client published a catalogue of {} items", shared.getItems().size());
+		FetchedCatalogue catalogue = prepareCatalogue(new ArrayList<>(shared.getItems()), shared.getFetchedAt(), false);
+		// Joins a request in flight instead, if there is one
+		onCatalogueFetched(catalogueFetch.join(() -> CompletableFuture.completedFuture(catalogue)),
+			"apply shared items", this::applyCatalogue, () -> {});
+	}
+
+	/**
+	 * Shows the progress of catalogue requests under the reload button.
+	 */
+	private final FlippingApiClient.FetchListener fetchListener = new FlippingApiClient.FetchListener()
+	{
+		@Override
+		public void headersReceived(int statusCode, long contentLength)
+		{
+			panel.setFetchStatus(contentLength > 0
+				? String.format("Downloading %.1f MB...", contentLength / 1_000_000.0)
+				: "Downloading...", false);
+		}
+
+		@Override
+		public void bodyDecoded(int itemCount)
+		{
+			panel.setFetchStatus("Ranking " + QuantityFormatter.formatNumber(itemCount) + " items...", false);
+		}
+	};
+
+	/**
+	 * Flag local dumps of freshly fetched items and record their prices.
+	 * Runs once per request, however many callers share it. Catalogues fetched
+	 * by this client are published to the others first, as the API sent them.
+	 */
+	private FetchedCatalogue prepareCatalogue(List<FlippingItem> fetchedItems, long fetchedAt, boolean publish) {
+		log.info("API returned {} items", fetchedItems.size());
+
+		if (fetchedItems.isEmpty()) {
+			log.warn("No items received from API!");
+			return new FetchedCatalogue(fetchedAt, fetchedItems);
+		}
+
+		// Saved as fetched, for offline use and for the other clients: before the local
+		// dump flags, which are changed in place, and with quantities capped at the buy
+		// limit only on copies, when the items are filtered
+		if (publish) {
+			catalogueCache.save(fetchedItems, fetchedAt);
+		}
+		// Flag local dumps against the history so far, then add this fetch to it
+		detectLocalDumps(fetchedItems, fetchedAt);
+		priceHistoryStore.record(fetchedItems, fetchedAt);
+
+		// Log sample of first item for debugging
+		if (!fetchedItems.isEmpty()) {
+			FlippingItem sample = fetchedItems.get(0);
+			log.info("Sample item: {} - Price: {}, Profit: {}, Volume: {}, Score: {}, Dump: {}",
+				sample.getName(),
+				sample.getAdjustedLowPrice(),
+				sample.getProfit(),
+				sample.getDailyVolume(),
+				sample.getScore(),
+				sample.getDumpSignalScore());
+		}
+
+		// Count items with dump signals
+		long dumpItemCount = fetchedItems.stream()
+			.filter(item -> item.getDumpSignalScore() != null && item.getDumpSignalScore() > 0)
+			.count();
+		log.info("Items with dump signals: {} out of {}", dumpItemCount, fetchedItems.size());
+
+		// Log a few items with dump signals if any exist
+		fetchedItems.stream()
+			.filter(item -> item.getDumpSignalScore() != null && item.getDumpSignalScore() > 0)
+			.limit(3)
+			.forEach(item -> log.info("Dump item found: {} (ID: {}) - Dump Score: {}, Reasons: {}, Peak Price: {}",
+				item.getName(),
+				item.getId(),
+				item.getDumpSignalScore(),
+				item.getDumpSignalReasons(),
+				item.getDumpPeakPrice()));
+
+		return new FetchedCatalogue(fetchedAt, fetchedItems);
+	}
+
+	/**
+	 * Filter, rank and pick the suggestions from a catalogue.
+	 * Must be called while holding the rank lock.
+	 */
+	private SuggestionSnapshot buildSnapshot(List<FlippingItem> catalogue) {
+		ItemColumns columns = getFilteredColumns(catalogue, FilterSettings.fromConfig(config));
+		List<FlippingItem> ranked = rankItems(columns);
+		List<FlippingItem> suggestions = selectTopSuggestions(ranked);
+		// Icons of the shown rows and of the candidates that replace them
+		iconCache.prefetch(suggestions, suggestions.size());
+		iconCache.prefetch(ranked, ICON_PREFETCH_COUNT);
+		return SuggestionSnapshot.of(snapshotGeneration.incrementAndGet(), catalogue, columns, ranked,
+			suggestions, rowModels(suggestions), getPinnedIndices(suggestions));
+	}
+
+	/**
+	 * Publish a new snapshot and prepare the replacement rows of its ranking.
+	 * Must be called while holding the rank lock.
+	 */
+	private void publish(SuggestionSnapshot next) {
+		snapshot.set(next);
+		replacementQueue.reset(next.getRanked());
+		refillReplacements();
+	}
+
+	/**
+	 * Queue the next candidates for dismissed suggestions: not shown and not in
+	 * cooldown, formatted and with their icons requested.
+	 * Must be called while holding the rank lock.
+	 */
+	private void refillReplacements() {
+		cleanExpiredCooldowns();
+		Set<String> displayedIds = getItemIds(snapshot.get().getSuggestions());
+		replacementQueue.refill(item -> isReplacementCandidate(item, displayedIds), item -> {
+			SuggestionRowModel row = SuggestionRowModel.of(item, profitTracker);
+			if (row.getItemId() >= 0) {
+				iconCache.get(row.getItemId(), item.getQuantity());
+			}
+			return row;
+		});
+	}
+
+	private boolean isReplacementCandidate(FlippingItem item, Set<String> displayedIds) {
+		return !cooldownMap.containsKey(item.getId()) && !displayedIds.contains(item.getId())
+			&& !buyLimitTracker.isLimitReached(item);
+	}
+
+	private static Set<String> getItemIds(List<FlippingItem> items) {
+		return items.stream()
+			.map(FlippingItem::getId)
+			.collect(Collectors.toSet());
+	}
+
+	/**
+	 * Format the rows of the panel, so the EDT only has to paint them.
+	 */
+	private List<SuggestionRowModel> rowModels(List<FlippingItem> suggestions) {
+		return suggestions.stream()
+			.map(item -> SuggestionRowModel.of(item, profitTracker))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Rows whose item is the one of the active GE offer in the same slot.
+	 */
+	private Set<Integer> getPinnedIndices(List<FlippingItem> suggestions) {
 		Map<Integer, String> pinnedItemIds = getPinnedItemIds();
-		return pinnedItemIds.containsValue(item.getId());
+		Set<Integer> pinnedIndices = new HashSet<>();
+		for (int i = 0; i < suggestions.size(); i++) {
+			FlippingItem item = suggestions.get(i);
+			if (pinnedItemIds.containsKey(i) && pinnedItemIds.get(i).equals(item.getId())) {
+				pinnedIndices.add(i);
+			}
+		}
+		return pinnedIndices;
+	}
+
+	/**
+	 * Show the suggestions of a snapshot in the panel.
+	 */
+	private void displaySnapshot(SuggestionSnapshot shown) {
+		log.info("Obtidos {} itens únicos", shown.getSuggestions().size());
+
+		// IMPORTANTE: Toda atualização de UI deve ser feita no EDT
+		SwingUtilities.invokeLater(() -> {
+			panel.updateSuggestionsWithPinning(shown.getRows(), shown.getPinnedIndices());
+			panel.revalidate();
+			panel.repaint();
+		});
+	}
+
+	/**
+	 * Re-filter and re-order the current items after a setting changed, without
+	 * fetching them again.
+	 */
+	private void rerankItems() {
+		pluginExecutor.execute("rerank items", () -> {
+			SuggestionSnapshot next;
+			synchronized (rankLock) {
+				List<FlippingItem> catalogue = snapshot.get().getCatalogue();
+				if (catalogue.isEmpty()) {
+					return;
+				}
+				next = buildSnapshot(catalogue);
+				publish(next);
+			}
+			displaySnapshot(next);
+		});
+	}
+
+	/**
+	 * Filtered items of the catalogue in score order, with their quantities capped
+	 * at the buy limit, from the cache if the same filter was applied with the
+	 * same active offers since the last fetch or trade.
+	 */
+	private ItemColumns getFilteredColumns(List<FlippingItem> catalogue, FilterSettings settings) {
+		FilterExpression filter = getFilter(settings);
+		Set<String> activeOfferIds = getActiveOfferItemIds();
+		Map.Entry<String, Set<String>> key = new AbstractMap.SimpleImmutableEntry<>(filter.getSource(), activeOfferIds);
+		ItemColumns columns = filterCache.get(key);
+		if (columns == null) {
+			List<FlippingItem> capped = new ArrayList<>(catalogue.size());
+			for (FlippingItem item : catalogue) {
+				capped.add(buyLimitTracker.withCap(item));
+			}
+			List<FlippingItem> filteredItems = filterItems(capped, filter, activeOfferIds);
+			// Score descending, the base order for ties in every ranking
+			filteredItems.sort(Comparator.comparing(FlippingItem::getScore).reversed());
+			columns = ItemColumns.of(filteredItems);
+			filterCache.put(key, columns);
+		}
+		return columns;
+	}
+
+	/**
+	 * Order filtered items by the configured ranking mode.
+	 * Sort keys are cached on the columns, so switching modes only re-sorts.
+	 */
+	private List<FlippingItem> rankItems(ItemColumns columns) {
+		RankingStrategy strategy = RankingStrategies.forMode(config.rankingMode(), config);
+		if (strategy == null) {
+			return allocateCapital(new ArrayList<>(Arrays.asList(columns.items)));
+		}
+		return columns.rank(strategy);
+	}
+
+	/**
+	 * Put the items picked by the capital allocator first, as copies with their
+	 * quantities set to the allocation, followed by the rest in their current order.
+	 */
+	private List<FlippingItem> allocateCapital(List<FlippingItem> items) {
+		long budget = config.availableCapital() > 0 ? config.availableCapital() : inventoryIndex.getCoins();
+		int freeSlots = countFreeSlots();
+		List<CapitalAllocator.Allocation> allocations = CapitalAllocator.allocate(items, budget, freeSlots);
+		if (allocations.isEmpty()) {
+			log.info("Nothing to allocate with {} gp and {} free slots, ranking by score", budget, freeSlots);
+			return items;
+		}
+
+		List<FlippingItem> ranked = new ArrayList<>(items.size());
+		Set<FlippingItem> allocated = Collections.newSetFromMap(new IdentityHashMap<>());
+		long expectedProfit = 0;
+		for (CapitalAllocator.Allocation allocation : allocations) {
+			FlippingItem item = allocation.getItem().copy();
+			item.setAllocatedQuantity(allocation.getQuantity());
+			item.setQuantity(buyLimitTracker.getCappedQuantity(item));
+			ranked.add(item);
+			allocated.add(allocation.getItem());
+			expectedProfit += allocation.getExpectedProfit();
+		}
+		for (FlippingItem item : items) {
+			if (!allocated.contains(item)) {
+				ranked.add(item);
+			}
+		}
+
+		log.info("Budget of {} gp allocated over {} of {} free slots, expected profit {} gp",
+			budget, allocations.size(), freeSlots, expectedProfit);
+		return ranked;
+	}
+
+	private int countFreeSlots() {
+		int freeSlots = 0;
+		for (int slot = 0; slot < 8; slot++) {
+			if (!grandExchangeHelper.hasActiveOffer(slot)) {
+				freeSlots++;
+			}
+		}
+		return freeSlots;
+	}
+
+	/**
+	 * Apply a saved filter profile to the config and show its results.
+	 * Must be called on the EDT.
+	 */
+	private void selectProfile(String name) {
+		FilterSettings settings = profileStore.get(name);
+		if (settings == null) {
+			return;
+		}
+
+		log.info("Selecting filter profile {}", name);
+		profileStore.setActiveName(name);
+		// Write every value before re-filtering once, instead of once per config change
+		applyingProfile = true;
+		try {
+			settings.applyTo(configManager, CONFIG_GROUP);
+		} finally {
+			applyingProfile = false;
+		}
+		panel.setRankingMode(config.rankingMode());
+		rerankItems();
+	}
+
+	/**
+	 * Save the current filters and ranking mode as a profile.
+	 * Must be called on the EDT.
+	 */
+	private void saveProfile(String name) {
+		profileStore.save(name, FilterSettings.fromConfig(config));
+		profileStore.setActiveName(name);
+		panel.setProfiles(profileStore.getNames(), name);
+	}
+
+	private void deleteProfile(String name) {
+		profileStore.delete(name);
+		panel.setProfiles(profileStore.getNames(), profileStore.getActiveName());
+	}
+
+	/**
+	 * Store a ranking mode picked in the panel; the config change triggers the re-rank.
+	 */
+	private void setRankingMode(FlippingHelperConfig.RankingMode mode) {
+		configManager.setConfiguration(CONFIG_GROUP, "rankingMode", mode);
+	}
+
+	/**
+	 * Mark items whose price dropped sharply since the previous fetches,
+	 * so the dump filter sees them before the server reports the dump.
+	 */
+	private void detectLocalDumps(List<FlippingItem> items, long now) {
+		if (config.localDumpDetection()) {
+			dumpDetector.update(items, now, config.localDumpThreshold());
+		}
 	}
 
 	/**
@@ -353,29 +1193,38 @@ public class FlippingHelperPlugin extends Plugin
 		log.info("Dump Filter: {}", config.dumpFilter());
 		log.info("Min Quantity: {}", config.minQuantity());
 		log.info("Max Total Investment: {}", config.maxTotalInvestment());
+		log.info("Custom Filter: {}", config.filterExpression());
 		log.info("======================");
 
-		List<FlippingItem> filtered = items.stream()
-			.filter(item -> {
-				// Never filter out items with active GE offers
-				if (hasActiveGeOffer(item)) {
-					log.debug("Item {} has active GE offer - exempt from filtering", item.getName());
-					return true;
-				}
+		return filterItems(items, getFilter(FilterSettings.fromConfig(config)), getActiveOfferItemIds());
+	}
 
-				boolean passes = passesFilters(item);
-				if (!passes) {
-					log.debug("Item filtered out: {} - Price: {}, Profit: {}, Volume: {}, Score: {}, Dump: {}",
-						item.getName(),
-						item.getAdjustedLowPrice(),
-						item.getProfit(),
-						item.getDailyVolume(),
-						item.getScore(),
-						item.getDumpSignalScore());
-				}
-				return passes;
-			})
-			.collect(Collectors.toList());
+	private List<FlippingItem> filterItems(List<FlippingItem> items, FilterExpression filter, Set<String> activeOfferIds) {
+		log.debug("Filter expression: {}", filter.getSource());
+
+		ItemColumns columns = ItemColumns.of(items);
+		boolean[] passes = filter.evaluate(columns);
+
+		List<FlippingItem> filtered = new ArrayList<>();
+		for (int i = 0; i < columns.size; i++) {
+			FlippingItem item = columns.items[i];
+
+			// Never filter out items with active GE offers
+			if (activeOfferIds.contains(item.getId())) {
+				log.debug("Item {} has active GE offer - exempt from filtering", item.getName());
+				filtered.add(item);
+			} else if (passes[i]) {
+				filtered.add(item);
+			} else {
+				log.debug("Item filtered out: {} - Price: {}, Profit: {}, Volume: {}, Score: {}, Dump: {}",
+					item.getName(),
+					item.getAdjustedLowPrice(),
+					item.getProfit(),
+					item.getDailyVolume(),
+					item.getScore(),
+					item.getDumpSignalScore());
+			}
+		}
 
 		log.info("Items after filtering: {} out of {}", filtered.size(), items.size());
 		return filtered;
@@ -386,73 +1235,50 @@ public class FlippingHelperPlugin extends Plugin
 	 * Package-private for testing.
 	 */
 	boolean passesFilters(FlippingItem item) {
-		// Minimum buy price filter
-		int minBuyPrice = config.minBuyPrice();
-		if (minBuyPrice > 0 && item.getAdjustedLowPrice() < minBuyPrice) {
-			return false;
-		}
-
-		// Maximum buy price filter
-		int maxBuyPrice = config.maxBuyPrice();
-		if (maxBuyPrice > 0 && item.getAdjustedLowPrice() > maxBuyPrice) {
-			return false;
-		}
-
-		// Minimum profit filter
-		int minProfit = config.minProfit();
-		if (minProfit > 0 && item.getProfit() < minProfit) {
-			return false;
-		}
-
-		// Minimum daily volume filter
-		int minDailyVolume = config.minDailyVolume();
-		if (minDailyVolume > 0 && item.getDailyVolume() < minDailyVolume) {
-			return false;
-		}
+		return getFilter(FilterSettings.fromConfig(config)).test(ItemColumns.of(Collections.singletonList(item)), 0);
+	}
 
-		// Minimum score filter
-		double minScore = config.minScore();
-		if (minScore > 0 && item.getScore() < minScore) {
-			return false;
+	/**
+	 * Get the filter for a set of filter settings: the fixed filters written as
+	 * an expression, and the custom filter expression. Each part is only parsed
+	 * again when its source changes.
+	 */
+	private synchronized FilterExpression getFilter(FilterSettings settings) {
+		String fixedSource = settings.toExpression();
+		if (!fixedSource.equals(fixedFilterSource)) {
+			fixedFilterSource = fixedSource;
+			try {
+				fixedFilter = FilterExpression.parse(fixedSource);
+			} catch (IllegalArgumentException e) {
+				// A filter value the expression syntax cannot represent; better unfiltered than no items at all
+				log.warn("Ignoring fixed filters that cannot be parsed ({}): {}", fixedSource, e.getMessage());
+				fixedFilter = FilterExpression.parse("");
+			}
 		}
 
-		// Dump filter
-		FlippingHelperConfig.DumpFilter dumpFilter = config.dumpFilter();
-		boolean isDumpItem = item.getDumpSignalScore() != null && item.getDumpSignalScore() > 0;
-
-		switch (dumpFilter) {
-			case DUMP_ONLY:
-				if (!isDumpItem) {
-					return false;
-				}
-				break;
-			case NO_DUMP:
-				if (isDumpItem) {
-					return false;
-				}
-				break;
-			case ALL:
-			default:
-				// No filtering based on dump status
-				break;
+		String customSource = settings.getFilterExpression();
+		if (!customSource.equals(customFilterSource)) {
+			customFilterSource = customSource;
+			try {
+				customFilter = FilterExpression.parse(customSource);
+			} catch (IllegalArgumentException e) {
+				log.warn("Ignoring invalid custom filter: {}", e.getMessage());
+				customFilter = FilterExpression.parse("");
+			}
 		}
 
-		// Minimum quantity filter
-		int minQuantity = config.minQuantity();
-		if (minQuantity > 0 && item.getQuantity() < minQuantity) {
-			return false;
-		}
+		return fixedFilter.and(customFilter);
+	}
 
-		// Maximum total investment filter (quantity × buy price)
-		int maxTotalInvestment = config.maxTotalInvestment();
-		if (maxTotalInvestment > 0) {
-			long totalInvestment = (long) item.getQuantity() * (long) item.getAdjustedLowPrice();
-			if (totalInvestment > maxTotalInvestment) {
-				return false;
-			}
+	/**
+	 * Item IDs of the active GE offers.
+	 */
+	private Set<String> getActiveOfferItemIds() {
+		// In test environment or if GE helper is not available, no items are pinned
+		if (grandExchangeHelper == null) {
+			return Collections.emptySet();
 		}
-
-		return true;
+		return new HashSet<>(getPinnedItemIds().values());
 	}
 
 	/**
@@ -466,6 +1292,11 @@ public class FlippingHelperPlugin extends Plugin
 		for (int slot = 0; slot < 8; slot++) {
 			if (grandExchangeHelper.hasActiveOffer(slot)) {
 				int itemId = grandExchangeHelper.getOfferItemId(slot);
+				// A completed buy whose items are suggested for selling leaves its row free
+				if (grandExchangeHelper.getOfferState(slot) == GrandExchangeOfferState.BOUGHT
+						&& pendingSells.contains(itemId)) {
+					continue;
+				}
 				if (itemId != -1) {
 					// Pinned item for this slot = item ID as string
 					pinnedItems.put(slot, String.valueOf(itemId));
@@ -477,7 +1308,7 @@ public class FlippingHelperPlugin extends Plugin
 		return pinnedItems;
 	}
 
-	private List<FlippingItem> selectTopSuggestions() {
+	private List<FlippingItem> selectTopSuggestions(List<FlippingItem> allItems) {
 		cleanExpiredCooldowns();
 
 		// Get pinned items from active GE offers
@@ -519,10 +1350,22 @@ public class FlippingHelperPlugin extends Plugin
 			}
 		}
 
+		// Items bought and waiting to be sold come next, the most recently bought on top
+		for (FlippingItem sell : pendingSells.list()) {
+			int row = suggestions.indexOf(null);
+			if (row == -1) {
+				break;
+			}
+			if (usedItemIds.add(sell.getId())) {
+				suggestions.set(row, sell);
+			}
+		}
+
 		// Fill remaining slots with regular suggestions
 		List<FlippingItem> regularItems = allItems.stream()
 			.filter(item -> !cooldownMap.containsKey(item.getId())) // Not in cooldown
 			.filter(item -> !usedItemIds.contains(item.getId())) // Not already pinned
+			.filter(item -> !buyLimitTracker.isLimitReached(item)) // Buy limit left
 			.collect(Collectors.toList());
 
 		int regularIndex = 0;
@@ -545,41 +1388,84 @@ public class FlippingHelperPlugin extends Plugin
 	}
 
 	private void refreshSuggestion(int index) {
+		SuggestionSnapshot current = snapshot.get();
+		List<FlippingItem> currentSuggestions = current.getSuggestions();
 		if (index < 0 || index >= currentSuggestions.size()) {
 			return;
 		}
 
 		FlippingItem oldItem = currentSuggestions.get(index);
+		// Dismissing a sell suggestion stops suggesting to sell the item
+		if ("sell".equals(oldItem.getPredictedAction())) {
+			try {
+				pendingSells.remove(Integer.parseInt(oldItem.getId()));
+			} catch (NumberFormatException e) {
+				// Never added
+			}
+		}
 		// Adiciona o item antigo ao cooldown
 		cooldownMap.put(oldItem.getId(), System.currentTimeMillis());
 		log.info("Item {} (ID: {}) adicionado ao cooldown por 5 minutos", oldItem.getName(), oldItem.getId());
 
-		// Busca um novo item que não está em cooldown e não está sendo exibido
-		cleanExpiredCooldowns();
-		Set<String> displayedIds = currentSuggestions.stream()
-				.map(FlippingItem::getId)
-				.collect(Collectors.toSet());
-
-		Optional<FlippingItem> newItem = allItems.stream()
-				.filter(item -> !cooldownMap.containsKey(item.getId()))
-				.filter(item -> !displayedIds.contains(item.getId()))
-				.findFirst();
+		// Próximo item da fila preparada após o ranking
+		Set<String> displayedIds = getItemIds(currentSuggestions);
+		SuggestionRowModel row = replacementQueue.poll(item -> isReplacementCandidate(item, displayedIds));
+		if (row != null) {
+			replaceSuggestion(current, index, row);
+			if (replacementQueue.needsRefill()) {
+				pluginExecutor.execute("refill replacements", () -> {
+					synchronized (rankLock) {
+						refillReplacements();
+					}
+				});
+			}
+			return;
+		}
 
-		if (newItem.isPresent()) {
-			currentSuggestions.set(index, newItem.get());
-			log.info("Substituindo item no índice {} por: {} (ID: {})", index, newItem.get().getName(), newItem.get().getId());
+		// Clicked faster than the queue refills: look further on a worker
+		pluginExecutor.execute("next item", () -> {
+			SuggestionSnapshot latest;
+			SuggestionRowModel next;
+			synchronized (rankLock) {
+				refillReplacements();
+				latest = snapshot.get();
+				if (index >= latest.getSuggestions().size()
+					|| !latest.getSuggestions().get(index).getId().equals(oldItem.getId())) {
+					// The row was replaced meanwhile
+					return;
+				}
+				Set<String> latestIds = getItemIds(latest.getSuggestions());
+				next = replacementQueue.poll(item -> isReplacementCandidate(item, latestIds));
+			}
+			if (next != null) {
+				replaceSuggestion(latest, index, next);
+			} else {
+				log.warn("Nenhum item disponível para substituir o índice {}", index);
+			}
+		});
+	}
 
-			SwingUtilities.invokeLater(() -> {
-				panel.updateSuggestion(index, newItem.get());
-				panel.revalidate();
-				panel.repaint();
-			});
-		} else {
-			log.warn("Nenhum item disponível para substituir o índice {}", index);
+	/**
+	 * Show a replacement row, unless a new snapshot was published since {@code current}.
+	 */
+	private void replaceSuggestion(SuggestionSnapshot current, int index, SuggestionRowModel row) {
+		SuggestionSnapshot next = current.withSuggestion(snapshotGeneration.incrementAndGet(), index, row, false);
+		if (!snapshot.compareAndSet(current, next)) {
+			// A new ranking was published meanwhile and replaces this row anyway
+			return;
 		}
+		log.info("Substituindo item no índice {} por: {} (ID: {})", index, row.getName(), row.getItem().getId());
+
+		SwingUtilities.invokeLater(() -> {
+			panel.updateSuggestion(index, row);
+			panel.setPinned(index, false);
+			panel.revalidate();
+			panel.repaint();
+		});
 	}
 
 	private void refreshItemPrices(int index) {
+		List<FlippingItem> currentSuggestions = snapshot.get().getSuggestions();
 		if (index < 0 || index >= currentSuggestions.size()) {
 			return;
 		}
@@ -591,61 +1477,64 @@ public class FlippingHelperPlugin extends Plugin
 		// Show loading state for this specific refresh button
 		panel.setRefreshButtonLoading(index, true);
 
-		new SwingWorker<FlippingItem, Void>() {
-			@Override
-			protected FlippingItem doInBackground() throws Exception {
-				// Busca dados atualizados da API
-				List<FlippingItem> freshItems = apiClient.getItems();
-				// Encontra o item específico pelo ID
-				return freshItems.stream()
-						.filter(item -> item.getId().equals(itemId))
-						.findFirst()
-						.orElse(null);
-			}
+		onCatalogueFetched(fetchCatalogue(), "refresh item prices",
+				(fetchGeneration, fetched) -> applyItemPrices(fetchGeneration, itemId, fetched.getItems()),
+				() -> panel.setRefreshButtonLoading(index, false));
+	}
 
-			@Override
-			protected void done() {
-				try {
-					FlippingItem updatedItem = get();
-					if (updatedItem != null) {
-						// Atualiza o item na lista atual
-						currentSuggestions.set(index, updatedItem);
-						// Atualiza também na lista completa se existir
-						for (int i = 0; i < allItems.size(); i++) {
-							if (allItems.get(i).getId().equals(itemId)) {
-								allItems.set(i, updatedItem);
-								break;
-							}
-						}
-
-						log.info("Preços atualizados para {}: Buy={}, Sell={}, Profit={}",
-								updatedItem.getName(),
-								updatedItem.getAdjustedLowPrice(),
-								updatedItem.getAdjustedHighPrice(),
-								updatedItem.getProfit());
-
-						// Check if this item should be pinned
-						Map<Integer, String> pinnedItemIds = getPinnedItemIds();
-						boolean isPinned = pinnedItemIds.containsKey(index) &&
-							pinnedItemIds.get(index).equals(updatedItem.getId());
-
-						SwingUtilities.invokeLater(() -> {
-							panel.updateSuggestion(index, updatedItem);
-							panel.setPinned(index, isPinned);
-							panel.revalidate();
-							panel.repaint();
-						});
-					} else {
-						log.warn("Item com ID {} não encontrado na atualização da API", itemId);
-					}
-				} catch (Exception e) {
-					log.error("Erro ao atualizar preços do item {}", itemId, e);
-				} finally {
-					// Always restore button state, even if there was an error
-					panel.setRefreshButtonLoading(index, false);
-				}
+	/**
+	 * Replace one item by its fetched version, unless the whole catalogue of this
+	 * or a newer fetch is already shown.
+	 */
+	private void applyItemPrices(long fetchGeneration, String itemId, List<FlippingItem> freshItems) {
+		// Encontra o item específico pelo ID
+		FlippingItem freshItem = freshItems.stream()
+				.filter(item -> item.getId().equals(itemId))
+				.findFirst()
+				.orElse(null);
+		if (freshItem == null) {
+			log.warn("Item com ID {} não encontrado na atualização da API", itemId);
+			return;
+		}
+		FlippingItem updatedItem = buyLimitTracker.withCap(freshItem);
+
+		// Atualiza o item no catálogo, na lista completa e nas sugestões
+		SuggestionSnapshot next;
+		synchronized (rankLock) {
+			if (fetchGeneration <= appliedFetchGeneration) {
+				log.debug("Dropping prices of {} from fetch {}, fetch {} is already shown",
+						itemId, fetchGeneration, appliedFetchGeneration);
+				return;
 			}
-		}.execute();
+			filterCache.clear();
+			next = snapshot.get().withItemUpdated(snapshotGeneration.incrementAndGet(),
+				SuggestionRowModel.of(updatedItem, profitTracker));
+			FlippingItem sell = reprice(updatedItem);
+			if (sell != null) {
+				next = next.withItemUpdated(snapshotGeneration.incrementAndGet(), SuggestionRowModel.of(sell, profitTracker));
+			}
+			publish(next);
+		}
+
+		log.info("Preços atualizados para {}: Buy={}, Sell={}, Profit={}",
+				updatedItem.getName(),
+				updatedItem.getAdjustedLowPrice(),
+				updatedItem.getAdjustedHighPrice(),
+				updatedItem.getProfit());
+		panel.setFetchStatus("Updated prices of " + updatedItem.getName(), false);
+
+		displaySnapshot(next);
+	}
+
+	/**
+	 * The sell suggestion of an item with the prices of {@code fresh}, or null if it is not waiting to be sold.
+	 */
+	private FlippingItem reprice(FlippingItem fresh) {
+		try {
+			return pendingSells.reprice(fresh, Integer.parseInt(fresh.getId()));
+		} catch (NumberFormatException e) {
+			return null;
+		}
 	}
 
 	private void reloadAllItems() {
@@ -25,4 +25,37 @@ public class FlippingItem {
     private List<String> dumpSignalReasons;
     private Long dumpPeakPrice;
     private Long dumpDetectedAt;
+
+    // Quantity suggested by the API, before local caps such as the remaining buy limit
+    private transient Integer apiQuantity;
+
+    // Quantity picked by the capital allocator, if the item was allocated a slot
+    private transient Integer allocatedQuantity;
+
+    /**
+     * A copy of every field, to adjust without touching an item that may be published.
+     */
+    public FlippingItem copy() {
+        FlippingItem copy = new FlippingItem();
+        copy.id = id;
+        copy.name = name;
+        copy.detailIcon = detailIcon;
+        copy.quantity = quantity;
+        copy.dailyVolume = dailyVolume;
+        copy.adjustedLowPrice = adjustedLowPrice;
+        copy.adjustedHighPrice = adjustedHighPrice;
+        copy.profit = profit;
+        copy.score = score;
+        copy.medianHourlyVolume = medianHourlyVolume;
+        copy.members = members;
+        copy.sparklineData = sparklineData;
+        copy.predictedAction = predictedAction;
+        copy.dumpSignalScore = dumpSignalScore;
+        copy.dumpSignalReasons = dumpSignalReasons;
+        copy.dumpPeakPrice = dumpPeakPrice;
+        copy.dumpDetectedAt = dumpDetectedAt;
+        copy.apiQuantity = apiQuantity;
+        copy.allocatedQuantity = allocatedQuantity;
+        return copy;
+    }
 }
\ No newline at end of file
@@ -26,11 +26,14 @@ public class GeHighlightOverlay extends Overlay {
     private final Client client;
     private final HighlightManager highlightManager;
     private final GrandExchangeHelper geHelper;
+    private final InventoryIndex inventoryIndex;
 
-    public GeHighlightOverlay(Client client, HighlightManager highlightManager, GrandExchangeHelper geHelper) {
+    public GeHighlightOverlay(Client client, HighlightManager highlightManager, GrandExchangeHelper geHelper,
+                              InventoryIndex inventoryIndex) {
         this.client = client;
         this.highlightManager = highlightManager;
         this.geHelper = geHelper;
+        this.inventoryIndex = inventoryIndex;
 
         setPosition(OverlayPosition.DYNAMIC);
         setLayer(OverlayLayer.ABOVE_WIDGETS);
@@ -85,9 +88,17 @@ public class GeHighlightOverlay extends Overlay {
                 renderWidgetHighlight(graphics, buyButton, new Rectangle(0, 0, 45, 44));
             }
         } else if ("sell".equals(action)) {
-            // Highlight the item in inventory
-            Widget inventoryItem = findInventoryItemWidget(item.getId());
-            renderWidgetHighlight(graphics, inventoryItem, new Rectangle(0, 0, 34, 32));
+            // Highlight the item (or its note) in inventory, or the collect button while it is still in the GE
+            Widget inventoryItem = inventoryIndex.getItemWidget(item.getId());
+            if (inventoryItem != null) {
+                renderWidgetHighlight(graphics, inventoryItem, new Rectangle(0, 0, 34, 32));
+            } else {
+                Widget collectButton = geHelper.getCollectButton();
+                if (collectButton != null) {
+                    renderWidgetHighlight(graphics, collectButton,
+                        new Rectangle(0, 0, collectButton.getWidth(), collectButton.getHeight()));
+                }
+            }
         }
     }
 
@@ -256,40 +267,4 @@ public class GeHighlightOverlay extends Overlay {
         // Disabled for now - just show the blue highlight
         // TODO: Implement text overlay with item information
     }
-
-    /**
-     * Find the inventory widget for a specific item ID.
-     */
-    private Widget findInventoryItemWidget(String itemIdStr) {
-        try {
-            int itemId = Integer.parseInt(itemIdStr);
-
-            // GE inventory widget (when GE is open)
-            Widget inventory = client.getWidget(467, 0);
-            if (inventory == null) {
-                // Regular inventory widget
-                inventory = client.getWidget(149, 0);
-            }
-
-            if (inventory == null) {
-                return null;
-            }
-
-            Widget[] children = inventory.getDynamicChildren();
-            if (children == null) {
-                return null;
-            }
-
-            // Find the item in inventory
-            for (Widget widget : children) {
-                if (widget.getItemId() == itemId) {
-                    return widget;
-                }
-            }
-        } catch (NumberFormatException e) {
-            log.warn("Invalid item ID: {}", itemIdStr);
-        }
-
-        return null;
-    }
 }
@@ -22,12 +22,15 @@ public class GeInteractionHandler {
     private final Client client;
     private final ClientThread clientThread;
     private final GrandExchangeHelper geHelper;
+    private final InventoryIndex inventoryIndex;
 
     @Inject
-    public GeInteractionHandler(Client client, ClientThread clientThread, GrandExchangeHelper geHelper) {
+    public GeInteractionHandler(Client client, ClientThread clientThread, GrandExchangeHelper geHelper,
+                                InventoryIndex inventoryIndex) {
         this.client = client;
         this.clientThread = clientThread;
         this.geHelper = geHelper;
+        this.inventoryIndex = inventoryIndex;
     }
 
     /**
@@ -87,7 +90,7 @@ public class GeInteractionHandler {
     private void startSellOffer(FlippingItem item) {
         clientThread.invoke(() -> {
             // Find the item in inventory
-            Widget inventoryItem = findInventoryItemWidget(item.getId());
+            Widget inventoryItem = inventoryIndex.getItemWidget(item.getId());
             if (inventoryItem == null) {
                 log.warn("Item {} not found in inventory", item.getName());
                 return;
@@ -187,39 +190,4 @@ public class GeInteractionHandler {
 
         client.setMenuEntries(new MenuEntry[]{menuEntry});
     }
-
-    /**
-     * Find inventory widget for a specific item ID.
-     */
-    private Widget findInventoryItemWidget(String itemIdStr) {
-        try {
-            int itemId = Integer.parseInt(itemIdStr);
-
-            // GE inventory widget (when GE is open)
-            Widget inventory = client.getWidget(467, 0);
-            if (inventory == null) {
-                // Regular inventory
-                inventory = client.getWidget(149, 0);
-            }
-
-            if (inventory == null) {
-                return null;
-            }
-
-            Widget[] children = inventory.getDynamicChildren();
-            if (children == null) {
-                return null;
-            }
-
-            for (Widget widget : children) {
-                if (widget.getItemId() == itemId) {
-                    return widget;
-                }
-            }
-        } catch (NumberFormatException e) {
-            log.warn("Invalid item ID: {}", itemIdStr);
-        }
-
-        return null;
-    }
 }
@@ -0,0 +1,43 @@
+package flippinghelper;
+
+/**
+ * Expected gp per hour of each item, the key of the gp per hour ranking.
+ *
+ * A flip of {@code quantity} items earns {@code profit * quantity} once both the
+ * buy and the sell offer have filled. Each offer is expected to fill at a share
+ * of the item's hourly volume, so the time taken grows with the quantity and
+ * shrinks with the volume. Every flip costs at least a few minutes of offer
+ * handling, which keeps cheap one-item flips from ranking too high.
+ */
+final class GpPerHourRanking {
+
+    // Minimum time spent on a flip, in hours (placing, collecting, relisting)
+    static final double MIN_FLIP_HOURS = 5 / 60.0;
+
+    private GpPerHourRanking() {
+    }
+
+    /**
+     * Expected gp per hour of every row.
+     */
+    static double[] compute(ItemColumns columns) {
+        int n = columns.size;
+        long[] profit = columns.profit;
+        int[] quantity = columns.quantity;
+        double[] hourlyVolume = columns.hourlyVolume;
+        double[] gpPerHour = new double[n];
+
+        ParallelColumns.forRanges(n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double fillRate = hourlyVolume[i] * CapitalAllocator.VOLUME_SHARE;
+                if (profit[i] <= 0 || quantity[i] <= 0 || fillRate <= 0) {
+                    continue;
+                }
+                // Buy, then sell the same quantity
+                double hours = Math.max(MIN_FLIP_HOURS, 2 * quantity[i] / fillRate);
+                gpPerHour[i] = profit[i] * (double) quantity[i] / hours;
+            }
+        });
+        return gpPerHour;
+    }
+}
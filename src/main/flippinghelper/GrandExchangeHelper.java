@@ -1,34 +1,164 @@
 package flippinghelper;
 
+import lombok.Value;
 import net.runelite.api.Client;
 import net.runelite.api.GrandExchangeOffer;
 import net.runelite.api.GrandExchangeOfferState;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.InterfaceID;
 import net.runelite.api.widgets.Widget;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.Arrays;
 
 /**
  * Helper class to access Grand Exchange widgets and state.
+ *
+ * Resolved widgets, the open slot and the first empty slot are cached until
+ * the next game tick, or until the GE interface is loaded or closed, a GE
+ * varbit changes or an offer changes. Repeated lookups from the overlays and
+ * handlers within a tick or frame are then array reads. Client thread only,
+ * except for the offer accessors, which read a copy of the offers taken on the
+ * client thread as they change, so the plugin workers can use them.
  */
 @Singleton
 public class GrandExchangeHelper {
 
     private static final int CURRENTLY_OPEN_GE_SLOT_VARBIT_ID = 4439;
+    private static final int OFFER_QUANTITY_VARBIT_ID = 4396;
+    private static final int OFFER_ITEM_VARBIT_ID = 4397;
+    private static final int OFFER_PRICE_VARBIT_ID = 4398;
+
+    private static final int SLOT_COUNT = 8;
+    private static final int SLOT_CHILD_ID = 7;
+    private static final int TOP_BAR_CHILD_ID = 6;
+    private static final int OFFER_CONTAINER_CHILD_ID = 26;
+
+    // Cache indices: the slots, then the top bar and the offer container
+    private static final int TOP_BAR = SLOT_COUNT;
+    private static final int OFFER_CONTAINER = SLOT_COUNT + 1;
+    private static final int[] CHILD_IDS = new int[SLOT_COUNT + 2];
+    private static final int UNRESOLVED = Integer.MIN_VALUE;
+
+    static {
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            CHILD_IDS[slot] = SLOT_CHILD_ID + slot;
+        }
+        CHILD_IDS[TOP_BAR] = TOP_BAR_CHILD_ID;
+        CHILD_IDS[OFFER_CONTAINER] = OFFER_CONTAINER_CHILD_ID;
+    }
+
+    /**
+     * The item and state of a GE slot when it last changed.
+     */
+    @Value
+    private static class OfferSlot {
+        int itemId;
+        GrandExchangeOfferState state;
+    }
+
+    private static final OfferSlot EMPTY_SLOT = new OfferSlot(-1, GrandExchangeOfferState.EMPTY);
 
     private final Client client;
 
+    private final Widget[] widgets = new Widget[CHILD_IDS.length];
+    private final boolean[] resolved = new boolean[CHILD_IDS.length];
+    private int cacheTick = -1;
+    private int openSlot = UNRESOLVED;
+    private int emptySlot = UNRESOLVED;
+    // Replaced as a whole on the client thread
+    private volatile OfferSlot[] offers = emptyOffers();
+
     @Inject
     public GrandExchangeHelper(Client client) {
         this.client = client;
     }
 
+    /**
+     * Drop the cached widgets and slots.
+     */
+    public void invalidate() {
+        Arrays.fill(resolved, false);
+        Arrays.fill(widgets, null);
+        openSlot = UNRESOLVED;
+        emptySlot = UNRESOLVED;
+    }
+
+    public void onWidgetLoaded(WidgetLoaded event) {
+        if (event.getGroupId() == InterfaceID.GRAND_EXCHANGE) {
+            invalidate();
+        }
+    }
+
+    public void onWidgetClosed(WidgetClosed event) {
+        if (event.getGroupId() == InterfaceID.GRAND_EXCHANGE) {
+            invalidate();
+        }
+    }
+
+    public void onVarbitChanged(VarbitChanged event) {
+        if (isOfferVarbit(event.getVarbitId())) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Whether a varbit holds the open slot or the item, quantity or price of the offer being set up.
+     */
+    public static boolean isOfferVarbit(int varbitId) {
+        switch (varbitId) {
+            case CURRENTLY_OPEN_GE_SLOT_VARBIT_ID:
+            case OFFER_QUANTITY_VARBIT_ID:
+            case OFFER_ITEM_VARBIT_ID:
+            case OFFER_PRICE_VARBIT_ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * An offer was placed, updated or collected, so the empty slot may have moved.
+     */
+    public void onOfferChanged(int slot, GrandExchangeOffer offer) {
+        emptySlot = UNRESOLVED;
+        if (slot < 0 || slot >= SLOT_COUNT) {
+            return;
+        }
+        OfferSlot[] next = offers.clone();
+        next[slot] = offer == null ? EMPTY_SLOT : new OfferSlot(offer.getItemId(), offer.getState());
+        offers = next;
+    }
+
+    /**
+     * Copy every offer from the client, e.g. when started while logged in.
+     */
+    public void refreshOffers() {
+        GrandExchangeOffer[] current = client.getGrandExchangeOffers();
+        OfferSlot[] next = emptyOffers();
+        for (int slot = 0; current != null && slot < Math.min(current.length, SLOT_COUNT); slot++) {
+            if (current[slot] != null) {
+                next[slot] = new OfferSlot(current[slot].getItemId(), current[slot].getState());
+            }
+        }
+        offers = next;
+        emptySlot = UNRESOLVED;
+    }
+
+    private static OfferSlot[] emptyOffers() {
+        OfferSlot[] empty = new OfferSlot[SLOT_COUNT];
+        Arrays.fill(empty, EMPTY_SLOT);
+        return empty;
+    }
+
     /**
      * Check if the GE interface is open.
      */
     public boolean isOpen() {
-        return client.getWidget(InterfaceID.GRAND_EXCHANGE, 7) != null;
+        return resolve(0) != null;
     }
 
     /**
@@ -49,14 +179,21 @@ public class GrandExchangeHelper {
      * Get the currently open slot index (-1 if none).
      */
     public int getOpenSlot() {
-        return client.getVarbitValue(CURRENTLY_OPEN_GE_SLOT_VARBIT_ID) - 1;
+        validate();
+        if (openSlot == UNRESOLVED) {
+            openSlot = client.getVarbitValue(CURRENTLY_OPEN_GE_SLOT_VARBIT_ID) - 1;
+        }
+        return openSlot;
     }
 
     /**
      * Get the widget for a specific GE slot.
      */
     public Widget getSlotWidget(int slot) {
-        return client.getWidget(465, 7 + slot);
+        if (slot < 0 || slot >= SLOT_COUNT) {
+            return null;
+        }
+        return resolve(slot);
     }
 
     /**
@@ -81,7 +218,7 @@ public class GrandExchangeHelper {
      * Get the collect button widget.
      */
     public Widget getCollectButton() {
-        Widget topBar = client.getWidget(465, 6);
+        Widget topBar = resolve(TOP_BAR);
         if (topBar == null) {
             return null;
         }
@@ -92,7 +229,7 @@ public class GrandExchangeHelper {
      * Get the offer container widget (when in an offer screen).
      */
     public Widget getOfferContainerWidget() {
-        return client.getWidget(465, 26);
+        return resolve(OFFER_CONTAINER);
     }
 
     /**
@@ -132,14 +269,14 @@ public class GrandExchangeHelper {
      * Get the current offer quantity from the interface.
      */
     public int getOfferQuantity() {
-        return client.getVarbitValue(4396);
+        return client.getVarbitValue(OFFER_QUANTITY_VARBIT_ID);
     }
 
     /**
      * Get the current offer price from the interface.
      */
     public int getOfferPrice() {
-        return client.getVarbitValue(4398);
+        return client.getVarbitValue(OFFER_PRICE_VARBIT_ID);
     }
 
     /**
@@ -147,32 +284,32 @@ public class GrandExchangeHelper {
      * @return slot index (0-7) or -1 if no empty slot
      */
     public int findEmptySlot() {
-        for (int i = 0; i < 8; i++) {
-            Widget slotWidget = getSlotWidget(i);
-            if (slotWidget != null) {
-                Widget buyButton = getBuyButton(i);
-                if (buyButton != null && !buyButton.isHidden()) {
-                    return i;
-                }
+        validate();
+        if (emptySlot != UNRESOLVED) {
+            return emptySlot;
+        }
+
+        emptySlot = -1;
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            Widget buyButton = getBuyButton(i);
+            if (buyButton != null && !buyButton.isHidden()) {
+                emptySlot = i;
+                break;
             }
         }
-        return -1;
+        return emptySlot;
     }
 
     /**
-     * Get the GrandExchangeOffer for a specific slot.
+     * Get the state of the offer in a slot.
      * @param slot slot index (0-7)
-     * @return GrandExchangeOffer or null if no offer in slot
+     * @return offer state, EMPTY if no offer in slot
      */
-    public GrandExchangeOffer getOffer(int slot) {
-        if (slot < 0 || slot > 7) {
-            return null;
+    public GrandExchangeOfferState getOfferState(int slot) {
+        if (slot < 0 || slot >= SLOT_COUNT) {
+            return GrandExchangeOfferState.EMPTY;
         }
-        GrandExchangeOffer[] offers = client.getGrandExchangeOffers();
-        if (offers == null || slot >= offers.length) {
-            return null;
-        }
-        return offers[slot];
+        return offers[slot].getState();
     }
 
     /**
@@ -181,11 +318,7 @@ public class GrandExchangeHelper {
      * @return true if slot has an active offer
      */
     public boolean hasActiveOffer(int slot) {
-        GrandExchangeOffer offer = getOffer(slot);
-        if (offer == null) {
-            return false;
-        }
-        GrandExchangeOfferState state = offer.getState();
+        GrandExchangeOfferState state = getOfferState(slot);
         // Active states: BUYING, SELLING, BOUGHT, SOLD
         // Inactive states: EMPTY, CANCELLED_BUY, CANCELLED_SELL
         return state == GrandExchangeOfferState.BUYING
@@ -200,10 +333,29 @@ public class GrandExchangeHelper {
      * @return item ID or -1 if no active offer
      */
     public int getOfferItemId(int slot) {
-        GrandExchangeOffer offer = getOffer(slot);
-        if (offer == null) {
+        if (slot < 0 || slot >= SLOT_COUNT) {
             return -1;
         }
-        return offer.getItemId();
+        return offers[slot].getItemId();
+    }
+
+    /**
+     * A GE widget by cache index, resolved at most once per tick.
+     */
+    private Widget resolve(int index) {
+        validate();
+        if (!resolved[index]) {
+            widgets[index] = client.getWidget(InterfaceID.GRAND_EXCHANGE, CHILD_IDS[index]);
+            resolved[index] = true;
+        }
+        return widgets[index];
+    }
+
+    private void validate() {
+        int tick = client.getTickCount();
+        if (tick != cacheTick) {
+            invalidate();
+            cacheTick = tick;
+        }
     }
 }
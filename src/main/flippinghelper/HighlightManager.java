@@ -20,6 +20,7 @@ public class HighlightManager {
     private final GrandExchangeHelper geHelper;
     private final OverlayManager overlayManager;
     private final GeInteractionHandler interactionHandler;
+    private final InventoryIndex inventoryIndex;
 
     private GeHighlightOverlay highlightOverlay;
     private FlippingItem currentItem = null;
@@ -27,11 +28,12 @@ public class HighlightManager {
 
     @Inject
     public HighlightManager(Client client, GrandExchangeHelper geHelper, OverlayManager overlayManager,
-                           GeInteractionHandler interactionHandler) {
+                           GeInteractionHandler interactionHandler, InventoryIndex inventoryIndex) {
         this.client = client;
         this.geHelper = geHelper;
         this.overlayManager = overlayManager;
         this.interactionHandler = interactionHandler;
+        this.inventoryIndex = inventoryIndex;
     }
 
     /**
@@ -40,7 +42,7 @@ public class HighlightManager {
      */
     public void initialize() {
         if (highlightOverlay == null) {
-            highlightOverlay = new GeHighlightOverlay(client, this, geHelper);
+            highlightOverlay = new GeHighlightOverlay(client, this, geHelper, inventoryIndex);
             overlayManager.add(highlightOverlay);
             log.debug("GeHighlightOverlay initialized and added");
         }
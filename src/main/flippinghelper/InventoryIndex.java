@@ -0,0 +1,146 @@
+package flippinghelper;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.ItemID;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.widgets.Widget;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The inventory slot of each item, and the coins carried.
+ *
+ * Rebuilt only when the inventory container changes, so finding the widget of
+ * an item is a map read and an array read instead of a scan over every slot.
+ * Slot lookups are made on the client thread; the coin count may be read from
+ * any thread.
+ */
+@Slf4j
+@Singleton
+public class InventoryIndex {
+
+    private static final int GE_INVENTORY_GROUP_ID = 467;
+    private static final int INVENTORY_GROUP_ID = 149;
+
+    private final Client client;
+
+    // Item id -> first slot holding it
+    private Map<Integer, Integer> slots = Collections.emptyMap();
+    // Item id -> id of its noted form, or -1; client thread only
+    private final Map<Integer, Integer> noteIds = new HashMap<>();
+    private volatile long coins;
+
+    @Inject
+    public InventoryIndex(Client client) {
+        this.client = client;
+    }
+
+    public void onItemContainerChanged(ItemContainerChanged event) {
+        if (event.getContainerId() == InventoryID.INVENTORY.getId()) {
+            rebuild(event.getItemContainer());
+        }
+    }
+
+    /**
+     * Index the current inventory, for when it was loaded before the plugin started.
+     * Client thread only.
+     */
+    public void rebuild() {
+        rebuild(client.getItemContainer(InventoryID.INVENTORY));
+    }
+
+    private void rebuild(ItemContainer inventory) {
+        if (inventory == null) {
+            slots = Collections.emptyMap();
+            coins = 0;
+            return;
+        }
+
+        Map<Integer, Integer> index = new HashMap<>();
+        Item[] items = inventory.getItems();
+        for (int slot = 0; slot < items.length; slot++) {
+            if (items[slot] != null && items[slot].getId() > 0) {
+                index.putIfAbsent(items[slot].getId(), slot);
+            }
+        }
+        slots = index;
+        coins = (long) inventory.count(ItemID.COINS_995)
+            + (long) inventory.count(ItemID.PLATINUM_TOKEN) * 1000;
+    }
+
+    /**
+     * Coins in the inventory, counting platinum tokens as 1000 each.
+     */
+    public long getCoins() {
+        return coins;
+    }
+
+    /**
+     * The inventory slot holding an item, or -1 if it is not carried.
+     */
+    public int getSlot(int itemId) {
+        Integer slot = slots.get(itemId);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * The widget showing an item in the GE inventory, or in the regular
+     * inventory when the GE is closed. Items collected from the GE in their
+     * noted form are found too. Null if the item is not carried or the widget
+     * does not show it yet. Client thread only.
+     */
+    public Widget getItemWidget(int itemId) {
+        int slot = getSlot(itemId);
+        if (slot == -1) {
+            int noteId = getNoteId(itemId);
+            slot = noteId == -1 ? -1 : getSlot(noteId);
+            if (slot == -1) {
+                return null;
+            }
+            itemId = noteId;
+        }
+
+        Widget inventory = client.getWidget(GE_INVENTORY_GROUP_ID, 0);
+        if (inventory == null) {
+            inventory = client.getWidget(INVENTORY_GROUP_ID, 0);
+        }
+        if (inventory == null) {
+            return null;
+        }
+
+        Widget[] children = inventory.getDynamicChildren();
+        if (children == null || slot >= children.length) {
+            return null;
+        }
+
+        // The widgets are redrawn after the container changes, so they may briefly lag behind it
+        Widget widget = children[slot];
+        return widget != null && widget.getItemId() == itemId ? widget : null;
+    }
+
+    private int getNoteId(int itemId) {
+        return noteIds.computeIfAbsent(itemId, id -> {
+            ItemComposition composition = client.getItemDefinition(id);
+            // Only unnoted items link to their note; a note links back to the item
+            return composition == null || composition.getNote() != -1 ? -1 : composition.getLinkedNoteId();
+        });
+    }
+
+    public Widget getItemWidget(String itemId) {
+        try {
+            return getItemWidget(Integer.parseInt(itemId));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid item ID: {}", itemId);
+            return null;
+        }
+    }
+}
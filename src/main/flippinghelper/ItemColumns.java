@@ -0,0 +1,170 @@
+package flippinghelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column-oriented copy of the numeric fields of a list of items.
+ *
+ * Built once per fetch, so ranking and filtering can loop over primitive
+ * arrays instead of calling getters (and unboxing) per item and comparison.
+ * Row {@code i} of every column belongs to {@code items[i]}. The key columns
+ * and orders of ranking strategies are cached here as they are used.
+ */
+final class ItemColumns {
+
+    final FlippingItem[] items;
+    final int size;
+
+    final int[] id;
+    final long[] buyPrice;
+    final long[] sellPrice;
+    final long[] profit;
+    final int[] quantity;
+    final long[] dailyVolume;
+    final double[] hourlyVolume;
+    final double[] score;
+    final boolean[] members;
+    final double[] dumpScore;
+
+    private final Map<RankingStrategy, double[]> keyColumns = new ConcurrentHashMap<>();
+    private final Map<RankingStrategy, int[]> orders = new ConcurrentHashMap<>();
+
+    private ItemColumns(List<FlippingItem> list) {
+        items = list.toArray(new FlippingItem[0]);
+        size = items.length;
+
+        id = new int[size];
+        buyPrice = new long[size];
+        sellPrice = new long[size];
+        profit = new long[size];
+        quantity = new int[size];
+        dailyVolume = new long[size];
+        hourlyVolume = new double[size];
+        score = new double[size];
+        members = new boolean[size];
+        dumpScore = new double[size];
+
+        ParallelColumns.forRanges(size, this::fill);
+    }
+
+    private void fill(int from, int to) {
+        for (int i = from; i < to; i++) {
+            FlippingItem item = items[i];
+            id[i] = parseId(item.getId());
+            buyPrice[i] = item.getAdjustedLowPrice();
+            sellPrice[i] = item.getAdjustedHighPrice();
+            profit[i] = item.getProfit();
+            quantity[i] = item.getQuantity();
+            dailyVolume[i] = item.getDailyVolume();
+            hourlyVolume[i] = hourlyVolume(item);
+            score[i] = item.getScore();
+            members[i] = item.isMembers();
+            dumpScore[i] = item.getDumpSignalScore() == null ? 0 : item.getDumpSignalScore();
+        }
+    }
+
+    static ItemColumns of(List<FlippingItem> items) {
+        return new ItemColumns(items);
+    }
+
+    /**
+     * Key column of a strategy, computed on first use.
+     * The returned array must not be modified.
+     */
+    double[] keyColumn(RankingStrategy strategy) {
+        // Not computeIfAbsent: a strategy may read other strategies' keys while computing its own.
+        // Two threads may compute the same keys; both get the first stored array.
+        double[] keys = keyColumns.get(strategy);
+        if (keys == null) {
+            keys = strategy.computeKeys(this);
+            double[] stored = keyColumns.putIfAbsent(strategy, keys);
+            if (stored != null) {
+                keys = stored;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Row indices ordered by a strategy's keys, highest first, computed on first use.
+     * Ties keep the row order. The returned array must not be modified.
+     */
+    int[] order(RankingStrategy strategy) {
+        int[] order = orders.get(strategy);
+        if (order == null) {
+            order = orderDescending(keyColumn(strategy));
+            int[] stored = orders.putIfAbsent(strategy, order);
+            if (stored != null) {
+                order = stored;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Items ordered by a strategy, highest first.
+     */
+    List<FlippingItem> rank(RankingStrategy strategy) {
+        int[] order = order(strategy);
+        List<FlippingItem> ranked = new ArrayList<>(order.length);
+        for (int row : order) {
+            ranked.add(items[row]);
+        }
+        return ranked;
+    }
+
+    /**
+     * Hourly traded volume of an item, falling back to the daily volume when
+     * the median hourly volume is missing.
+     */
+    static double hourlyVolume(FlippingItem item) {
+        return item.getMedianHourlyVolume() > 0
+            ? item.getMedianHourlyVolume()
+            : item.getDailyVolume() / 24.0;
+    }
+
+    /**
+     * Row indices ordered by {@code keys}, highest first.
+     * The sort is stable, so rows with equal keys keep their current order.
+     */
+    static int[] orderDescending(double[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+
+        // Bottom-up merge sort over the indices, no boxing
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n - width; low += 2 * width) {
+                merge(keys, order, buffer, low, low + width, Math.min(low + 2 * width, n));
+            }
+        }
+        return order;
+    }
+
+    private static void merge(double[] keys, int[] order, int[] buffer, int low, int mid, int high) {
+        System.arraycopy(order, low, buffer, low, high - low);
+        int left = low;
+        int right = mid;
+        for (int k = low; k < high; k++) {
+            if (left < mid && (right >= high || keys[buffer[left]] >= keys[buffer[right]])) {
+                order[k] = buffer[left++];
+            } else {
+                order[k] = buffer[right++];
+            }
+        }
+    }
+
+    private static int parseId(String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package flippinghelper;
+
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.util.AsyncBufferedImage;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+
+/**
+ * Item icons of suggestion rows, requested ahead of time.
+ *
+ * Stackable items such as coins switch to a bigger stack sprite at sizes set
+ * per item, which the client does not expose, so icons are keyed on the exact
+ * quantity. A row's quantity only changes with its suggestion. After each
+ * ranking pass the icons of the next candidates are requested, so rows that
+ * replace a dismissed suggestion already have their icon loaded.
+ */
+@Singleton
+public class ItemIconCache {
+
+    static final int CAPACITY = 256;
+
+    private final ItemManager itemManager;
+    private final LruCache<Long, AsyncBufferedImage> icons = new LruCache<>(CAPACITY);
+
+    @Inject
+    public ItemIconCache(ItemManager itemManager) {
+        this.itemManager = itemManager;
+    }
+
+    /**
+     * The icon of an item at a quantity. The image may still be loading.
+     */
+    public AsyncBufferedImage get(int itemId, int quantity) {
+        // An empty stack is drawn like a single item
+        int shown = Math.max(1, quantity);
+        return icons.computeIfAbsent(((long) itemId << 32) | shown, key -> itemManager.getImage(itemId, shown, false));
+    }
+
+    /**
+     * Request the icons of the first {@code count} items, in order.
+     */
+    public void prefetch(List<FlippingItem> items, int count) {
+        for (int i = 0; i < items.size() && i < count; i++) {
+            FlippingItem item = items.get(i);
+            try {
+                get(Integer.parseInt(item.getId()), item.getQuantity());
+            } catch (NumberFormatException e) {
+                // No icon for invalid ids
+            }
+        }
+    }
+}
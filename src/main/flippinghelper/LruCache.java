@@ -0,0 +1,41 @@
+package flippinghelper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Small thread-safe cache that evicts the least recently used entry.
+ */
+final class LruCache<K, V> {
+
+    private final Map<K, V> map;
+
+    LruCache(int capacity) {
+        map = new LinkedHashMap<K, V>(capacity + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    /**
+     * The cached value, or a new one computed while holding the cache lock.
+     */
+    synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> compute) {
+        return map.computeIfAbsent(key, compute);
+    }
+
+    synchronized void clear() {
+        map.clear();
+    }
+}
@@ -0,0 +1,108 @@
+package flippinghelper;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs loops over column rows on a small fork-join pool.
+ *
+ * Rows are split into contiguous ranges and each range writes only its own
+ * rows of the output arrays, so results are identical to a sequential loop.
+ * Small inputs run sequentially on the calling thread, and so does everything
+ * while the pool is stopped. The pool is kept small so a large catalogue does
+ * not starve the client of CPU.
+ */
+final class ParallelColumns {
+
+    static final int SEQUENTIAL_THRESHOLD = 2048;
+
+    static final int DEFAULT_PARALLELISM = Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1));
+
+    // Null while stopped, or when a single thread was asked for
+    private static volatile ForkJoinPool pool;
+
+    @FunctionalInterface
+    interface RangeTask {
+        /**
+         * Process rows {@code from} (inclusive) to {@code to} (exclusive).
+         */
+        void run(int from, int to);
+    }
+
+    private ParallelColumns() {
+    }
+
+    /**
+     * Start a pool of {@code parallelism} threads, replacing any running pool.
+     */
+    static synchronized void startUp(int parallelism) {
+        shutDown();
+        if (parallelism > 1) {
+            pool = new ForkJoinPool(parallelism, p -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("flipping-helper-columns-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+    }
+
+    /**
+     * Stop the pool. Loops already running finish, later ones run sequentially.
+     */
+    static synchronized void shutDown() {
+        ForkJoinPool stopped = pool;
+        pool = null;
+        if (stopped != null) {
+            stopped.shutdown();
+        }
+    }
+
+    /**
+     * Run a task over rows 0 to {@code size}, in parallel ranges for large sizes.
+     */
+    static void forRanges(int size, RangeTask task) {
+        ForkJoinPool current = pool;
+        if (size < SEQUENTIAL_THRESHOLD || current == null) {
+            task.run(0, size);
+            return;
+        }
+        try {
+            current.invoke(new RangeAction(task, 0, size, chunkSize(size, current.getParallelism())));
+        } catch (RejectedExecutionException e) {
+            // Stopped before the task was submitted, so no range has run yet
+            task.run(0, size);
+        }
+    }
+
+    private static int chunkSize(int size, int parallelism) {
+        // A few chunks per thread balances uneven rows without tiny tasks
+        return Math.max(SEQUENTIAL_THRESHOLD / 2, size / (parallelism * 4));
+    }
+
+    private static class RangeAction extends RecursiveAction {
+        private final RangeTask task;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        RangeAction(RangeTask task, int from, int to, int chunk) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                task.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(task, from, mid, chunk), new RangeAction(task, mid, to, chunk));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package flippinghelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Items bought through a completed buy offer that still have to be sold.
+ *
+ * Each one is a sell suggestion at the item's high price for the quantity
+ * bought, the most recently bought first. Quantities are kept per GE slot, so
+ * the same completed offer reported again (e.g. on login) is not counted
+ * twice. Once the slot is emptied they move to a total no slot owns, so a new
+ * offer in the same slot adds to them. An item is dropped once a sell offer
+ * for it is placed or its suggestion is dismissed.
+ */
+final class PendingSells {
+
+    private static final class Pending {
+        final Map<Integer, Integer> quantityBySlot = new HashMap<>();
+        // Bought through offers whose slot was emptied since
+        int collected;
+        FlippingItem sell;
+
+        int total() {
+            int total = collected;
+            for (int slotQuantity : quantityBySlot.values()) {
+                total += slotQuantity;
+            }
+            return total;
+        }
+    }
+
+    // Item id -> pending sell, least recently bought first
+    private final Map<Integer, Pending> sells = new LinkedHashMap<>();
+
+    /**
+     * The buy offer in {@code slot} for {@code bought} completed with
+     * {@code quantity} items.
+     *
+     * @return the sell suggestion for the item, for everything bought of it
+     */
+    synchronized FlippingItem onBought(FlippingItem bought, int itemId, int slot, int quantity) {
+        Pending pending = sells.remove(itemId);
+        if (pending == null) {
+            pending = new Pending();
+        }
+        pending.quantityBySlot.put(slot, quantity);
+        pending.sell = sellCopy(bought, pending.total());
+        sells.put(itemId, pending);
+        return pending.sell;
+    }
+
+    /**
+     * The offer in {@code slot} was collected and the slot is empty. What it
+     * bought stays pending, but is no longer replaced by the next offer in the slot.
+     */
+    synchronized void onSlotEmptied(int slot) {
+        for (Pending pending : sells.values()) {
+            Integer quantity = pending.quantityBySlot.remove(slot);
+            if (quantity != null) {
+                pending.collected += quantity;
+            }
+        }
+    }
+
+    /**
+     * Take the prices of a fresh version of an item waiting to be sold.
+     *
+     * @return the updated sell suggestion, or null if the item is not waiting to be sold
+     */
+    synchronized FlippingItem reprice(FlippingItem fresh, int itemId) {
+        Pending pending = sells.get(itemId);
+        if (pending == null) {
+            return null;
+        }
+        pending.sell = sellCopy(fresh, pending.sell.getQuantity());
+        return pending.sell;
+    }
+
+    /**
+     * @return whether the item was waiting to be sold
+     */
+    synchronized boolean remove(int itemId) {
+        return sells.remove(itemId) != null;
+    }
+
+    synchronized boolean contains(int itemId) {
+        return sells.containsKey(itemId);
+    }
+
+    /**
+     * The sell suggestions, most recently bought first.
+     */
+    synchronized List<FlippingItem> list() {
+        List<FlippingItem> list = new ArrayList<>(sells.size());
+        for (Pending pending : sells.values()) {
+            list.add(pending.sell);
+        }
+        Collections.reverse(list);
+        return list;
+    }
+
+    /**
+     * A copy of {@code item} suggesting to sell {@code quantity} of it. The
+     * catalogue item itself is left as a buy suggestion.
+     */
+    static FlippingItem sellCopy(FlippingItem item, int quantity) {
+        FlippingItem sell = item.copy();
+        sell.setQuantity(quantity);
+        sell.setApiQuantity(quantity);
+        sell.setAllocatedQuantity(null);
+        sell.setPredictedAction("sell");
+        return sell;
+    }
+}
@@ -0,0 +1,72 @@
+package flippinghelper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Singleton;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background work of the plugin (fetching, filtering, ranking) on a small pool
+ * of named threads with a bounded queue.
+ *
+ * Replaces one-off SwingWorkers, so the number of threads the plugin uses is
+ * fixed and they show up by name in thread dumps.
+ */
+@Slf4j
+@Singleton
+public class PluginExecutor {
+
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 32;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private ThreadPoolExecutor executor;
+
+    public synchronized void startUp() {
+        executor = new ThreadPoolExecutor(THREADS, THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "flipping-helper-worker-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public synchronized void shutDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Run a task in the background. Exceptions are logged.
+     *
+     * @return false if the task was rejected (queue full or not started)
+     */
+    public synchronized boolean execute(String name, Runnable task) {
+        if (executor == null) {
+            log.warn("Dropping task {}, executor not running", name);
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Background task {} failed", name, e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropping task {}, too much queued work", name);
+            return false;
+        }
+    }
+}
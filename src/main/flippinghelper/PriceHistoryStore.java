@@ -0,0 +1,453 @@
+package flippinghelper;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local time-series of item prices, recorded on every fetch.
+ *
+ * Samples go into one-minute buckets. When a bucket closes it is rolled up into
+ * the five-minute series, and closed five-minute buckets into the hourly series.
+ * Each resolution keeps a bounded retention window. On disk every series is a
+ * block of delta + varint encoded columns.
+ *
+ * Every client on the machine reads the file, but only the one holding the lock
+ * on it writes it, so clients do not overwrite each other's history. They
+ * record the same shared catalogue, so the writer's history covers theirs.
+ */
+@Slf4j
+@Singleton
+public class PriceHistoryStore {
+
+    private static final int MAGIC = 0x46485048; // "FHPH"
+    private static final int VERSION = 1;
+    private static final long SAVE_INTERVAL_MILLIS = 5 * 60 * 1000;
+
+    public enum Resolution {
+        MINUTE(60_000L, 24 * 60 * 60_000L),
+        FIVE_MINUTES(5 * 60_000L, 7 * 24 * 60 * 60_000L),
+        HOUR(60 * 60_000L, 90 * 24 * 60 * 60_000L);
+
+        private final long width;
+        private final long retention;
+
+        Resolution(long width, long retention) {
+            this.width = width;
+            this.retention = retention;
+        }
+
+        public long getWidth() {
+            return width;
+        }
+
+        public long getRetention() {
+            return retention;
+        }
+
+        int capacity() {
+            return (int) (retention / width);
+        }
+    }
+
+    /**
+     * Averaged values per bucket, oldest first.
+     */
+    @Value
+    public static class PriceSeries {
+        Resolution resolution;
+        long[] timestamps;
+        long[] low;
+        long[] high;
+        long[] volume;
+
+        public int size() {
+            return timestamps.length;
+        }
+    }
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final File file;
+    private final File lockFile;
+    private final Map<Integer, ItemHistory> histories = new ConcurrentHashMap<>();
+    // Open while this client holds the write lock
+    private FileChannel lockChannel;
+    private volatile boolean loaded;
+    private volatile long lastSave;
+
+    @Inject
+    public PriceHistoryStore() {
+        this(new File(FlippingHelperPlugin.DATA_DIR, "prices.dat"));
+    }
+
+    PriceHistoryStore(File file) {
+        this.file = file;
+        this.lockFile = new File(file.getPath() + ".lock");
+    }
+
+    /**
+     * Record the prices of every item in a fetch.
+     * Loads the history from disk on first use and saves it periodically, so it
+     * should be called from a background thread.
+     */
+    public void record(List<FlippingItem> items, long timestamp) {
+        ensureLoaded();
+
+        for (FlippingItem item : items) {
+            int itemId;
+            try {
+                itemId = Integer.parseInt(item.getId());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            histories.computeIfAbsent(itemId, id -> new ItemHistory())
+                .record(timestamp, item.getAdjustedLowPrice(), item.getAdjustedHighPrice(), item.getDailyVolume());
+        }
+
+        if (timestamp - lastSave >= SAVE_INTERVAL_MILLIS) {
+            save();
+        }
+    }
+
+    /**
+     * Get the recorded history of an item at the given resolution.
+     * The newest coarse bucket only appears once the finer bucket before it closes.
+     * Loads the history from disk on first use.
+     */
+    public PriceSeries getSeries(int itemId, Resolution resolution) {
+        ensureLoaded();
+        ItemHistory history = histories.get(itemId);
+        if (history == null) {
+            return new PriceSeries(resolution, new long[0], new long[0], new long[0], new long[0]);
+        }
+        return history.snapshot(resolution);
+    }
+
+    /**
+     * Write the history to disk, replacing the previous file atomically.
+     * Skipped while another client holds the write lock.
+     */
+    public synchronized void save() {
+        if (!loaded) {
+            return;
+        }
+
+        lastSave = System.currentTimeMillis();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if (!lock()) {
+                log.debug("Price history is written by another client");
+                return;
+            }
+
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+
+            for (Map.Entry<Integer, ItemHistory> entry : histories.entrySet()) {
+                entry.getValue().write(entry.getKey(), out);
+            }
+
+            File temp = new File(file.getPath() + ".tmp");
+            Files.write(temp.toPath(), out.toByteArray());
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved price history for {} items ({} bytes)", histories.size(), out.size());
+        } catch (IOException e) {
+            log.warn("Failed to save price history", e);
+        }
+    }
+
+    /**
+     * Save the history, let another client write it and forget it. It is loaded
+     * again on next use.
+     */
+    public synchronized void shutDown() {
+        save();
+        if (lockChannel != null) {
+            try {
+                // Releases the lock
+                lockChannel.close();
+            } catch (IOException e) {
+                log.debug("Failed to release the price history lock", e);
+            }
+            lockChannel = null;
+        }
+        histories.clear();
+        loaded = false;
+    }
+
+    /**
+     * Take the write lock, if not held yet. False if another client holds it.
+     */
+    private boolean lock() throws IOException {
+        if (lockChannel != null) {
+            return true;
+        }
+
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        boolean locked = false;
+        try {
+            locked = channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            // Held by another store of this process
+        } finally {
+            if (!locked) {
+                channel.close();
+            }
+        }
+        if (locked) {
+            lockChannel = channel;
+        }
+        return locked;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        lastSave = System.currentTimeMillis();
+
+        if (!file.exists()) {
+            return;
+        }
+
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                log.warn("Ignoring price history with unknown format");
+                return;
+            }
+
+            while (in.hasRemaining()) {
+                int itemId = (int) VarInts.readUnsigned(in);
+                histories.computeIfAbsent(itemId, id -> new ItemHistory()).read(in);
+            }
+            log.debug("Loaded price history for {} items", histories.size());
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Failed to load price history, starting empty", e);
+            histories.clear();
+        }
+    }
+
+    /**
+     * All resolutions for one item.
+     */
+    private static class ItemHistory {
+        private final Series[] series = new Series[RESOLUTIONS.length];
+
+        ItemHistory() {
+            for (int i = 0; i < series.length; i++) {
+                series[i] = new Series();
+            }
+        }
+
+        synchronized void record(long timestamp, long low, long high, long volume) {
+            merge(0, timestamp, low, high, volume, 1);
+        }
+
+        synchronized PriceSeries snapshot(Resolution resolution) {
+            Series s = series[resolution.ordinal()];
+            long[] low = new long[s.size];
+            long[] high = new long[s.size];
+            long[] volume = new long[s.size];
+            for (int i = 0; i < s.size; i++) {
+                low[i] = s.lowSum[i] / s.count[i];
+                high[i] = s.highSum[i] / s.count[i];
+                volume[i] = s.volumeSum[i] / s.count[i];
+            }
+            return new PriceSeries(resolution, Arrays.copyOf(s.start, s.size), low, high, volume);
+        }
+
+        /**
+         * Merge a sample (or a closed bucket of the finer resolution) into a series.
+         * Opening a new bucket closes the previous one and rolls it up a level.
+         */
+        private void merge(int level, long timestamp, long lowSum, long highSum, long volumeSum, int count) {
+            Resolution resolution = RESOLUTIONS[level];
+            Series s = series[level];
+            long bucket = timestamp - Math.floorMod(timestamp, resolution.width);
+
+            if (s.size > 0) {
+                int last = s.size - 1;
+                if (s.start[last] == bucket) {
+                    s.lowSum[last] += lowSum;
+                    s.highSum[last] += highSum;
+                    s.volumeSum[last] += volumeSum;
+                    s.count[last] += count;
+                    return;
+                }
+                if (bucket < s.start[last]) {
+                    // Out of order (e.g. the system clock moved back)
+                    return;
+                }
+                if (level + 1 < series.length) {
+                    merge(level + 1, s.start[last], s.lowSum[last], s.highSum[last], s.volumeSum[last], s.count[last]);
+                }
+            }
+
+            s.append(bucket, lowSum, highSum, volumeSum, count, resolution.capacity());
+            s.trimBefore(bucket - resolution.retention);
+        }
+
+        synchronized void write(int itemId, ByteArrayOutputStream out) {
+            VarInts.writeUnsigned(out, itemId);
+            for (int level = 0; level < series.length; level++) {
+                series[level].write(out, RESOLUTIONS[level].width);
+            }
+        }
+
+        synchronized void read(ByteBuffer in) {
+            for (int level = 0; level < series.length; level++) {
+                series[level].read(in, RESOLUTIONS[level].width, RESOLUTIONS[level].capacity());
+            }
+        }
+    }
+
+    /**
+     * Growable column arrays for one resolution, oldest bucket first.
+     */
+    private static class Series {
+        private static final int INITIAL_CAPACITY = 8;
+
+        long[] start = new long[INITIAL_CAPACITY];
+        long[] lowSum = new long[INITIAL_CAPACITY];
+        long[] highSum = new long[INITIAL_CAPACITY];
+        long[] volumeSum = new long[INITIAL_CAPACITY];
+        int[] count = new int[INITIAL_CAPACITY];
+        int size;
+
+        void append(long bucket, long low, long high, long volume, int samples, int maxCapacity) {
+            if (size == maxCapacity) {
+                // Drop the oldest quarter at once so appends stay amortized O(1)
+                drop(Math.max(1, maxCapacity / 4));
+            }
+            if (size == start.length) {
+                int capacity = Math.min(maxCapacity, start.length * 2);
+                start = Arrays.copyOf(start, capacity);
+                lowSum = Arrays.copyOf(lowSum, capacity);
+                highSum = Arrays.copyOf(highSum, capacity);
+                volumeSum = Arrays.copyOf(volumeSum, capacity);
+                count = Arrays.copyOf(count, capacity);
+            }
+
+            start[size] = bucket;
+            lowSum[size] = low;
+            highSum[size] = high;
+            volumeSum[size] = volume;
+            count[size] = samples;
+            size++;
+        }
+
+        void trimBefore(long cutoff) {
+            int expired = 0;
+            while (expired < size && start[expired] < cutoff) {
+                expired++;
+            }
+            if (expired > 0) {
+                drop(expired);
+            }
+        }
+
+        private void drop(int n) {
+            int remaining = size - n;
+            System.arraycopy(start, n, start, 0, remaining);
+            System.arraycopy(lowSum, n, lowSum, 0, remaining);
+            System.arraycopy(highSum, n, highSum, 0, remaining);
+            System.arraycopy(volumeSum, n, volumeSum, 0, remaining);
+            System.arraycopy(count, n, count, 0, remaining);
+            size = remaining;
+        }
+
+        /**
+         * Columns: bucket starts as deltas in bucket widths, then averaged low,
+         * high and volume as signed deltas, then sample counts.
+         */
+        void write(ByteArrayOutputStream out, long width) {
+            VarInts.writeUnsigned(out, size);
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                long units = start[i] / width;
+                VarInts.writeUnsigned(out, units - previous);
+                previous = units;
+            }
+            writeAverages(out, lowSum);
+            writeAverages(out, highSum);
+            writeAverages(out, volumeSum);
+            for (int i = 0; i < size; i++) {
+                VarInts.writeUnsigned(out, count[i]);
+            }
+        }
+
+        private void writeAverages(ByteArrayOutputStream out, long[] sums) {
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                long average = sums[i] / count[i];
+                VarInts.writeSigned(out, average - previous);
+                previous = average;
+            }
+        }
+
+        void read(ByteBuffer in, long width, int maxCapacity) {
+            int n = (int) VarInts.readUnsigned(in);
+            if (n < 0 || n > maxCapacity) {
+                throw new IllegalArgumentException("Invalid series length " + n);
+            }
+
+            long[] starts = new long[n];
+            long units = 0;
+            for (int i = 0; i < n; i++) {
+                units += VarInts.readUnsigned(in);
+                starts[i] = units * width;
+            }
+            long[] low = readDeltas(in, n);
+            long[] high = readDeltas(in, n);
+            long[] volume = readDeltas(in, n);
+
+            size = 0;
+            for (int i = 0; i < n; i++) {
+                int samples = Math.max(1, (int) VarInts.readUnsigned(in));
+                append(starts[i], low[i] * samples, high[i] * samples, volume[i] * samples, samples, maxCapacity);
+            }
+        }
+
+        private static long[] readDeltas(ByteBuffer in, int n) {
+            long[] values = new long[n];
+            long previous = 0;
+            for (int i = 0; i < n; i++) {
+                previous += VarInts.readSigned(in);
+                values[i] = previous;
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package flippinghelper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes realized profit from the trade journal by matching sells to earlier
+ * buys of the same item in FIFO order, after GE tax.
+ *
+ * Aggregates are updated as each fill arrives, so the cost of a fill does not
+ * depend on the size of the trade history.
+ */
+@Slf4j
+@Singleton
+public class ProfitTracker {
+
+    static final long GE_TAX_FREE_BELOW = 50;
+    static final long GE_TAX_CAP = 5_000_000;
+    private static final long GE_TAX_PERCENT = 2;
+
+    private final TradeJournal tradeJournal;
+    private final TradeFill.Tracker fillTracker = new TradeFill.Tracker();
+    private final Map<Integer, ItemLedger> ledgers = new ConcurrentHashMap<>();
+
+    private volatile long sessionStart;
+    private volatile long sessionProfit;
+    private volatile long totalProfit;
+    private volatile Runnable updateListener;
+
+    @Inject
+    public ProfitTracker(TradeJournal tradeJournal) {
+        this.tradeJournal = tradeJournal;
+    }
+
+    /**
+     * Start a new session and rebuild the ledgers from the journal.
+     * Must be called after the journal has been started.
+     */
+    public void startUp() {
+        sessionStart = System.currentTimeMillis();
+        tradeJournal.replayAndListen(this::onRecord, this::reset);
+    }
+
+    /**
+     * Drop the ledgers and totals, before replaying the journal of another account.
+     * Package-private for testing.
+     */
+    void reset() {
+        fillTracker.reset();
+        ledgers.clear();
+        sessionProfit = 0;
+        totalProfit = 0;
+
+        Runnable listener = updateListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Set a callback run (on the journal thread) whenever realized profit changes.
+     */
+    public void setUpdateListener(Runnable updateListener) {
+        this.updateListener = updateListener;
+    }
+
+    /**
+     * Realized profit for an item over the whole journal.
+     */
+    public long getItemProfit(int itemId) {
+        ItemLedger ledger = ledgers.get(itemId);
+        return ledger == null ? 0 : ledger.realizedProfit;
+    }
+
+    /**
+     * Check if any sells of the item were matched against buys.
+     */
+    public boolean hasRealizedProfit(int itemId) {
+        ItemLedger ledger = ledgers.get(itemId);
+        return ledger != null && ledger.realizedQuantity > 0;
+    }
+
+    /**
+     * Realized profit of the open account since the plugin was started.
+     */
+    public long getSessionProfit() {
+        return sessionProfit;
+    }
+
+    /**
+     * Realized profit over the whole journal.
+     */
+    public long getTotalProfit() {
+        return totalProfit;
+    }
+
+    /**
+     * GE tax for selling one item at the given price.
+     */
+    static long geTax(long unitPrice) {
+        if (unitPrice < GE_TAX_FREE_BELOW) {
+            return 0;
+        }
+        return Math.min(unitPrice * GE_TAX_PERCENT / 100, GE_TAX_CAP);
+    }
+
+    /**
+     * Apply a journal record. Package-private for testing.
+     */
+    void onRecord(TradeRecord record) {
+        TradeFill fill = fillTracker.apply(record);
+        if (fill == null) {
+            return;
+        }
+
+        ItemLedger ledger = ledgers.computeIfAbsent(fill.getItemId(), id -> new ItemLedger());
+        if (fill.isBuy()) {
+            ledger.lots.addLast(new long[]{fill.getQuantity(), fill.getGp()});
+            return;
+        }
+
+        long profit = ledger.sell(fill);
+        log.debug("Realized {} gp selling {} x item {}", profit, fill.getQuantity(), fill.getItemId());
+        totalProfit += profit;
+        if (fill.getTimestamp() >= sessionStart) {
+            sessionProfit += profit;
+        }
+
+        Runnable listener = updateListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Open buy lots and running totals for one item.
+     * Written only from the journal thread; the totals are read from other threads.
+     */
+    private static class ItemLedger {
+        // Each lot is {quantity, total cost}
+        private final ArrayDeque<long[]> lots = new ArrayDeque<>();
+        private volatile long realizedProfit;
+        private volatile long realizedQuantity;
+
+        /**
+         * Match a sell fill against the oldest open lots and return the profit.
+         * Sold quantity without a matching buy (bought before the journal existed)
+         * is ignored.
+         */
+        long sell(TradeFill fill) {
+            long unitPrice = fill.getGp() / fill.getQuantity();
+            long tax = geTax(unitPrice);
+
+            long remaining = fill.getQuantity();
+            long matched = 0;
+            long cost = 0;
+            while (remaining > 0 && !lots.isEmpty()) {
+                long[] lot = lots.peekFirst();
+                long take = Math.min(remaining, lot[0]);
+                long lotCost = lot[1] * take / lot[0];
+
+                cost += lotCost;
+                matched += take;
+                remaining -= take;
+
+                lot[0] -= take;
+                lot[1] -= lotCost;
+                if (lot[0] == 0) {
+                    lots.removeFirst();
+                }
+            }
+
+            if (matched == 0) {
+                return 0;
+            }
+
+            long proceeds = fill.getGp() * matched / fill.getQuantity();
+            long profit = proceeds - tax * matched - cost;
+            realizedProfit += profit;
+            realizedQuantity += matched;
+            return profit;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package flippinghelper;
+
+import lombok.EqualsAndHashCode;
+
+import java.util.function.Function;
+
+/**
+ * Built-in ranking strategies.
+ */
+final class RankingStrategies {
+
+    static final RankingStrategy SCORE = of("Score", columns -> columns.score);
+
+    static final RankingStrategy PROFIT = perRow("Profit", (columns, i) -> columns.profit[i]);
+
+    static final RankingStrategy ROI = perRow("ROI", (columns, i) ->
+        columns.buyPrice[i] > 0 ? (double) columns.profit[i] / columns.buyPrice[i] : 0);
+
+    static final RankingStrategy GP_PER_HOUR = of("GP per hour", GpPerHourRanking::compute);
+
+    /**
+     * Margin weighted by the log of the hourly volume, so liquid items with a
+     * decent margin rank above illiquid items with a slightly larger one.
+     */
+    static final RankingStrategy VOLUME_MARGIN = perRow("Volume-weighted margin", (columns, i) ->
+        columns.profit[i] * Math.log1p(columns.hourlyVolume[i]));
+
+    private static final RankingStrategy[] BLEND_COMPONENTS = {SCORE, PROFIT, ROI, GP_PER_HOUR, VOLUME_MARGIN};
+
+    private RankingStrategies() {
+    }
+
+    /**
+     * Strategy for a ranking mode, or null for modes that are not a sort key
+     * (capital allocation).
+     */
+    static RankingStrategy forMode(FlippingHelperConfig.RankingMode mode, FlippingHelperConfig config) {
+        switch (mode) {
+            case SCORE:
+                return SCORE;
+            case PROFIT:
+                return PROFIT;
+            case ROI:
+                return ROI;
+            case GP_PER_HOUR:
+                return GP_PER_HOUR;
+            case VOLUME_MARGIN:
+                return VOLUME_MARGIN;
+            case BLEND:
+                return blend(config.blendScoreWeight(), config.blendProfitWeight(), config.blendRoiWeight(),
+                    config.blendGpPerHourWeight(), config.blendVolumeMarginWeight());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Weighted sum of the percentile ranks of score, profit, ROI, gp per hour
+     * and volume-weighted margin. Percentiles keep one outlier from dominating
+     * a component.
+     */
+    static RankingStrategy blend(double... weights) {
+        if (weights.length != BLEND_COMPONENTS.length) {
+            throw new IllegalArgumentException("Expected " + BLEND_COMPONENTS.length + " weights");
+        }
+        return new Blend(weights.clone());
+    }
+
+    @FunctionalInterface
+    private interface RowKey {
+        double key(ItemColumns columns, int row);
+    }
+
+    /**
+     * Strategy whose key depends only on the row, computed over parallel row ranges.
+     */
+    private static RankingStrategy perRow(String name, RowKey key) {
+        return of(name, columns -> {
+            double[] keys = new double[columns.size];
+            ParallelColumns.forRanges(columns.size, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    keys[i] = key.key(columns, i);
+                }
+            });
+            return keys;
+        });
+    }
+
+    private static RankingStrategy of(String name, Function<ItemColumns, double[]> keys) {
+        return new RankingStrategy() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public double[] computeKeys(ItemColumns columns) {
+                return keys.apply(columns);
+            }
+        };
+    }
+
+    @EqualsAndHashCode
+    private static final class Blend implements RankingStrategy {
+        private final double[] weights;
+
+        Blend(double[] weights) {
+            this.weights = weights;
+        }
+
+        @Override
+        public String getName() {
+            return "Weighted blend";
+        }
+
+        @Override
+        public double[] computeKeys(ItemColumns columns) {
+            int n = columns.size;
+            double[] keys = new double[n];
+            for (int c = 0; c < BLEND_COMPONENTS.length; c++) {
+                double weight = weights[c];
+                if (weight == 0 || n == 0) {
+                    continue;
+                }
+                // Order is cached per component, so blends only re-weight.
+                // Each position maps to a different row, so ranges never write the same key.
+                int[] order = columns.order(BLEND_COMPONENTS[c]);
+                ParallelColumns.forRanges(n, (from, to) -> {
+                    for (int position = from; position < to; position++) {
+                        keys[order[position]] += weight * (n - position) / n;
+                    }
+                });
+            }
+            return keys;
+        }
+    }
+}
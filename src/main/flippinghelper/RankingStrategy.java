@@ -0,0 +1,18 @@
+package flippinghelper;
+
+/**
+ * One way of ordering suggestions.
+ *
+ * A strategy turns the item columns into a key column, higher keys first.
+ * Keys are computed once per fetch and cached on the columns, so switching
+ * between strategies only costs a sort of precomputed keys.
+ */
+interface RankingStrategy {
+
+    String getName();
+
+    /**
+     * Sort key of every row of the columns.
+     */
+    double[] computeKeys(ItemColumns columns);
+}
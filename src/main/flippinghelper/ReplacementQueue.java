@@ -0,0 +1,86 @@
+package flippinghelper;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Candidates to replace a dismissed suggestion, prepared ahead of time.
+ *
+ * Filled from the ranked items after each ranking pass, with their rows
+ * already formatted, so "next item" only pops the head of the queue. The scan
+ * over the ranking resumes where the previous refill stopped and wraps around,
+ * so items skipped while in cooldown are found again on a later pass.
+ */
+final class ReplacementQueue {
+
+    private final int capacity;
+    private final int lowWater;
+
+    private List<FlippingItem> candidates = Collections.emptyList();
+    private int cursor;
+    private final ArrayDeque<SuggestionRowModel> queue = new ArrayDeque<>();
+    private final Set<String> queuedIds = new HashSet<>();
+
+    /**
+     * @param capacity rows kept ready after a refill
+     * @param lowWater queue size below which a refill is due
+     */
+    ReplacementQueue(int capacity, int lowWater) {
+        this.capacity = capacity;
+        this.lowWater = lowWater;
+    }
+
+    /**
+     * Drop the queued rows and take candidates from a new ranking, best first.
+     */
+    synchronized void reset(List<FlippingItem> ranked) {
+        candidates = ranked;
+        cursor = 0;
+        queue.clear();
+        queuedIds.clear();
+    }
+
+    /**
+     * Take the next queued row whose item is still {@code eligible}, or null if
+     * none is left. Rows that are no longer eligible are discarded.
+     */
+    synchronized SuggestionRowModel poll(Predicate<FlippingItem> eligible) {
+        SuggestionRowModel row;
+        while ((row = queue.pollFirst()) != null) {
+            queuedIds.remove(row.getItem().getId());
+            if (eligible.test(row.getItem())) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    synchronized boolean needsRefill() {
+        return queue.size() < lowWater;
+    }
+
+    synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * Queue eligible candidates, formatted with {@code rowModel}, until the queue
+     * is full or every candidate was looked at once.
+     */
+    synchronized void refill(Predicate<FlippingItem> eligible, Function<FlippingItem, SuggestionRowModel> rowModel) {
+        int n = candidates.size();
+        for (int scanned = 0; scanned < n && queue.size() < capacity; scanned++) {
+            FlippingItem item = candidates.get(cursor);
+            cursor = (cursor + 1) % n;
+            if (!queuedIds.contains(item.getId()) && eligible.test(item)) {
+                queue.addLast(rowModel.apply(item));
+                queuedIds.add(item.getId());
+            }
+        }
+    }
+}
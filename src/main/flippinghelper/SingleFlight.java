@@ -0,0 +1,83 @@
+package flippinghelper;
+
+import lombok.Value;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent requests for the same resource into one in-flight request.
+ *
+ * Callers arriving while a request is running share its future instead of
+ * starting another one. Every started request gets a higher generation than
+ * the previous ones, so callers can drop results older than what they already
+ * applied. A request still running after {@code staleAfterMillis} is treated
+ * as obsolete: the next caller cancels it and starts a fresh one.
+ */
+final class SingleFlight<T> {
+
+    @Value
+    static class Flight<T> {
+        long generation;
+        CompletableFuture<T> future;
+        long startedAt;
+    }
+
+    private final long staleAfterMillis;
+    private long generation;
+    private Flight<T> current;
+
+    SingleFlight(long staleAfterMillis) {
+        this.staleAfterMillis = staleAfterMillis;
+    }
+
+    /**
+     * Join the request in flight, or start one. Cancelling the future returned by
+     * {@code request} must cancel the underlying work.
+     */
+    synchronized Flight<T> join(Supplier<CompletableFuture<T>> request) {
+        long now = System.currentTimeMillis();
+        Flight<T> previous = current;
+        if (previous != null && !previous.future.isDone() && now - previous.startedAt < staleAfterMillis) {
+            return previous;
+        }
+        current = new Flight<>(++generation, request.get(), now);
+        if (previous != null) {
+            // Cancelled after the replacement is set, so its callers can move to it
+            previous.future.cancel(true);
+        }
+        return current;
+    }
+
+    /**
+     * The latest request, or null if none was started since the last {@link #cancel()}.
+     */
+    synchronized Flight<T> latest() {
+        return current;
+    }
+
+    /**
+     * Cancel the request in flight, if any.
+     */
+    synchronized void cancel() {
+        if (current != null) {
+            current.future.cancel(true);
+            current = null;
+        }
+    }
+
+    /**
+     * Make cancelling {@code downstream}, a future derived from {@code upstream},
+     * also cancel {@code upstream}; the same when it fails, e.g. on a timeout.
+     * Derived futures do not do that by themselves.
+     */
+    static <U> CompletableFuture<U> cancelling(CompletableFuture<U> downstream, Future<?> upstream) {
+        downstream.whenComplete((result, error) -> {
+            if (error != null) {
+                upstream.cancel(true);
+            }
+        });
+        return downstream;
+    }
+}
@@ -0,0 +1,197 @@
+package flippinghelper;
+
+import lombok.Value;
+import net.runelite.api.GrandExchangeOffer;
+import net.runelite.api.GrandExchangeOfferState;
+import net.runelite.client.util.QuantityFormatter;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Flags active GE offers that are unlikely to fill at their price.
+ *
+ * The price, quantity and last fill of each offer are tracked from offer
+ * events and compared with the latest catalogue prices and volumes. An offer
+ * is stale if nothing filled for much longer than its volume suggests, if the
+ * market moved past its price, or, for a buy, if it no longer leaves a margin.
+ * Offers already active when the plugin starts are timed from then.
+ */
+@Singleton
+public class StaleOfferDetector {
+
+    static final int SLOT_COUNT = 8;
+    static final long MIN_IDLE_MILLIS = 10 * 60_000;
+    // Idle time, relative to the expected fill time, after which an offer is stale
+    static final double GRACE_FACTOR = 2.0;
+    // Share of the traded volume an offer is expected to get
+    static final double VOLUME_SHARE = 0.25;
+    private static final long HOUR_MILLIS = 60 * 60_000;
+
+    /**
+     * An offer to abort, with the price to list it again at.
+     */
+    @Value
+    public static class StaleOffer {
+        int slot;
+        int itemId;
+        boolean buy;
+        long offerPrice;
+        // -1 to abort without relisting, when a buy no longer leaves a margin at any price
+        long relistPrice;
+        String reason;
+
+        public String describe() {
+            return relistPrice < 0 ? "Abort: " + reason
+                : reason + ", relist at " + QuantityFormatter.formatNumber(relistPrice) + " gp";
+        }
+    }
+
+    private static final class TrackedOffer {
+        final int itemId;
+        final boolean buy;
+        final long price;
+        final int total;
+        int filled;
+        long lastFillAt;
+
+        TrackedOffer(int itemId, boolean buy, long price, int total, int filled, long now) {
+            this.itemId = itemId;
+            this.buy = buy;
+            this.price = price;
+            this.total = total;
+            this.filled = filled;
+            this.lastFillAt = now;
+        }
+    }
+
+    private final TrackedOffer[] offers = new TrackedOffer[SLOT_COUNT];
+
+    public void onOfferChanged(int slot, GrandExchangeOffer offer, long now) {
+        onOfferChanged(slot, offer.getItemId(), offer.getState(), offer.getPrice(), offer.getTotalQuantity(),
+            offer.getQuantitySold(), now);
+    }
+
+    /**
+     * Track an offer update. Package-private for testing.
+     */
+    synchronized void onOfferChanged(int slot, int itemId, GrandExchangeOfferState state, long price, int total,
+                                     int filled, long now) {
+        if (slot < 0 || slot >= SLOT_COUNT) {
+            return;
+        }
+        if (state != GrandExchangeOfferState.BUYING && state != GrandExchangeOfferState.SELLING) {
+            offers[slot] = null;
+            return;
+        }
+
+        boolean buy = state == GrandExchangeOfferState.BUYING;
+        TrackedOffer tracked = offers[slot];
+        if (tracked == null || tracked.itemId != itemId || tracked.buy != buy || tracked.price != price
+                || tracked.total != total) {
+            offers[slot] = new TrackedOffer(itemId, buy, price, total, filled, now);
+        } else if (filled > tracked.filled) {
+            tracked.filled = filled;
+            tracked.lastFillAt = now;
+        }
+    }
+
+    /**
+     * The stale offers, given the latest version of each item (null if unknown).
+     */
+    public synchronized List<StaleOffer> check(IntFunction<FlippingItem> items, long now) {
+        List<StaleOffer> stale = new ArrayList<>();
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            TrackedOffer offer = offers[slot];
+            if (offer == null || offer.filled >= offer.total) {
+                continue;
+            }
+            FlippingItem item = items.apply(offer.itemId);
+            if (item == null) {
+                continue;
+            }
+            StaleOffer result = offer.buy ? checkBuy(slot, offer, item, now) : checkSell(slot, offer, item, now);
+            if (result != null) {
+                stale.add(result);
+            }
+        }
+        return stale;
+    }
+
+    private static StaleOffer checkBuy(int slot, TrackedOffer offer, FlippingItem item, long now) {
+        long low = item.getAdjustedLowPrice();
+        long high = item.getAdjustedHighPrice();
+        if (margin(offer.price, high) <= 0) {
+            return buyOffer(slot, offer, low, high, "No margin left at " + QuantityFormatter.formatNumber(offer.price) + " gp");
+        }
+
+        long idle = now - offer.lastFillAt;
+        if (idle < MIN_IDLE_MILLIS) {
+            return null;
+        }
+        if (offer.price < low) {
+            return buyOffer(slot, offer, low, high, "Market buy price rose to " + QuantityFormatter.formatNumber(low) + " gp");
+        }
+        if (idle > GRACE_FACTOR * expectedFillMillis(offer, item)) {
+            return buyOffer(slot, offer, Math.max(low, offer.price + priceStep(offer.price)), high,
+                "No fill for " + minutes(idle));
+        }
+        return null;
+    }
+
+    private static StaleOffer buyOffer(int slot, TrackedOffer offer, long relistPrice, long high, String reason) {
+        return new StaleOffer(slot, offer.itemId, true, offer.price,
+            margin(relistPrice, high) > 0 ? relistPrice : -1, reason);
+    }
+
+    private static StaleOffer checkSell(int slot, TrackedOffer offer, FlippingItem item, long now) {
+        long idle = now - offer.lastFillAt;
+        if (idle < MIN_IDLE_MILLIS) {
+            return null;
+        }
+
+        long high = item.getAdjustedHighPrice();
+        if (offer.price > high) {
+            return new StaleOffer(slot, offer.itemId, false, offer.price, high,
+                "Market sell price fell to " + QuantityFormatter.formatNumber(high) + " gp");
+        }
+        if (idle > GRACE_FACTOR * expectedFillMillis(offer, item)) {
+            return new StaleOffer(slot, offer.itemId, false, offer.price,
+                Math.max(1, offer.price - priceStep(offer.price)), "No fill for " + minutes(idle));
+        }
+        return null;
+    }
+
+    /**
+     * Profit per item of buying at {@code buyPrice} and selling at {@code sellPrice}, after tax.
+     */
+    private static long margin(long buyPrice, long sellPrice) {
+        return sellPrice - buyPrice - ProfitTracker.geTax(sellPrice);
+    }
+
+    /**
+     * How long the rest of an offer should take to fill, given the item's volume.
+     */
+    static double expectedFillMillis(int remaining, FlippingItem item) {
+        double hourlyVolume = ItemColumns.hourlyVolume(item);
+        if (hourlyVolume <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return remaining / (hourlyVolume * VOLUME_SHARE) * HOUR_MILLIS;
+    }
+
+    private static double expectedFillMillis(TrackedOffer offer, FlippingItem item) {
+        return expectedFillMillis(offer.total - offer.filled, item);
+    }
+
+    // Smallest price change worth relisting for: 1%, at least 1 gp
+    private static long priceStep(long price) {
+        return Math.max(1, price / 100);
+    }
+
+    private static String minutes(long millis) {
+        return millis / 60_000 + " min";
+    }
+}
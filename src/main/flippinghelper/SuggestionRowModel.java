@@ -0,0 +1,75 @@
+package flippinghelper;
+
+import lombok.Value;
+import net.runelite.client.util.QuantityFormatter;
+
+import java.awt.Color;
+
+/**
+ * The text of one suggestion row, formatted once when a snapshot is built.
+ *
+ * Rows only paint these strings, so updating the panel does no number
+ * formatting or HTML parsing on the EDT.
+ */
+@Value
+public class SuggestionRowModel {
+
+    static final Color PROFIT_COLOR = Color.GREEN;
+    static final Color LOSS_COLOR = Color.RED;
+
+    FlippingItem item;
+
+    // -1 if the item id is not numeric
+    int itemId;
+
+    String name;
+
+    // e.g. "Buy 100"
+    String action;
+
+    String buyPrice;
+
+    String sellPrice;
+
+    String profit;
+
+    // Null if nothing of this item was traded yet
+    String realized;
+
+    Color realizedColor;
+
+    /**
+     * Format an item, with its realized profit from the trade history.
+     */
+    static SuggestionRowModel of(FlippingItem item, ProfitTracker profitTracker) {
+        int itemId;
+        try {
+            itemId = Integer.parseInt(item.getId());
+        } catch (NumberFormatException e) {
+            itemId = -1;
+        }
+
+        String action = "buy".equals(item.getPredictedAction()) ? "Buy" : "Sell";
+
+        // Lucro realizado (histórico de trocas), mostrado ao lado do lucro previsto
+        String realized = null;
+        Color realizedColor = null;
+        if (itemId >= 0 && profitTracker.hasRealizedProfit(itemId)) {
+            long realizedProfit = profitTracker.getItemProfit(itemId);
+            realized = "Realized: " + formatSigned(realizedProfit);
+            realizedColor = realizedProfit >= 0 ? PROFIT_COLOR : LOSS_COLOR;
+        }
+
+        // CORRIGIDO: Buy = Low (comprar baixo), Sell = High (vender alto)
+        return new SuggestionRowModel(item, itemId, item.getName(),
+            action + " " + item.getQuantity(),
+            "Buy: " + QuantityFormatter.formatNumber(item.getAdjustedLowPrice()),
+            "Sell: " + QuantityFormatter.formatNumber(item.getAdjustedHighPrice()),
+            "Profit: +" + QuantityFormatter.formatNumber(item.getProfit()),
+            realized, realizedColor);
+    }
+
+    static String formatSigned(long value) {
+        return (value >= 0 ? "+" : "") + QuantityFormatter.formatNumber(value);
+    }
+}
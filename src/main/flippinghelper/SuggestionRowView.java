@@ -0,0 +1,129 @@
+package flippinghelper;
+
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+ * Paints the text of a suggestion row directly.
+ *
+ * Replaces an HTML label: the lines come preformatted from a
+ * {@link SuggestionRowModel}, so setting a new model only stores it and
+ * repaints. The lines are spread evenly over the height of the component.
+ */
+class SuggestionRowView extends JComponent {
+
+    private static final String ELLIPSIS = "...";
+
+    private SuggestionRowModel model;
+    private Font boldFont;
+    private Font boldFontBase;
+    // Item name shortened to the width it was last painted at
+    private String fittedName;
+    private int fittedWidth = -1;
+
+    SuggestionRowView() {
+        setOpaque(false);
+    }
+
+    /**
+     * Show a row, or nothing if {@code model} is null.
+     */
+    void setModel(SuggestionRowModel model) {
+        if (this.model == model) {
+            return;
+        }
+        if (model == null || this.model == null || !model.getName().equals(this.model.getName())) {
+            fittedWidth = -1;
+        }
+        this.model = model;
+        repaint();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        FontMetrics metrics = getFontMetrics(getFont());
+        return new Dimension(150, metrics.getHeight() * 6);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        SuggestionRowModel row = model;
+        if (row == null) {
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            int lines = row.getRealized() == null ? 5 : 6;
+            int width = getWidth();
+            double lineHeight = getHeight() / (double) lines;
+            FontMetrics metrics = g2.getFontMetrics(getFont());
+            // Baseline offset that centres a line of text in its slot
+            double baseline = (lineHeight - metrics.getHeight()) / 2 + metrics.getAscent();
+            Color foreground = getForeground();
+
+            Font bold = getBoldFont();
+            g2.setFont(bold);
+            g2.setColor(foreground);
+            g2.drawString(fitName(row.getName(), g2.getFontMetrics(bold), width), 0, (int) baseline);
+
+            g2.setFont(getFont());
+            drawLine(g2, row.getAction(), 1, lineHeight, baseline);
+            drawLine(g2, row.getBuyPrice(), 2, lineHeight, baseline);
+            drawLine(g2, row.getSellPrice(), 3, lineHeight, baseline);
+            g2.setColor(SuggestionRowModel.PROFIT_COLOR);
+            drawLine(g2, row.getProfit(), 4, lineHeight, baseline);
+            if (row.getRealized() != null) {
+                g2.setColor(row.getRealizedColor());
+                drawLine(g2, row.getRealized(), 5, lineHeight, baseline);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private static void drawLine(Graphics2D g2, String text, int line, double lineHeight, double baseline) {
+        g2.drawString(text, 0, (int) (line * lineHeight + baseline));
+    }
+
+    private Font getBoldFont() {
+        Font font = getFont();
+        if (boldFont == null || boldFontBase != font) {
+            boldFontBase = font;
+            boldFont = font.deriveFont(Font.BOLD);
+            fittedWidth = -1;
+        }
+        return boldFont;
+    }
+
+    /**
+     * The item name, cut with an ellipsis if it is wider than the component.
+     */
+    private String fitName(String name, FontMetrics metrics, int width) {
+        if (width == fittedWidth) {
+            return fittedName;
+        }
+        fittedWidth = width;
+        fittedName = name;
+        if (metrics.stringWidth(name) > width) {
+            int available = width - metrics.stringWidth(ELLIPSIS);
+            int end = name.length();
+            while (end > 0 && metrics.stringWidth(name.substring(0, end)) > available) {
+                end--;
+            }
+            fittedName = name.substring(0, end) + ELLIPSIS;
+        }
+        return fittedName;
+    }
+}
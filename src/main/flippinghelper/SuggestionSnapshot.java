@@ -0,0 +1,139 @@
+package flippinghelper;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The items of one fetch, filtered and ranked, and the suggestions shown from them.
+ *
+ * Never modified once built: changes create a new snapshot, which the plugin
+ * publishes through an atomic reference. Its items are not modified either;
+ * buy-limit caps and capital allocations are set on copies before they are
+ * published. Readers on any thread therefore see the lists and quantities of a
+ * single fetch and ranking, without locking.
+ */
+@Value
+public class SuggestionSnapshot {
+
+    static final SuggestionSnapshot EMPTY = new SuggestionSnapshot(0, Collections.emptyList(),
+        ItemColumns.of(Collections.emptyList()), Collections.emptyList(), Collections.emptyList(),
+        Collections.emptyList(), Collections.emptySet(), Collections.emptyMap());
+
+    // Increases with every published snapshot
+    long generation;
+
+    // Every fetched item
+    List<FlippingItem> catalogue;
+
+    // The items passing the filters, in score order
+    ItemColumns columns;
+
+    // The items passing the filters, in ranking order
+    List<FlippingItem> ranked;
+
+    // The items shown in the panel, one per row
+    List<FlippingItem> suggestions;
+
+    // The formatted text of each suggestion, in the same order
+    List<SuggestionRowModel> rows;
+
+    // Rows holding the item of the active GE offer in the same slot
+    Set<Integer> pinnedIndices;
+
+    // Every fetched item by item id, so per-tick lookups do not scan the catalogue
+    Map<Integer, FlippingItem> catalogueById;
+
+    static SuggestionSnapshot of(long generation, List<FlippingItem> catalogue, ItemColumns columns,
+                                 List<FlippingItem> ranked, List<FlippingItem> suggestions,
+                                 List<SuggestionRowModel> rows, Set<Integer> pinnedIndices) {
+        return of(generation, catalogue, columns, ranked, suggestions, rows, pinnedIndices, indexById(catalogue));
+    }
+
+    private static SuggestionSnapshot of(long generation, List<FlippingItem> catalogue, ItemColumns columns,
+                                         List<FlippingItem> ranked, List<FlippingItem> suggestions,
+                                         List<SuggestionRowModel> rows, Set<Integer> pinnedIndices,
+                                         Map<Integer, FlippingItem> catalogueById) {
+        return new SuggestionSnapshot(generation,
+            Collections.unmodifiableList(new ArrayList<>(catalogue)),
+            columns,
+            Collections.unmodifiableList(new ArrayList<>(ranked)),
+            Collections.unmodifiableList(new ArrayList<>(suggestions)),
+            Collections.unmodifiableList(new ArrayList<>(rows)),
+            Collections.unmodifiableSet(new HashSet<>(pinnedIndices)),
+            catalogueById);
+    }
+
+    private static Map<Integer, FlippingItem> indexById(List<FlippingItem> catalogue) {
+        Map<Integer, FlippingItem> byId = new HashMap<>(catalogue.size() * 2);
+        for (FlippingItem item : catalogue) {
+            try {
+                // The first item with an id wins, as in a scan of the catalogue
+                byId.putIfAbsent(Integer.parseInt(item.getId()), item);
+            } catch (NumberFormatException e) {
+                // Not an item the game can report
+            }
+        }
+        return Collections.unmodifiableMap(byId);
+    }
+
+    boolean isEmpty() {
+        return suggestions.isEmpty();
+    }
+
+    /**
+     * The fetched item with an item id, or null if it is not in the catalogue.
+     */
+    FlippingItem findCatalogueItem(int itemId) {
+        return catalogueById.get(itemId);
+    }
+
+    /**
+     * Copy with the suggestion of one row replaced.
+     */
+    SuggestionSnapshot withSuggestion(long newGeneration, int index, SuggestionRowModel row, boolean pinned) {
+        List<FlippingItem> newSuggestions = new ArrayList<>(suggestions);
+        newSuggestions.set(index, row.getItem());
+        List<SuggestionRowModel> newRows = new ArrayList<>(rows);
+        newRows.set(index, row);
+        Set<Integer> newPinned = new HashSet<>(pinnedIndices);
+        if (pinned) {
+            newPinned.add(index);
+        } else {
+            newPinned.remove(index);
+        }
+        return of(newGeneration, catalogue, columns, ranked, newSuggestions, newRows, newPinned, catalogueById);
+    }
+
+    /**
+     * Copy with every occurrence of an item (matched by id and action) replaced by a fresh version of it.
+     */
+    SuggestionSnapshot withItemUpdated(long newGeneration, SuggestionRowModel updated) {
+        FlippingItem item = updated.getItem();
+        List<FlippingItem> newColumnItems = replace(Arrays.asList(columns.items), item);
+        List<SuggestionRowModel> newRows = new ArrayList<>(rows);
+        newRows.replaceAll(row -> isSame(row.getItem(), item) ? updated : row);
+        return of(newGeneration, replace(catalogue, item), ItemColumns.of(newColumnItems),
+            replace(ranked, item), replace(suggestions, item), newRows, pinnedIndices);
+    }
+
+    private static List<FlippingItem> replace(List<FlippingItem> items, FlippingItem updated) {
+        List<FlippingItem> result = new ArrayList<>(items);
+        result.replaceAll(item -> isSame(item, updated) ? updated : item);
+        return result;
+    }
+
+    // A sell suggestion and the buy suggestion of the same item are different rows
+    private static boolean isSame(FlippingItem item, FlippingItem updated) {
+        return item.getId().equals(updated.getId())
+            && Objects.equals(item.getPredictedAction(), updated.getPredictedAction());
+    }
+}
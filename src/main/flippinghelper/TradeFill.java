@@ -0,0 +1,87 @@
+package flippinghelper;
+
+import lombok.Value;
+import net.runelite.api.GrandExchangeOfferState;
+
+import java.util.Arrays;
+
+/**
+ * Items bought or sold between two consecutive updates of a GE slot.
+ */
+@Value
+public class TradeFill {
+    long timestamp;
+    int itemId;
+    boolean buy;
+    int quantity;
+    long gp;
+
+    /**
+     * Turns the cumulative per-slot totals of trade records into fills.
+     * The game re-sends the state of every slot on login, so a record only
+     * produces a fill for the quantity that changed since the last record of
+     * the same offer.
+     */
+    static class Tracker {
+        private static final int SLOTS = 8;
+
+        private final int[] itemIds = new int[SLOTS];
+        private final boolean[] buys = new boolean[SLOTS];
+        private final int[] prices = new int[SLOTS];
+        private final int[] totalQuantities = new int[SLOTS];
+        private final int[] filled = new int[SLOTS];
+        private final long[] spent = new long[SLOTS];
+
+        Tracker() {
+            reset();
+        }
+
+        /**
+         * Forget the state of every slot.
+         */
+        void reset() {
+            Arrays.fill(itemIds, -1);
+        }
+
+        /**
+         * Apply a record and return the fill it represents, or null if nothing changed.
+         */
+        TradeFill apply(TradeRecord record) {
+            int slot = record.getSlot();
+            if (slot < 0 || slot >= SLOTS) {
+                return null;
+            }
+
+            if (record.getState() == GrandExchangeOfferState.EMPTY) {
+                itemIds[slot] = -1;
+                return null;
+            }
+
+            boolean buy = record.isBuy();
+            boolean sameOffer = itemIds[slot] == record.getItemId()
+                && buys[slot] == buy
+                && prices[slot] == record.getPrice()
+                && totalQuantities[slot] == record.getTotalQuantity()
+                && filled[slot] <= record.getQuantityFilled()
+                && spent[slot] <= record.getSpent();
+
+            int previousFilled = sameOffer ? filled[slot] : 0;
+            long previousSpent = sameOffer ? spent[slot] : 0;
+
+            itemIds[slot] = record.getItemId();
+            buys[slot] = buy;
+            prices[slot] = record.getPrice();
+            totalQuantities[slot] = record.getTotalQuantity();
+            filled[slot] = record.getQuantityFilled();
+            spent[slot] = record.getSpent();
+
+            int quantity = record.getQuantityFilled() - previousFilled;
+            if (quantity <= 0) {
+                return null;
+            }
+
+            return new TradeFill(record.getTimestamp(), record.getItemId(), buy, quantity,
+                record.getSpent() - previousSpent);
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package flippinghelper;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.GrandExchangeOffer;
+import net.runelite.api.GrandExchangeOfferState;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Append-only binary journal of GE offer updates, one per account.
+ *
+ * Records have a fixed size and are written to memory-mapped segment files on a
+ * dedicated thread, so the client thread only pays for building the record and
+ * queueing it. Segments are forced to disk periodically instead of on every write.
+ *
+ * Each account has its own directory, opened when the account logs in. The
+ * client that opens it takes a lock on it; another client running the same
+ * account meanwhile only reads it.
+ */
+@Slf4j
+@Singleton
+public class TradeJournal {
+
+    static final int RECORD_SIZE = 40;
+    static final int RECORDS_PER_SEGMENT = 16384;
+
+    private static final int MAGIC = 0x46484a31; // "FHJ1"
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    private static final long SEGMENT_SIZE = HEADER_SIZE + (long) RECORD_SIZE * RECORDS_PER_SEGMENT;
+    private static final long FSYNC_INTERVAL_SECONDS = 5;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String LOCK_FILE = "journal.lock";
+    private static final long NO_ACCOUNT = -1;
+
+    // Stable on-disk codes for offer states, independent of the enum declaration order
+    private static final GrandExchangeOfferState[] STATE_CODES = {
+        GrandExchangeOfferState.EMPTY,
+        GrandExchangeOfferState.BUYING,
+        GrandExchangeOfferState.BOUGHT,
+        GrandExchangeOfferState.CANCELLED_BUY,
+        GrandExchangeOfferState.SELLING,
+        GrandExchangeOfferState.SOLD,
+        GrandExchangeOfferState.CANCELLED_SELL
+    };
+
+    private final File root;
+    private final List<Consumer<TradeRecord>> listeners = new CopyOnWriteArrayList<>();
+    // Listeners added by replayAndListen, fed every record again when another account is opened
+    private final List<Consumer<TradeRecord>> replayListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> resetListeners = new CopyOnWriteArrayList<>();
+
+    private volatile ScheduledExecutorService executor;
+    // Account last asked for on the client thread, to skip requests for the open one
+    private volatile long requestedAccount = NO_ACCOUNT;
+
+    // Only touched from the journal thread
+    private long account = NO_ACCOUNT;
+    // Directory of the open account, null while none is open
+    private File directory;
+    private FileChannel lockChannel;
+    private boolean readOnly;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int segmentRecords;
+    private boolean dirty;
+
+    @Inject
+    public TradeJournal() {
+        this(new File(FlippingHelperPlugin.DATA_DIR, "journal"));
+    }
+
+    TradeJournal(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Start the journal thread. Records are written once an account is opened.
+     */
+    public void startUp() {
+        if (executor != null) {
+            return;
+        }
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "flipping-helper-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, FSYNC_INTERVAL_SECONDS, FSYNC_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        this.executor = executor;
+    }
+
+    /**
+     * Flush pending records and stop the journal thread.
+     */
+    public void shutDown() {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+        this.executor = null;
+        requestedAccount = NO_ACCOUNT;
+
+        executor.execute(() -> {
+            close();
+            account = NO_ACCOUNT;
+            listeners.clear();
+            replayListeners.clear();
+            resetListeners.clear();
+        });
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                log.warn("Trade journal did not shut down in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Open the journal of an account, replaying it to the listeners added by
+     * {@link #replayAndListen} if another account was open. Records appended
+     * before an account is open are dropped.
+     */
+    public void openAccount(long accountHash) {
+        if (accountHash == NO_ACCOUNT || accountHash == requestedAccount) {
+            return;
+        }
+        requestedAccount = accountHash;
+        submit(() -> open(accountHash));
+    }
+
+    /**
+     * Flush and close the open journal, e.g. on logout, so another client can
+     * write it. Opening the same account again does not replay it.
+     */
+    public void release() {
+        requestedAccount = NO_ACCOUNT;
+        submit(this::close);
+    }
+
+    /**
+     * Register a listener for new records.
+     * Listeners are called on the journal thread, after the record was written.
+     */
+    public void addListener(Consumer<TradeRecord> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<TradeRecord> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Append the current state of a GE slot to the journal.
+     * Safe to call from the client thread: the write happens on the journal thread.
+     */
+    public void append(int slot, GrandExchangeOffer offer) {
+        append(new TradeRecord(
+            System.currentTimeMillis(),
+            slot,
+            offer.getItemId(),
+            offer.getState(),
+            offer.getPrice(),
+            offer.getTotalQuantity(),
+            offer.getQuantitySold(),
+            offer.getSpent()));
+    }
+
+    void append(TradeRecord record) {
+        submit(() -> write(record));
+    }
+
+    /**
+     * Reset the consumer, feed it every record in the journal of the open
+     * account, oldest first, then keep feeding it new records as they are
+     * written. When another account is opened, it is reset and fed that
+     * account's records the same way.
+     * Every step runs on the journal thread, so no record is delivered twice or
+     * out of order.
+     */
+    public void replayAndListen(Consumer<TradeRecord> consumer, Runnable reset) {
+        submit(() -> {
+            reset.run();
+            if (directory != null) {
+                readAll(consumer);
+            }
+            listeners.add(consumer);
+            replayListeners.add(consumer);
+            resetListeners.add(reset);
+        });
+    }
+
+    private void submit(Runnable task) {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Trade journal is shutting down, dropping task");
+        }
+    }
+
+    private void write(TradeRecord record) {
+        if (directory == null) {
+            log.debug("No account open, dropping journal record for slot {}", record.getSlot());
+            return;
+        }
+
+        if (segment != null && segmentRecords == RECORDS_PER_SEGMENT) {
+            flush();
+            closeSegment();
+            openSegment(segmentIndex + 1);
+        }
+
+        if (segment != null) {
+            encode(segment, HEADER_SIZE + segmentRecords * RECORD_SIZE, record);
+            segmentRecords++;
+            dirty = true;
+        }
+
+        for (Consumer<TradeRecord> listener : listeners) {
+            try {
+                listener.accept(record);
+            } catch (RuntimeException e) {
+                log.warn("Trade journal listener failed", e);
+            }
+        }
+    }
+
+    private void readAll(Consumer<TradeRecord> consumer) {
+        int[] indices = listSegmentIndices();
+        for (int index : indices) {
+            if (segment != null && index == segmentIndex) {
+                readRecords(segment, segmentRecords, consumer);
+                continue;
+            }
+
+            try (FileChannel in = FileChannel.open(segmentFile(index).toPath(), StandardOpenOption.READ)) {
+                long size = Math.min(in.size(), SEGMENT_SIZE);
+                if (size < HEADER_SIZE) {
+                    continue;
+                }
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (!isValidHeader(buffer)) {
+                    log.warn("Skipping journal segment {} with unknown header", index);
+                    continue;
+                }
+                int count = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+                readRecords(buffer, count, consumer);
+            } catch (IOException e) {
+                log.warn("Failed to read journal segment {}", index, e);
+            }
+        }
+    }
+
+    private void readRecords(ByteBuffer buffer, int count, Consumer<TradeRecord> consumer) {
+        for (int i = 0; i < count; i++) {
+            TradeRecord record = decode(buffer, HEADER_SIZE + i * RECORD_SIZE);
+            if (record == null) {
+                break;
+            }
+            consumer.accept(record);
+        }
+    }
+
+    private void open(long accountHash) {
+        if (accountHash == account && directory != null) {
+            return;
+        }
+        close();
+
+        boolean changed = accountHash != account;
+        account = accountHash;
+        directory = new File(root, Long.toString(accountHash));
+        try {
+            if (!directory.exists()) {
+                adoptSharedSegments();
+            }
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+            readOnly = !lock();
+        } catch (IOException e) {
+            log.warn("Failed to lock the trade journal, trades will not be recorded", e);
+            readOnly = true;
+        }
+        if (readOnly) {
+            log.warn("Trade journal of this account is open in another client, trades will not be recorded here");
+        } else {
+            openLatestSegment();
+        }
+
+        if (changed) {
+            resetListeners.forEach(Runnable::run);
+            replayListeners.forEach(this::readAll);
+        }
+    }
+
+    /**
+     * Take the lock of the account directory. False if another client holds it.
+     */
+    private boolean lock() throws IOException {
+        lockChannel = FileChannel.open(new File(directory, LOCK_FILE).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another journal of this process
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            lockChannel = null;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Move segments written before journals were kept per account to the first
+     * account opened.
+     */
+    private void adoptSharedSegments() throws IOException {
+        File[] shared = root.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (shared == null || shared.length == 0 || !directory.mkdirs()) {
+            return;
+        }
+        for (File file : shared) {
+            Files.move(file.toPath(), new File(directory, file.getName()).toPath());
+        }
+        log.info("Moved {} journal segments to the journal of this account", shared.length);
+    }
+
+    private void openLatestSegment() {
+        int[] indices = listSegmentIndices();
+        openSegment(indices.length == 0 ? 0 : indices[indices.length - 1]);
+    }
+
+    private void openSegment(int index) {
+        File file = segmentFile(index);
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+
+            channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+            segmentIndex = index;
+
+            if (segment.getInt(0) == 0) {
+                segment.putInt(0, MAGIC);
+                segment.putInt(4, VERSION);
+                segment.putInt(8, RECORD_SIZE);
+                segmentRecords = 0;
+            } else if (isValidHeader(segment)) {
+                segmentRecords = findWriteIndex(segment);
+            } else {
+                log.warn("Journal segment {} has an unknown header, starting a new segment", index);
+                closeSegment();
+                openSegment(index + 1);
+                return;
+            }
+
+            log.debug("Opened journal segment {} with {} records", index, segmentRecords);
+        } catch (IOException e) {
+            log.warn("Failed to open journal segment {}, trades will not be recorded", file, e);
+            closeSegment();
+        }
+    }
+
+    private void flush() {
+        if (segment != null && dirty) {
+            segment.force();
+            dirty = false;
+        }
+    }
+
+    private void close() {
+        flush();
+        closeSegment();
+        directory = null;
+        readOnly = false;
+        if (lockChannel != null) {
+            try {
+                // Releases the lock
+                lockChannel.close();
+            } catch (IOException e) {
+                log.debug("Failed to release the trade journal lock", e);
+            }
+            lockChannel = null;
+        }
+    }
+
+    private void closeSegment() {
+        segment = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close journal segment", e);
+            }
+            channel = null;
+        }
+    }
+
+    private int[] listSegmentIndices() {
+        if (directory == null) {
+            return new int[0];
+        }
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new int[0];
+        }
+
+        return Arrays.stream(files)
+            .map(File::getName)
+            .map(name -> name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))
+            .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+            .mapToInt(Integer::parseInt)
+            .sorted()
+            .toArray();
+    }
+
+    private File segmentFile(int index) {
+        return new File(directory, String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static boolean isValidHeader(ByteBuffer buffer) {
+        return buffer.getInt(0) == MAGIC
+            && buffer.getInt(4) == VERSION
+            && buffer.getInt(8) == RECORD_SIZE;
+    }
+
+    /**
+     * Records are written sequentially, so the written ones form a prefix of the
+     * segment and the first free slot can be found with a binary search.
+     */
+    static int findWriteIndex(ByteBuffer buffer) {
+        int low = 0;
+        int high = RECORDS_PER_SEGMENT;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(HEADER_SIZE + mid * RECORD_SIZE) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static void encode(ByteBuffer buffer, int offset, TradeRecord record) {
+        buffer.putInt(offset + 8, record.getItemId());
+        buffer.putInt(offset + 12, record.getPrice());
+        buffer.putInt(offset + 16, record.getTotalQuantity());
+        buffer.putInt(offset + 20, record.getQuantityFilled());
+        buffer.putLong(offset + 24, record.getSpent());
+        buffer.put(offset + 32, (byte) record.getSlot());
+        buffer.put(offset + 33, (byte) stateCode(record.getState()));
+        // The timestamp goes last: a non-zero timestamp marks the record as complete
+        buffer.putLong(offset, record.getTimestamp());
+    }
+
+    static TradeRecord decode(ByteBuffer buffer, int offset) {
+        long timestamp = buffer.getLong(offset);
+        if (timestamp == 0) {
+            return null;
+        }
+
+        int stateCode = buffer.get(offset + 33);
+        GrandExchangeOfferState state = stateCode >= 0 && stateCode < STATE_CODES.length
+            ? STATE_CODES[stateCode]
+            : GrandExchangeOfferState.EMPTY;
+
+        return new TradeRecord(
+            timestamp,
+            buffer.get(offset + 32),
+            buffer.getInt(offset + 8),
+            state,
+            buffer.getInt(offset + 12),
+            buffer.getInt(offset + 16),
+            buffer.getInt(offset + 20),
+            buffer.getLong(offset + 24));
+    }
+
+    private static int stateCode(GrandExchangeOfferState state) {
+        for (int i = 0; i < STATE_CODES.length; i++) {
+            if (STATE_CODES[i] == state) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
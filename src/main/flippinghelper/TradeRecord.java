@@ -0,0 +1,38 @@
+package flippinghelper;
+
+import lombok.Value;
+import net.runelite.api.GrandExchangeOfferState;
+
+/**
+ * One entry of the trade journal: the state of a GE slot as reported by a
+ * GrandExchangeOfferChanged event.
+ */
+@Value
+public class TradeRecord {
+    long timestamp;
+    int slot;
+    int itemId;
+    GrandExchangeOfferState state;
+    int price;
+    int totalQuantity;
+    int quantityFilled;
+    long spent;
+
+    /**
+     * Check if this record belongs to a buy offer.
+     */
+    public boolean isBuy() {
+        return state == GrandExchangeOfferState.BUYING
+            || state == GrandExchangeOfferState.BOUGHT
+            || state == GrandExchangeOfferState.CANCELLED_BUY;
+    }
+
+    /**
+     * Check if this record belongs to a sell offer.
+     */
+    public boolean isSell() {
+        return state == GrandExchangeOfferState.SELLING
+            || state == GrandExchangeOfferState.SOLD
+            || state == GrandExchangeOfferState.CANCELLED_SELL;
+    }
+}
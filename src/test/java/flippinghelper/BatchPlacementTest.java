@@ -0,0 +1,86 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class BatchPlacementTest {
+
+    private final BatchPlacement batch = new BatchPlacement();
+
+    private static BatchPlacement.Offer offer(int itemId, int quantity, int price) {
+        FlippingItem item = new FlippingItem();
+        item.setId(String.valueOf(itemId));
+        item.setName("Item " + itemId);
+        return new BatchPlacement.Offer(item, itemId, quantity, price);
+    }
+
+    @Test
+    public void testEmptyBatchIsDone() {
+        batch.start(Collections.emptyList());
+        assertFalse(batch.isActive());
+        assertNull(batch.current());
+        assertEquals(BatchPlacement.Step.DONE, batch.update(-1, -1, 0, 0));
+    }
+
+    @Test
+    public void testStepsFollowOfferState() {
+        batch.start(Collections.singletonList(offer(10, 100, 500)));
+        assertEquals(BatchPlacement.Step.SELECT_SLOT, batch.getStep());
+
+        assertEquals(BatchPlacement.Step.SELECT_SLOT, batch.update(-1, -1, 0, 0));
+        assertEquals(BatchPlacement.Step.SELECT_ITEM, batch.update(2, -1, 0, 0));
+        assertEquals(BatchPlacement.Step.SELECT_ITEM, batch.update(2, 11, 1, 480));
+        assertEquals(BatchPlacement.Step.SET_QUANTITY, batch.update(2, 10, 1, 480));
+        assertEquals(BatchPlacement.Step.SET_PRICE, batch.update(2, 10, 100, 480));
+        assertEquals(BatchPlacement.Step.CONFIRM, batch.update(2, 10, 100, 500));
+
+        // Going back to the home screen without confirming
+        assertEquals(BatchPlacement.Step.SELECT_SLOT, batch.update(-1, -1, 0, 0));
+    }
+
+    @Test
+    public void testPlacedOfferMovesToNext() {
+        batch.start(Arrays.asList(offer(10, 100, 500), offer(20, 5, 9000)));
+
+        assertFalse(batch.onOfferPlaced(20));
+        assertEquals(10, batch.current().getItemId());
+
+        assertTrue(batch.onOfferPlaced(10));
+        assertEquals(20, batch.current().getItemId());
+        assertEquals(BatchPlacement.Step.SELECT_SLOT, batch.getStep());
+
+        assertTrue(batch.onOfferPlaced(20));
+        assertFalse(batch.isActive());
+        assertNull(batch.current());
+    }
+
+    @Test
+    public void testSkipAndCancel() {
+        batch.start(Arrays.asList(offer(10, 100, 500), offer(20, 5, 9000), offer(30, 1, 1)));
+
+        batch.skip();
+        assertEquals(20, batch.current().getItemId());
+
+        batch.cancel();
+        assertFalse(batch.isActive());
+        batch.skip();
+        assertFalse(batch.isActive());
+    }
+
+    @Test
+    public void testDescribe() {
+        batch.start(Arrays.asList(offer(10, 100, 500), offer(20, 5, 9000)));
+        assertEquals("Batch 1/2: open an empty slot for Item 10", batch.describe());
+
+        batch.update(0, 10, 100, 1);
+        assertEquals("Batch 1/2: set the price of Item 10", batch.describe());
+
+        batch.onOfferPlaced(10);
+        batch.onOfferPlaced(20);
+        assertEquals("Batch done", batch.describe());
+    }
+}
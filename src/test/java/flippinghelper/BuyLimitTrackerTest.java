@@ -0,0 +1,122 @@
+package flippinghelper;
+
+import net.runelite.api.GrandExchangeOfferState;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BuyLimitTrackerTest {
+
+    private static final int ITEM_ID = 4151;
+    private static final int UNKNOWN_LIMIT_ID = 995;
+    private static final int LIMIT = 70;
+
+    private BuyLimitTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new BuyLimitTracker(null, itemId -> itemId == ITEM_ID ? LIMIT : 0);
+    }
+
+    private void buy(int slot, long timestamp, int itemId, int total, int filled) {
+        tracker.onRecord(new TradeRecord(timestamp, slot, itemId, GrandExchangeOfferState.BUYING,
+            1_000, total, filled, 1_000L * filled));
+    }
+
+    private static FlippingItem item(int itemId, String action, int quantity) {
+        FlippingItem item = new FlippingItem();
+        item.setId(String.valueOf(itemId));
+        item.setPredictedAction(action);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    @Test
+    public void testFillsExpireAfterTheWindow() {
+        long start = 1_000_000;
+        buy(0, start, ITEM_ID, 50, 20);
+        buy(0, start + 60_000, ITEM_ID, 50, 30);
+        buy(1, start + 120_000, ITEM_ID, 10, 10);
+
+        // 20, then 10 more in the same offer, then 10 in another slot
+        assertEquals(40, tracker.getBoughtInWindow(ITEM_ID, start + 120_000));
+        assertEquals(30, tracker.getRemainingLimit(ITEM_ID, start + 120_000));
+
+        // Each fill counts for four hours after it happened
+        long window = BuyLimitTracker.WINDOW_MILLIS;
+        assertEquals(40, tracker.getBoughtInWindow(ITEM_ID, start + window - 1));
+        assertEquals(20, tracker.getBoughtInWindow(ITEM_ID, start + window));
+        assertEquals(10, tracker.getBoughtInWindow(ITEM_ID, start + 60_000 + window));
+        assertEquals(0, tracker.getBoughtInWindow(ITEM_ID, start + 120_000 + window));
+        assertEquals(LIMIT, tracker.getRemainingLimit(ITEM_ID, start + 120_000 + window));
+    }
+
+    @Test
+    public void testOnlyBuysCount() {
+        long now = System.currentTimeMillis();
+        tracker.onRecord(new TradeRecord(now, 0, ITEM_ID, GrandExchangeOfferState.SELLING, 1_000, 50, 50, 50_000));
+        buy(1, now, ITEM_ID, 5, 5);
+        // The same state reported again is not a new fill
+        buy(1, now + 1, ITEM_ID, 5, 5);
+        assertEquals(5, tracker.getBoughtInWindow(ITEM_ID, now + 1));
+    }
+
+    @Test
+    public void testRemainingLimitIsNeverNegative() {
+        long now = System.currentTimeMillis();
+        buy(0, now, ITEM_ID, 100, 100);
+        assertEquals(0, tracker.getRemainingLimit(ITEM_ID, now));
+        assertEquals(-1, tracker.getRemainingLimit(UNKNOWN_LIMIT_ID, now));
+    }
+
+    @Test
+    public void testCap() {
+        buy(0, System.currentTimeMillis(), ITEM_ID, 50, 50);
+
+        FlippingItem item = item(ITEM_ID, "buy", 100);
+        FlippingItem capped = tracker.withCap(item);
+        assertNotSame(item, capped);
+        assertEquals("The item is not modified", 100, item.getQuantity());
+        assertEquals(LIMIT - 50, capped.getQuantity());
+        assertEquals(Integer.valueOf(100), capped.getApiQuantity());
+        // Capping again starts from the API quantity
+        assertEquals(LIMIT - 50, tracker.withCap(capped).getQuantity());
+
+        FlippingItem small = item(ITEM_ID, "buy", 5);
+        assertSame(small, tracker.withCap(small));
+
+        FlippingItem allocated = item(ITEM_ID, "buy", 100);
+        allocated.setAllocatedQuantity(3);
+        assertEquals(3, tracker.getCappedQuantity(allocated));
+
+        FlippingItem sell = item(ITEM_ID, "sell", 100);
+        assertSame(sell, tracker.withCap(sell));
+
+        FlippingItem unknown = item(UNKNOWN_LIMIT_ID, "buy", 100);
+        assertSame(unknown, tracker.withCap(unknown));
+    }
+
+    @Test
+    public void testLimitReached() {
+        FlippingItem item = item(ITEM_ID, "buy", 100);
+        assertFalse(tracker.isLimitReached(item));
+
+        buy(0, System.currentTimeMillis(), ITEM_ID, LIMIT, LIMIT);
+        assertTrue(tracker.isLimitReached(item));
+        assertTrue(tracker.isLimitReached(tracker.withCap(item)));
+        assertFalse("Sells are never capped", tracker.isLimitReached(item(ITEM_ID, "sell", 100)));
+        assertFalse(tracker.isLimitReached(item(UNKNOWN_LIMIT_ID, "buy", 100)));
+    }
+
+    @Test
+    public void testReset() {
+        buy(0, System.currentTimeMillis(), ITEM_ID, 50, 50);
+        tracker.reset();
+        assertEquals(0, tracker.getBoughtInWindow(ITEM_ID, System.currentTimeMillis()));
+
+        // The slot state is forgotten too, so the same offer counts again
+        buy(0, System.currentTimeMillis(), ITEM_ID, 50, 50);
+        assertEquals(50, tracker.getBoughtInWindow(ITEM_ID, System.currentTimeMillis()));
+    }
+}
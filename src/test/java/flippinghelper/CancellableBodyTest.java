@@ -0,0 +1,61 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.Flow;
+
+import static org.junit.Assert.*;
+
+public class CancellableBodyTest {
+
+    private static class FakeSubscription implements Flow.Subscription {
+        boolean cancelled;
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static FlippingApiClient.CancellableBody<String> body() {
+        return new FlippingApiClient.CancellableBody<>(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCancelStopsTheDownload() {
+        FlippingApiClient.CancellableBody<String> body = body();
+        FakeSubscription subscription = new FakeSubscription();
+        body.onSubscribe(subscription);
+        assertFalse(subscription.cancelled);
+
+        body.cancel();
+        assertTrue(subscription.cancelled);
+    }
+
+    @Test
+    public void testCancelBeforeHeadersDropsTheResponse() {
+        FlippingApiClient.CancellableBody<String> body = body();
+        body.cancel();
+
+        FakeSubscription subscription = new FakeSubscription();
+        body.onSubscribe(subscription);
+        assertTrue(subscription.cancelled);
+    }
+
+    @Test
+    public void testBodyIsPassedThrough() throws Exception {
+        FlippingApiClient.CancellableBody<String> body = body();
+        body.onSubscribe(new FakeSubscription());
+        body.onNext(Collections.singletonList(ByteBuffer.wrap("[]".getBytes(StandardCharsets.UTF_8))));
+        body.onComplete();
+        assertEquals("[]", body.getBody().toCompletableFuture().get());
+    }
+}
@@ -0,0 +1,194 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CapitalAllocatorTest {
+
+    private static FlippingItem item(int id, long price, long profit, int quantity, int hourlyVolume) {
+        FlippingItem item = new FlippingItem();
+        item.setId(String.valueOf(id));
+        item.setName("Item " + id);
+        item.setAdjustedLowPrice(price);
+        item.setProfit(profit);
+        item.setQuantity(quantity);
+        item.setMedianHourlyVolume(hourlyVolume);
+        return item;
+    }
+
+    private static long cap(FlippingItem item) {
+        return Math.min(item.getQuantity(), CapitalAllocator.fillableQuantity(item));
+    }
+
+    private static long totalProfit(List<CapitalAllocator.Allocation> allocations) {
+        return allocations.stream().mapToLong(CapitalAllocator.Allocation::getExpectedProfit).sum();
+    }
+
+    private static void assertValid(List<CapitalAllocator.Allocation> allocations, long budget, int slots) {
+        assertTrue(allocations.size() <= slots);
+        long cost = 0;
+        Set<FlippingItem> items = new HashSet<>();
+        for (CapitalAllocator.Allocation allocation : allocations) {
+            FlippingItem item = allocation.getItem();
+            assertTrue("Each item once", items.add(item));
+            assertTrue(allocation.getQuantity() > 0);
+            assertTrue(allocation.getQuantity() <= cap(item));
+            assertEquals(item.getProfit() * allocation.getQuantity(), allocation.getExpectedProfit());
+            cost += item.getAdjustedLowPrice() * allocation.getQuantity();
+        }
+        assertTrue("Within budget", cost <= budget);
+        for (int i = 1; i < allocations.size(); i++) {
+            assertTrue(allocations.get(i - 1).getExpectedProfit() >= allocations.get(i).getExpectedProfit());
+        }
+    }
+
+    /**
+     * Best profit over every subset of at most {@code slots} items, each taking the
+     * largest quantity that fits, in the allocator's profit/cost order.
+     */
+    private static long bruteForce(List<FlippingItem> items, long budget, int slots) {
+        List<FlippingItem> usable = new ArrayList<>();
+        for (FlippingItem item : items) {
+            if (item.getAdjustedLowPrice() > 0 && item.getProfit() > 0 && cap(item) > 0
+                    && item.getAdjustedLowPrice() <= budget) {
+                usable.add(item);
+            }
+        }
+        // Same stable sorts as the allocator, so items with equal ratios are taken in the same order
+        usable.sort(Comparator.comparingLong((FlippingItem item) ->
+            item.getProfit() * Math.min(cap(item), budget / item.getAdjustedLowPrice())).reversed());
+        usable.sort(Comparator.comparingDouble((FlippingItem item) ->
+            (double) item.getProfit() / item.getAdjustedLowPrice()).reversed());
+
+        long best = 0;
+        for (int mask = 0; mask < 1 << usable.size(); mask++) {
+            if (Integer.bitCount(mask) > slots) {
+                continue;
+            }
+            long left = budget;
+            long profit = 0;
+            for (int i = 0; i < usable.size(); i++) {
+                if ((mask & 1 << i) == 0) {
+                    continue;
+                }
+                FlippingItem item = usable.get(i);
+                long quantity = Math.min(cap(item), left / item.getAdjustedLowPrice());
+                left -= quantity * item.getAdjustedLowPrice();
+                profit += quantity * item.getProfit();
+            }
+            best = Math.max(best, profit);
+        }
+        return best;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            int count = 1 + random.nextInt(12);
+            List<FlippingItem> items = new ArrayList<>();
+            for (int id = 0; id < count; id++) {
+                long price = 1 + random.nextInt(5_000);
+                long profit = random.nextInt(10) == 0 ? -random.nextInt(50) : random.nextInt(500);
+                items.add(item(id, price, profit, 1 + random.nextInt(2_000), random.nextInt(5_000)));
+            }
+            long budget = random.nextInt(2_000_000);
+            int slots = random.nextInt(9);
+
+            List<CapitalAllocator.Allocation> allocations = CapitalAllocator.allocate(items, budget, slots);
+            assertValid(allocations, budget, slots);
+            assertEquals("Round " + round, bruteForce(items, budget, slots), totalProfit(allocations));
+        }
+    }
+
+    @Test
+    public void testNothingToAllocate() {
+        List<FlippingItem> items = new ArrayList<>();
+        items.add(item(1, 1_000, 100, 100, 1_000));
+        assertTrue(CapitalAllocator.allocate(items, 0, 8).isEmpty());
+        assertTrue(CapitalAllocator.allocate(items, 1_000_000, 0).isEmpty());
+        assertTrue("Too expensive", CapitalAllocator.allocate(items, 999, 8).isEmpty());
+
+        items.set(0, item(1, 1_000, 100, 100, 0));
+        assertTrue("Nothing fills", CapitalAllocator.allocate(items, 1_000_000, 8).isEmpty());
+    }
+
+    @Test
+    public void testQuantityLimitedByFillRate() {
+        List<FlippingItem> items = new ArrayList<>();
+        // 100 an hour, 10% of it over 4 hours
+        items.add(item(1, 1_000, 100, 10_000, 100));
+        List<CapitalAllocator.Allocation> allocations = CapitalAllocator.allocate(items, 100_000_000, 8);
+        assertEquals(1, allocations.size());
+        assertEquals(40, allocations.get(0).getQuantity());
+    }
+
+    @Test
+    public void testOnlyBestCandidatesAreSearched() {
+        List<FlippingItem> items = new ArrayList<>();
+        // Best by profit on their own
+        for (int id = 0; id < CapitalAllocator.MAX_CANDIDATES; id++) {
+            items.add(item(id, 1_000, 100, 10, 1_000));
+        }
+        // Better profit per gp, but a single item each: worth less on their own
+        List<FlippingItem> small = new ArrayList<>();
+        for (int id = 0; id < 8; id++) {
+            small.add(item(10_000 + id, 10, 50, 1, 1_000));
+        }
+        items.addAll(small);
+
+        List<CapitalAllocator.Allocation> allocations = CapitalAllocator.allocate(items, 1_000, 8);
+        assertValid(allocations, 1_000, 8);
+        for (CapitalAllocator.Allocation allocation : allocations) {
+            assertFalse("Dropped as a candidate", small.contains(allocation.getItem()));
+        }
+        assertEquals(100, totalProfit(allocations));
+
+        // With fewer items they are considered, and better
+        assertEquals(400, totalProfit(CapitalAllocator.allocate(small, 1_000, 8)));
+    }
+
+    @Test
+    public void testNodeLimitKeepsBestFound() {
+        // Many near-identical candidates with a tight budget make the search exhaust its node limit
+        Random random = new Random(7);
+        List<FlippingItem> items = new ArrayList<>();
+        for (int id = 0; id < CapitalAllocator.MAX_CANDIDATES; id++) {
+            items.add(item(id, 10_000 + random.nextInt(100), 1_000 + random.nextInt(10), 1 + random.nextInt(3), 1_000));
+        }
+        long budget = 75_000;
+        int slots = 8;
+
+        long start = System.nanoTime();
+        List<CapitalAllocator.Allocation> allocations = CapitalAllocator.allocate(items, budget, slots);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertValid(allocations, budget, slots);
+        assertTrue("Took " + millis + " ms", millis < 5_000);
+
+        // The first branch explored takes items greedily in profit/cost order, so the
+        // result is never worse than that
+        List<FlippingItem> byRatio = new ArrayList<>(items);
+        byRatio.sort(Comparator.comparingDouble((FlippingItem item) ->
+            (double) item.getProfit() / item.getAdjustedLowPrice()).reversed());
+        long left = budget;
+        long greedy = 0;
+        int used = 0;
+        for (FlippingItem item : byRatio) {
+            long quantity = Math.min(cap(item), left / item.getAdjustedLowPrice());
+            if (used < slots && quantity > 0) {
+                left -= quantity * item.getAdjustedLowPrice();
+                greedy += quantity * item.getProfit();
+                used++;
+            }
+        }
+        assertTrue(totalProfit(allocations) >= greedy);
+    }
+}
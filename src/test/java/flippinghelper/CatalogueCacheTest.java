@@ -0,0 +1,207 @@
+package flippinghelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CatalogueCacheTest {
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("catalogue-cache").toFile();
+        file = new File(dir, "catalogue.cache");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static List<FlippingItem> items(int count) {
+        List<FlippingItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            FlippingItem item = new FlippingItem();
+            item.setId(String.valueOf(i));
+            item.setName("Item " + i);
+            item.setAdjustedLowPrice(100 + i);
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Test
+    public void testOtherClientSeesPublishedCatalogue() {
+        CatalogueCache writer = new CatalogueCache(file);
+        CatalogueCache reader = new CatalogueCache(file);
+        assertNull(reader.load());
+        assertFalse(reader.hasNewer());
+
+        writer.save(items(3), 1_000);
+        assertTrue(reader.hasNewer());
+        CatalogueCache.CachedCatalogue cached = reader.load();
+        assertEquals(1_000, cached.getFetchedAt());
+        assertEquals(3, cached.getItems().size());
+        assertEquals("Item 2", cached.getItems().get(2).getName());
+        assertFalse(reader.hasNewer());
+
+        // A larger catalogue grows the file the reader has mapped
+        writer.save(items(50_000), 2_000);
+        assertTrue(reader.hasNewer());
+        assertEquals(50_000, reader.load().getItems().size());
+    }
+
+    @Test
+    public void testFreshCatalogueOnlyFromOtherClients() {
+        CatalogueCache writer = new CatalogueCache(file);
+        CatalogueCache reader = new CatalogueCache(file);
+        writer.save(items(1), 1_000);
+
+        assertNull(writer.loadFresh(30_000, 2_000));
+        assertFalse(writer.hasNewer());
+        assertNotNull(reader.loadFresh(30_000, 2_000));
+        assertNull(reader.loadFresh(30_000, 31_000));
+
+        // The unbounded load still returns the catalogue saved here
+        assertNotNull(writer.load());
+        writer.save(Collections.emptyList(), 3_000);
+        assertTrue(reader.load().getItems().isEmpty());
+    }
+
+    @Test
+    public void testReaderNeverSeesPartialWrites() throws InterruptedException {
+        CatalogueCache writer = new CatalogueCache(file);
+        CatalogueCache reader = new CatalogueCache(file);
+        writer.save(items(1), 1);
+
+        Thread writes = new Thread(() -> {
+            for (int round = 0; round < 200; round++) {
+                int count = 1 + round % 50;
+                writer.save(items(count), count);
+            }
+        });
+        writes.start();
+        while (writes.isAlive()) {
+            CatalogueCache.CachedCatalogue cached = reader.load();
+            if (cached != null) {
+                // Each catalogue was saved with its size as the fetch time
+                assertEquals(cached.getFetchedAt(), cached.getItems().size());
+                List<FlippingItem> loaded = cached.getItems();
+                assertEquals("Item " + (loaded.size() - 1), loaded.get(loaded.size() - 1).getName());
+            }
+        }
+        writes.join();
+    }
+
+    /**
+     * Another client: a JVM that takes the fetch lock, prints "locked" (or "busy"
+     * if it could not) and holds it until its input is closed.
+     */
+    public static final class OtherClient {
+        public static void main(String[] args) throws IOException {
+            try (CatalogueCache.FetchLock lock = new CatalogueCache(new File(args[0])).tryLockFetch()) {
+                System.out.println(lock != null ? "locked" : "busy");
+                System.out.flush();
+                while (System.in.read() != -1) {
+                    // Wait for the test to let go
+                }
+            }
+        }
+    }
+
+    private Process startOtherClient() throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+            OtherClient.class.getName(), file.getPath())
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+    }
+
+    private static String firstLine(Process process) throws IOException {
+        return new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)).readLine();
+    }
+
+    private static void stop(Process process) throws IOException, InterruptedException {
+        process.getOutputStream().close();
+        assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testOneClientFetchesAtATime() throws IOException, InterruptedException {
+        CatalogueCache cache = new CatalogueCache(file);
+        Process other = startOtherClient();
+        try {
+            assertEquals("locked", firstLine(other));
+            assertNull(cache.tryLockFetch());
+        } finally {
+            stop(other);
+        }
+
+        CatalogueCache.FetchLock lock = cache.tryLockFetch();
+        assertNotNull(lock);
+        other = startOtherClient();
+        try {
+            assertEquals("busy", firstLine(other));
+        } finally {
+            stop(other);
+            lock.close();
+        }
+    }
+
+    @Test
+    public void testOwnEarlierFetchIsNotWaitedFor() throws IOException, InterruptedException {
+        CatalogueCache cache = new CatalogueCache(file);
+        CatalogueCache.FetchLock first = cache.tryLockFetch();
+        CatalogueCache.FetchLock second = new CatalogueCache(file).tryLockFetch();
+        assertNotNull(first);
+        assertNotNull(second);
+
+        // Closing the second lock leaves the first one held
+        second.close();
+        Process other = startOtherClient();
+        try {
+            assertEquals("busy", firstLine(other));
+        } finally {
+            stop(other);
+            first.close();
+        }
+    }
+
+    @Test
+    public void testSaveWhileWriteLockHeldInThisClient() throws IOException {
+        File lockFile = new File(file.getPath() + ".lock");
+        try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock(CatalogueCache.WRITE_REGION, 1, false)) {
+            new CatalogueCache(file).save(items(3), 1_000);
+        }
+        assertNull("Not saved", new CatalogueCache(file).load());
+
+        new CatalogueCache(file).save(items(3), 1_000);
+        assertEquals(3, new CatalogueCache(file).load().getItems().size());
+    }
+}
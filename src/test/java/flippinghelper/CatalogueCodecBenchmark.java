@@ -0,0 +1,64 @@
+package flippinghelper;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares the binary catalogue snapshot with Gson JSON, for size and for
+ * encode and decode times. Run as a main class, with the item count as an
+ * optional argument.
+ */
+public class CatalogueCodecBenchmark {
+
+    private static final Type ITEMS_TYPE = new TypeToken<List<FlippingItem>>() {
+    }.getType();
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    // Keeps results reachable so the work is not optimized away
+    private static volatile int sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 4_000;
+        List<FlippingItem> items = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            items.add(CatalogueCodecTest.item(id));
+        }
+
+        Gson gson = new Gson();
+        byte[] binary = CatalogueCodec.encode(items);
+        byte[] json = gson.toJson(items, ITEMS_TYPE).getBytes(StandardCharsets.UTF_8);
+        System.out.printf("%d items: binary %,d bytes, JSON %,d bytes%n", count, binary.length, json.length);
+
+        report("encode binary", () -> CatalogueCodec.encode(items).length);
+        report("encode JSON", () -> gson.toJson(items, ITEMS_TYPE).getBytes(StandardCharsets.UTF_8).length);
+        report("decode binary", () -> CatalogueCodec.decode(ByteBuffer.wrap(binary)).size());
+        report("decode JSON", () -> {
+            List<FlippingItem> decoded = gson.fromJson(new String(json, StandardCharsets.UTF_8), ITEMS_TYPE);
+            return decoded.size();
+        });
+        report("open binary, read one item", () -> {
+            CatalogueCodec.Snapshot snapshot = CatalogueCodec.Snapshot.open(ByteBuffer.wrap(binary));
+            return snapshot.item(snapshot.size() / 2).getQuantity();
+        });
+    }
+
+    private static void report(String name, Supplier<Integer> task) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += task.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += task.get();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+        System.out.printf("%-28s %8.3f ms%n", name, millis);
+    }
+}
@@ -0,0 +1,182 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CatalogueCodecTest {
+
+    static FlippingItem item(int id) {
+        FlippingItem item = new FlippingItem();
+        item.setId(String.valueOf(id));
+        item.setName("Item " + id);
+        item.setDetailIcon("/icons/" + (id % 10) + ".png");
+        item.setQuantity(100 + id);
+        item.setDailyVolume(50_000L * id);
+        item.setAdjustedLowPrice(1_000 + id);
+        item.setAdjustedHighPrice(1_100 + id);
+        item.setProfit(80);
+        item.setScore(0.5 + id / 1000.0);
+        item.setMedianHourlyVolume(2_000 + id);
+        item.setMembers(id % 2 == 0);
+        item.setSparklineData(Arrays.asList(1_000 + id, 1_020, 990, -5, Integer.MAX_VALUE, Integer.MIN_VALUE));
+        item.setPredictedAction(id % 3 == 0 ? "sell" : "buy");
+        if (id % 4 == 0) {
+            item.setDumpSignalScore(0.443);
+            item.setDumpSignalReasons(Arrays.asList("price_drop", "volume_spike"));
+            item.setDumpPeakPrice(2_000L + id);
+            item.setDumpDetectedAt(1_700_000_000_000L + id);
+        }
+        return item;
+    }
+
+    private static List<FlippingItem> roundTrip(List<FlippingItem> items) {
+        return CatalogueCodec.decode(ByteBuffer.wrap(CatalogueCodec.encode(items)));
+    }
+
+    private static void assertItemsEqual(List<FlippingItem> expected, List<FlippingItem> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertItemEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static void assertItemEquals(FlippingItem expected, FlippingItem actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getDetailIcon(), actual.getDetailIcon());
+        assertEquals(expected.getQuantity(), actual.getQuantity());
+        assertEquals(expected.getDailyVolume(), actual.getDailyVolume());
+        assertEquals(expected.getAdjustedLowPrice(), actual.getAdjustedLowPrice());
+        assertEquals(expected.getAdjustedHighPrice(), actual.getAdjustedHighPrice());
+        assertEquals(expected.getProfit(), actual.getProfit());
+        assertEquals(Double.doubleToLongBits(expected.getScore()), Double.doubleToLongBits(actual.getScore()));
+        assertEquals(expected.getMedianHourlyVolume(), actual.getMedianHourlyVolume());
+        assertEquals(expected.isMembers(), actual.isMembers());
+        assertEquals(expected.getSparklineData(), actual.getSparklineData());
+        assertEquals(expected.getPredictedAction(), actual.getPredictedAction());
+        assertEquals(expected.getDumpSignalScore(), actual.getDumpSignalScore());
+        assertEquals(expected.getDumpSignalReasons(), actual.getDumpSignalReasons());
+        assertEquals(expected.getDumpPeakPrice(), actual.getDumpPeakPrice());
+        assertEquals(expected.getDumpDetectedAt(), actual.getDumpDetectedAt());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        List<FlippingItem> items = new ArrayList<>();
+        for (int id = 0; id < 200; id++) {
+            items.add(item(id));
+        }
+        assertItemsEqual(items, roundTrip(items));
+        assertTrue(roundTrip(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testNullsAndUnusualValues() {
+        FlippingItem empty = new FlippingItem();
+
+        FlippingItem odd = item(7);
+        odd.setId("not-a-number");
+        odd.setName("Ünïcødé ✓");
+        odd.setScore(Double.NaN);
+        odd.setAdjustedLowPrice(Long.MIN_VALUE);
+        odd.setAdjustedHighPrice(Long.MAX_VALUE);
+        odd.setSparklineData(Collections.emptyList());
+        odd.setDumpSignalReasons(Collections.emptyList());
+
+        FlippingItem leadingZero = item(8);
+        leadingZero.setId("008");
+
+        List<FlippingItem> items = Arrays.asList(empty, odd, leadingZero);
+        assertItemsEqual(items, roundTrip(items));
+    }
+
+    @Test
+    public void testTransientFieldsAreNotWritten() {
+        FlippingItem item = item(1);
+        item.setApiQuantity(5);
+        item.setAllocatedQuantity(3);
+
+        FlippingItem decoded = roundTrip(Collections.singletonList(item)).get(0);
+        assertNull(decoded.getApiQuantity());
+        assertNull(decoded.getAllocatedQuantity());
+    }
+
+    @Test
+    public void testStringsAreShared() {
+        List<FlippingItem> items = Arrays.asList(item(1), item(11), item(31));
+        byte[] encoded = CatalogueCodec.encode(items);
+
+        // 3 names, 1 icon path, 1 action
+        assertEquals(5, ByteBuffer.wrap(encoded).getInt(12));
+        List<FlippingItem> decoded = CatalogueCodec.decode(ByteBuffer.wrap(encoded));
+        assertSame(decoded.get(0).getDetailIcon(), decoded.get(2).getDetailIcon());
+    }
+
+    @Test
+    public void testSnapshotReadsSingleItems() {
+        // A snapshot further into a buffer, as in the catalogue cache file
+        byte[] encoded = CatalogueCodec.encode(Arrays.asList(item(1), item(2)));
+        ByteBuffer buffer = ByteBuffer.allocate(100 + encoded.length);
+        buffer.position(100);
+        buffer.put(encoded);
+        buffer.position(100);
+
+        CatalogueCodec.Snapshot snapshot = CatalogueCodec.Snapshot.open(buffer);
+        assertEquals(2, snapshot.size());
+        assertItemEquals(item(2), snapshot.item(1));
+        assertEquals(100, buffer.position());
+    }
+
+    @Test
+    public void testCorruptionIsDetected() {
+        byte[] encoded = CatalogueCodec.encode(Arrays.asList(item(1), item(2)));
+
+        byte[] flipped = encoded.clone();
+        flipped[flipped.length - 1] ^= 1;
+        assertRejected(flipped);
+
+        byte[] version = encoded.clone();
+        version[7]++;
+        assertRejected(version);
+
+        assertRejected(Arrays.copyOf(encoded, encoded.length - 1));
+        assertRejected(new byte[CatalogueCodec.HEADER_SIZE]);
+    }
+
+    private static void assertRejected(byte[] encoded) {
+        try {
+            CatalogueCodec.decode(ByteBuffer.wrap(encoded));
+            fail("Expected a corrupt snapshot to be rejected");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testDecodesMappedFile() throws IOException {
+        List<FlippingItem> items = Arrays.asList(item(1), item(4), item(9));
+        File file = File.createTempFile("catalogue", ".snapshot");
+        try {
+            Files.write(file.toPath(), CatalogueCodec.encode(items));
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                assertItemsEqual(items, CatalogueCodec.decode(map));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
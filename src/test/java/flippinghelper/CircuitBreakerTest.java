@@ -0,0 +1,92 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 1_000;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MILLIS, 4 * OPEN_MILLIS);
+
+    @Test
+    public void testOpensAfterRepeatedFailures() throws Exception {
+        breaker.acquire(0);
+        breaker.recordFailure(0);
+        breaker.recordFailure(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.recordFailure(100);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(100 + OPEN_MILLIS, breaker.getRetryAt());
+        assertRejected(500);
+    }
+
+    @Test
+    public void testSuccessResetsFailureCount() throws Exception {
+        breaker.recordFailure(0);
+        breaker.recordFailure(0);
+        breaker.recordSuccess();
+        breaker.recordFailure(0);
+        breaker.recordFailure(0);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.acquire(0);
+    }
+
+    @Test
+    public void testHalfOpenProbe() throws Exception {
+        open(0);
+
+        breaker.acquire(OPEN_MILLIS);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertRejected(OPEN_MILLIS);
+
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.acquire(OPEN_MILLIS);
+    }
+
+    @Test
+    public void testFailedProbeBacksOff() throws Exception {
+        open(0);
+
+        breaker.acquire(OPEN_MILLIS);
+        breaker.recordFailure(OPEN_MILLIS);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(3 * OPEN_MILLIS, breaker.getRetryAt());
+
+        breaker.acquire(3 * OPEN_MILLIS);
+        breaker.recordFailure(3 * OPEN_MILLIS);
+        breaker.acquire(7 * OPEN_MILLIS);
+        breaker.recordFailure(7 * OPEN_MILLIS);
+        assertEquals("Capped at the maximum", 11 * OPEN_MILLIS, breaker.getRetryAt());
+    }
+
+    @Test
+    public void testAbandonedProbeAllowsAnother() throws Exception {
+        open(0);
+
+        breaker.acquire(OPEN_MILLIS);
+        breaker.recordAbandoned();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        breaker.acquire(OPEN_MILLIS);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    private void open(long now) {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure(now);
+        }
+    }
+
+    private void assertRejected(long now) {
+        try {
+            breaker.acquire(now);
+            fail("Expected the request to be rejected");
+        } catch (CircuitBreaker.OpenException e) {
+            assertTrue(e.getRetryAt() > now);
+        }
+    }
+}
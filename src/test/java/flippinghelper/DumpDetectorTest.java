@@ -0,0 +1,209 @@
+package flippinghelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DumpDetectorTest {
+
+    private static final int ITEM_ID = 4151;
+    private static final double THRESHOLD = 3.0;
+    private static final long START = 472_223L * 60 * 60_000L;
+    private static final long STEP = 5 * 60_000L;
+    private static final long HOLD = 30 * 60_000L;
+
+    private File dir;
+    private PriceHistoryStore history;
+    private DumpDetector detector;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("dump-detector").toFile();
+        history = new PriceHistoryStore(new File(dir, "prices.dat"));
+        detector = new DumpDetector(history);
+    }
+
+    @After
+    public void tearDown() {
+        history.shutDown();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static FlippingItem item(long price) {
+        FlippingItem item = new FlippingItem();
+        item.setId(String.valueOf(ITEM_ID));
+        item.setAdjustedLowPrice(price);
+        item.setDailyVolume(10_000);
+        return item;
+    }
+
+    private FlippingItem update(long price, long now) {
+        FlippingItem item = item(price);
+        detector.update(Collections.singletonList(item), now, THRESHOLD);
+        return item;
+    }
+
+    /**
+     * Feed prices alternating between 1000 and 1010 every five minutes, ending
+     * before {@code end}.
+     */
+    private void stable(long start, long end) {
+        int i = 0;
+        for (long t = start; t < end; t += STEP) {
+            assertNull(update(i++ % 2 == 0 ? 1_000 : 1_010, t).getDumpSignalScore());
+        }
+    }
+
+    @Test
+    public void testFlagsSharpDrop() {
+        stable(START, START + 24 * STEP);
+        long now = START + 24 * STEP;
+        FlippingItem dump = update(900, now);
+
+        assertNotNull(dump.getDumpSignalScore());
+        assertTrue(dump.getDumpSignalScore() > 0.5 && dump.getDumpSignalScore() <= 1.0);
+        assertEquals(1, dump.getDumpSignalReasons().size());
+        assertTrue(dump.getDumpSignalReasons().get(0).startsWith("Local price drop"));
+        assertEquals(Long.valueOf(now), dump.getDumpDetectedAt());
+        long peak = dump.getDumpPeakPrice();
+        assertTrue("Peak " + peak, peak >= 1_000 && peak <= 1_010);
+    }
+
+    @Test
+    public void testServerSignalIsKept() {
+        stable(START, START + 24 * STEP);
+        FlippingItem dump = item(900);
+        dump.setDumpSignalScore(1.0);
+        dump.setDumpSignalReasons(Collections.singletonList("server"));
+        dump.setDumpPeakPrice(2_000L);
+        dump.setDumpDetectedAt(1L);
+        detector.update(Collections.singletonList(dump), START + 24 * STEP, THRESHOLD);
+
+        assertEquals(Double.valueOf(1.0), dump.getDumpSignalScore());
+        assertEquals(2, dump.getDumpSignalReasons().size());
+        assertEquals("server", dump.getDumpSignalReasons().get(0));
+        assertEquals(Long.valueOf(2_000L), dump.getDumpPeakPrice());
+        assertEquals(Long.valueOf(1L), dump.getDumpDetectedAt());
+    }
+
+    @Test
+    public void testLocalReasonIsReplaced() {
+        stable(START, START + 24 * STEP);
+        FlippingItem dump = item(900);
+        dump.setDumpSignalReasons(Collections.singletonList("server"));
+        detector.update(Collections.singletonList(dump), START + 24 * STEP, THRESHOLD);
+        // Flagged again while held, e.g. a catalogue that was already through a detector
+        detector.update(Collections.singletonList(dump), START + 25 * STEP, THRESHOLD);
+
+        assertEquals(2, dump.getDumpSignalReasons().size());
+        assertEquals("server", dump.getDumpSignalReasons().get(0));
+        assertTrue(dump.getDumpSignalReasons().get(1).startsWith("Local price drop"));
+    }
+
+    @Test
+    public void testSmallOrEarlyDropsAreIgnored() {
+        // Below the minimum relative drop, however unusual
+        for (int i = 0; i < 24; i++) {
+            update(i % 2 == 0 ? 1_000 : 1_001, START + i * STEP);
+        }
+        assertNull(update(985, START + 24 * STEP).getDumpSignalScore());
+
+        // Not enough samples for a baseline
+        FlippingItem other = item(1_000);
+        other.setId("4152");
+        detector.update(Collections.singletonList(other), START, THRESHOLD);
+        other.setAdjustedLowPrice(1_010);
+        detector.update(Collections.singletonList(other), START + STEP, THRESHOLD);
+        other.setAdjustedLowPrice(500);
+        detector.update(Collections.singletonList(other), START + 2 * STEP, THRESHOLD);
+        assertNull(other.getDumpSignalScore());
+    }
+
+    @Test
+    public void testSignalIsHeld() {
+        stable(START, START + 24 * STEP);
+        long dumpedAt = START + 24 * STEP;
+        update(900, dumpedAt);
+
+        // Flagged while held, even once the price is back
+        FlippingItem recovered = update(1_000, dumpedAt + STEP);
+        assertNotNull(recovered.getDumpSignalScore());
+        assertEquals(Long.valueOf(dumpedAt), recovered.getDumpDetectedAt());
+        assertNotNull(update(1_000, dumpedAt + HOLD).getDumpSignalScore());
+        assertNull(update(1_000, dumpedAt + HOLD + 1).getDumpSignalScore());
+    }
+
+    @Test
+    public void testBaselineFollowsLastingDrop() {
+        stable(START, START + 24 * STEP);
+        long dumpedAt = START + 24 * STEP;
+        update(900, dumpedAt);
+
+        // Four half-lives at the lower price
+        long t = dumpedAt;
+        for (int i = 0; i < 48; i++) {
+            t += STEP;
+            update(i % 2 == 0 ? 900 : 909, t);
+        }
+        assertNull("Held signal expired and the baseline caught up", update(900, t + STEP).getDumpSignalScore());
+
+        FlippingItem next = update(800, t + 2 * STEP);
+        assertEquals(Long.valueOf(t + 2 * STEP), next.getDumpDetectedAt());
+        long peak = next.getDumpPeakPrice();
+        assertTrue("Peak " + peak, peak >= 900 && peak <= 915);
+    }
+
+    @Test
+    public void testDecayDependsOnElapsedTime() {
+        stable(START, START + 24 * STEP);
+
+        // After a day away, one sample replaces the old baseline
+        long later = START + 24 * 60 * 60_000L;
+        FlippingItem first = update(900, later);
+        assertEquals(Long.valueOf(later), first.getDumpDetectedAt());
+        FlippingItem second = update(900, later + STEP);
+        assertEquals("No new signal at the new level", Long.valueOf(later), second.getDumpDetectedAt());
+    }
+
+    @Test
+    public void testSeedsFromHistory() {
+        // An hour of recorded fetches, the last closing the five-minute buckets before it
+        for (int i = 0; i <= 13; i++) {
+            history.record(Arrays.asList(item(i % 2 == 0 ? 1_000 : 1_010)), START + i * STEP);
+        }
+
+        long now = START + 14 * STEP;
+        assertNotNull("A new detector starts from the history", update(900, now).getDumpSignalScore());
+
+        DumpDetector unseeded = new DumpDetector(new PriceHistoryStore(new File(dir, "missing.dat")));
+        FlippingItem item = item(900);
+        unseeded.update(Collections.singletonList(item), now, THRESHOLD);
+        assertNull(item.getDumpSignalScore());
+    }
+
+    @Test
+    public void testInvalidItemsAreSkipped() {
+        FlippingItem invalid = item(900);
+        invalid.setId("not-a-number");
+        FlippingItem free = item(0);
+        List<FlippingItem> items = Arrays.asList(invalid, free);
+        detector.update(items, START, THRESHOLD);
+        assertNull(invalid.getDumpSignalScore());
+        assertNull(free.getDumpSignalScore());
+    }
+}
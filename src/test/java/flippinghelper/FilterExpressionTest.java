@@ -0,0 +1,162 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FilterExpressionTest {
+
+    private FlippingItem createTestItem(long buyPrice, long profit, int quantity, boolean members) {
+        FlippingItem item = new FlippingItem();
+        item.setId("1");
+        item.setName("Item");
+        item.setAdjustedLowPrice(buyPrice);
+        item.setAdjustedHighPrice(buyPrice + profit);
+        item.setProfit(profit);
+        item.setQuantity(quantity);
+        item.setMembers(members);
+        return item;
+    }
+
+    private boolean matches(String expression, FlippingItem item) {
+        return FilterExpression.parse(expression).test(ItemColumns.of(Collections.singletonList(item)), 0);
+    }
+
+    @Test
+    public void testBlankExpressionMatchesEverything() {
+        FlippingItem item = createTestItem(1_000, 10, 1, true);
+        assertTrue(matches("", item));
+        assertTrue(matches("   ", item));
+        assertTrue(matches(null, item));
+    }
+
+    @Test
+    public void testExampleExpression() {
+        String expression = "profit*quantity > 200k && members == false && roi > 2%";
+
+        assertTrue(matches(expression, createTestItem(1_000, 50, 5_000, false)));
+        assertFalse("Members item", matches(expression, createTestItem(1_000, 50, 5_000, true)));
+        assertFalse("Total profit too low", matches(expression, createTestItem(1_000, 50, 4_000, false)));
+        assertFalse("ROI too low", matches(expression, createTestItem(10_000, 150, 5_000, false)));
+    }
+
+    @Test
+    public void testNumberSuffixes() {
+        FlippingItem item = createTestItem(1_500_000, 0, 1, true);
+        assertTrue(matches("buy == 1.5m", item));
+        assertTrue(matches("buy == 1500k", item));
+        assertTrue(matches("buy < 0.002b", item));
+        assertTrue(matches("buy * 10% == 150k", item));
+    }
+
+    @Test
+    public void testPrecedence() {
+        FlippingItem item = createTestItem(100, 10, 3, true);
+        assertTrue(matches("buy + profit * quantity == 130", item));
+        assertTrue(matches("(buy + profit) * quantity == 330", item));
+        assertTrue(matches("buy - -profit == 110", item));
+        assertTrue("&& binds tighter than ||", matches("buy > 0 || buy < 0 && buy < 0", item));
+        assertFalse(matches("(buy > 0 || buy < 0) && buy < 0", item));
+        assertTrue(matches("!(buy < 0) && !members == false", item));
+    }
+
+    @Test
+    public void testBooleans() {
+        assertTrue(matches("members", createTestItem(1, 0, 1, true)));
+        assertTrue(matches("members != false", createTestItem(1, 0, 1, true)));
+        assertTrue(matches("!members", createTestItem(1, 0, 1, false)));
+        assertTrue(matches("true", createTestItem(1, 0, 1, false)));
+        assertFalse(matches("false || members", createTestItem(1, 0, 1, false)));
+    }
+
+    @Test
+    public void testDivisionByZeroIsZero() {
+        assertTrue(matches("profit / buy == 0", createTestItem(0, 10, 1, true)));
+        assertTrue(matches("roi == 0", createTestItem(0, 10, 1, true)));
+    }
+
+    @Test
+    public void testEvaluateOverColumns() {
+        ItemColumns columns = ItemColumns.of(Arrays.asList(
+            createTestItem(100, 5, 10, true),
+            createTestItem(200, 50, 10, false),
+            createTestItem(300, 1, 10, true)));
+
+        boolean[] passes = FilterExpression.parse("investment <= 2k && profit >= 5").evaluate(columns);
+        assertArrayEquals(new boolean[]{true, true, false}, passes);
+    }
+
+    @Test
+    public void testParallelEvaluationMatchesSequential() {
+        Random random = new Random(42);
+        List<FlippingItem> items = new ArrayList<>();
+        for (int i = 0; i < ParallelColumns.SEQUENTIAL_THRESHOLD * 5; i++) {
+            FlippingItem item = createTestItem(1 + random.nextInt(100_000), random.nextInt(2_000),
+                random.nextInt(10_000), random.nextBoolean());
+            item.setMedianHourlyVolume(random.nextInt(5_000));
+            items.add(item);
+        }
+        FilterExpression filter = FilterExpression.parse("(roi > 1% || gpPerHour > 100k) && !members && investment < 50m");
+
+        // Four threads whatever the machine, so the rows are split over the pool
+        ParallelColumns.startUp(4);
+        ItemColumns columns;
+        boolean[] passes;
+        try {
+            columns = ItemColumns.of(items);
+            passes = filter.evaluate(columns);
+        } finally {
+            ParallelColumns.shutDown();
+        }
+        for (int i = 0; i < columns.size; i++) {
+            assertEquals("Row " + i, filter.test(ItemColumns.of(Collections.singletonList(items.get(i))), 0), passes[i]);
+        }
+    }
+
+    @Test
+    public void testAnd() {
+        FilterExpression filter = FilterExpression.parse("buy > 100").and(FilterExpression.parse("members"));
+        assertEquals("(buy > 100) && (members)", filter.getSource());
+
+        FlippingItem item = createTestItem(200, 0, 1, false);
+        assertFalse(filter.test(ItemColumns.of(Collections.singletonList(item)), 0));
+        assertSame(filter, filter.and(FilterExpression.parse("")));
+    }
+
+    @Test
+    public void testFieldNamesAreCaseInsensitive() {
+        assertTrue(matches("BUY == 100 && Members", createTestItem(100, 0, 1, true)));
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        String[] invalid = {
+            "buy >",
+            "buy > 100 &&",
+            "price > 100",
+            "(buy > 100",
+            "buy > 100)",
+            "buy",
+            "members > 1",
+            "buy == members",
+            "!buy",
+            "1.2.3 > 0",
+            "10x > 0",
+            "buy > 100 & members",
+        };
+        for (String expression : invalid) {
+            try {
+                FilterExpression.parse(expression);
+                fail("Expected '" + expression + "' to be rejected");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("position"));
+            }
+        }
+    }
+}
@@ -223,6 +223,19 @@ public class FlippingHelperFilterTest {
         assertFalse(filtered.contains(item1));
     }
 
+    @Test
+    public void testSmallMinScoreFilter() {
+        // Double.toString would write 1.0E-4, which is not a valid expression number
+        when(config.minScore()).thenReturn(0.0001);
+
+        FlippingItem item1 = createTestItem("1", "Low Score", 1000, 100, 5000, 0.00005, null);
+        FlippingItem item2 = createTestItem("2", "High Score", 1000, 100, 5000, 0.0002, null);
+
+        assertFalse("Item below min score should fail", plugin.passesFilters(item1));
+        assertTrue("Item above min score should pass", plugin.passesFilters(item2));
+        assertEquals("score >= 0.0001", FilterSettings.fromConfig(config).toExpression());
+    }
+
     @Test
     public void testDumpFilter_ShowAll() {
         when(config.dumpFilter()).thenReturn(FlippingHelperConfig.DumpFilter.ALL);
@@ -0,0 +1,78 @@
+package flippinghelper;
+
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.util.AsyncBufferedImage;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ItemIconCacheTest {
+
+    private static final int COINS = 995;
+
+    @Mock
+    private ItemManager itemManager;
+
+    private ItemIconCache cache;
+
+    @Before
+    public void setUp() {
+        when(itemManager.getImage(anyInt(), anyInt(), anyBoolean())).thenAnswer(invocation -> mock(AsyncBufferedImage.class));
+        cache = new ItemIconCache(itemManager);
+    }
+
+    private static FlippingItem item(String id, int quantity) {
+        FlippingItem item = new FlippingItem();
+        item.setId(id);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    @Test
+    public void testKeyedOnItemAndQuantity() {
+        AsyncBufferedImage one = cache.get(COINS, 1);
+        assertSame(one, cache.get(COINS, 1));
+        assertSame("An empty stack looks like one item", one, cache.get(COINS, 0));
+        assertNotSame(one, cache.get(COINS, 1_000));
+        assertNotSame(one, cache.get(COINS + 1, 1));
+
+        verify(itemManager).getImage(COINS, 1, false);
+        verify(itemManager).getImage(COINS, 1_000, false);
+        verify(itemManager).getImage(COINS + 1, 1, false);
+        verifyNoMoreInteractions(itemManager);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        AsyncBufferedImage[] icons = new AsyncBufferedImage[ItemIconCache.CAPACITY];
+        for (int id = 0; id < ItemIconCache.CAPACITY; id++) {
+            icons[id] = cache.get(id, 1);
+        }
+        // Using the oldest icon makes the second one the least recently used
+        assertSame(icons[0], cache.get(0, 1));
+        cache.get(ItemIconCache.CAPACITY, 1);
+
+        assertSame(icons[0], cache.get(0, 1));
+        assertSame(icons[2], cache.get(2, 1));
+        assertNotSame("Evicted and loaded again", icons[1], cache.get(1, 1));
+        verify(itemManager, times(1)).getImage(0, 1, false);
+        verify(itemManager, times(1)).getImage(2, 1, false);
+        verify(itemManager, times(2)).getImage(1, 1, false);
+    }
+
+    @Test
+    public void testPrefetch() {
+        cache.prefetch(Arrays.asList(item("1", 5), item("not-a-number", 5), item("2", 5), item("3", 5)), 3);
+        verify(itemManager).getImage(1, 5, false);
+        verify(itemManager).getImage(2, 5, false);
+        verify(itemManager, never()).getImage(eq(3), anyInt(), anyBoolean());
+    }
+}
@@ -0,0 +1,99 @@
+package flippinghelper;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+public class ParallelColumnsTest {
+
+    private static final int SIZE = ParallelColumns.SEQUENTIAL_THRESHOLD * 8;
+
+    @After
+    public void tearDown() {
+        ParallelColumns.shutDown();
+    }
+
+    /**
+     * Run over {@code size} rows, checking each row is visited once, and return
+     * the names of the threads that ran ranges.
+     */
+    private static Set<String> visit(int size) {
+        AtomicIntegerArray visits = new AtomicIntegerArray(size);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        ParallelColumns.forRanges(size, (from, to) -> {
+            threads.add(Thread.currentThread().getName());
+            for (int i = from; i < to; i++) {
+                visits.incrementAndGet(i);
+            }
+        });
+        for (int i = 0; i < size; i++) {
+            assertEquals("Row " + i, 1, visits.get(i));
+        }
+        return threads;
+    }
+
+    private static List<FlippingItem> items() {
+        Random random = new Random(3);
+        List<FlippingItem> items = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            FlippingItem item = new FlippingItem();
+            item.setId(String.valueOf(i));
+            item.setScore(random.nextInt(100));
+            item.setAdjustedLowPrice(random.nextInt(10_000));
+            item.setProfit(random.nextInt(500) - 50);
+            item.setQuantity(random.nextInt(1_000));
+            item.setMedianHourlyVolume(random.nextInt(5_000));
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Test
+    public void testRangesRunOnThePool() {
+        ParallelColumns.startUp(4);
+        Set<String> threads = visit(SIZE);
+        assertTrue(threads.toString(), threads.stream().anyMatch(name -> name.startsWith("flipping-helper-columns-")));
+
+        // Small inputs stay on the calling thread
+        assertEquals(Set.of(Thread.currentThread().getName()), visit(ParallelColumns.SEQUENTIAL_THRESHOLD - 1));
+    }
+
+    @Test
+    public void testSequentialWhileStopped() {
+        String caller = Thread.currentThread().getName();
+        assertEquals(Set.of(caller), visit(SIZE));
+
+        ParallelColumns.startUp(1);
+        assertEquals("One thread needs no pool", Set.of(caller), visit(SIZE));
+
+        ParallelColumns.startUp(4);
+        ParallelColumns.shutDown();
+        assertEquals(Set.of(caller), visit(SIZE));
+    }
+
+    @Test
+    public void testParallelKeysMatchSequential() {
+        List<FlippingItem> items = items();
+        RankingStrategy[] strategies = {RankingStrategies.PROFIT, RankingStrategies.ROI,
+            RankingStrategies.GP_PER_HOUR, RankingStrategies.VOLUME_MARGIN, RankingStrategies.blend(1, 2, 3, 4, 5)};
+
+        ItemColumns sequential = ItemColumns.of(items);
+        ParallelColumns.startUp(4);
+        ItemColumns parallel = ItemColumns.of(items);
+
+        assertArrayEquals(sequential.quantity, parallel.quantity);
+        assertArrayEquals(sequential.hourlyVolume, parallel.hourlyVolume, 0);
+        for (RankingStrategy strategy : strategies) {
+            assertArrayEquals(strategy.getName(), sequential.order(strategy), parallel.order(strategy));
+            assertArrayEquals(sequential.keyColumn(strategy), parallel.keyColumn(strategy), 0);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PendingSellsTest {
+
+    private final PendingSells sells = new PendingSells();
+
+    private static FlippingItem item(int id, long low, long high) {
+        FlippingItem item = new FlippingItem();
+        item.setId(String.valueOf(id));
+        item.setName("Item " + id);
+        item.setQuantity(500);
+        item.setAdjustedLowPrice(low);
+        item.setAdjustedHighPrice(high);
+        item.setPredictedAction("buy");
+        return item;
+    }
+
+    @Test
+    public void testSellCopyLeavesBuyItemAlone() {
+        FlippingItem bought = item(10, 100, 120);
+        FlippingItem sell = sells.onBought(bought, 10, 0, 250);
+
+        assertNotSame(bought, sell);
+        assertEquals("sell", sell.getPredictedAction());
+        assertEquals(250, sell.getQuantity());
+        assertEquals(Integer.valueOf(250), sell.getApiQuantity());
+        assertEquals(120, sell.getAdjustedHighPrice());
+        assertEquals("buy", bought.getPredictedAction());
+        assertEquals(500, bought.getQuantity());
+    }
+
+    @Test
+    public void testQuantitiesAddUpPerSlot() {
+        FlippingItem bought = item(10, 100, 120);
+        sells.onBought(bought, 10, 0, 250);
+        assertEquals(650, sells.onBought(bought, 10, 3, 400).getQuantity());
+
+        // The same completed offer reported again, e.g. after logging in
+        assertEquals(650, sells.onBought(bought, 10, 3, 400).getQuantity());
+    }
+
+    @Test
+    public void testNewOfferInAnEmptiedSlotAdds() {
+        FlippingItem bought = item(10, 100, 120);
+        sells.onBought(bought, 10, 0, 100);
+        sells.onSlotEmptied(0);
+        assertEquals(100, sells.list().get(0).getQuantity());
+
+        // Bought again in the same slot after collecting the first offer
+        assertEquals(200, sells.onBought(bought, 10, 0, 100).getQuantity());
+        assertEquals("Reported again", 200, sells.onBought(bought, 10, 0, 100).getQuantity());
+
+        // Emptying a slot of another item changes nothing
+        sells.onBought(item(20, 100, 120), 20, 1, 5);
+        sells.onSlotEmptied(1);
+        sells.onSlotEmptied(5);
+        assertEquals(300, sells.onBought(bought, 10, 2, 100).getQuantity());
+    }
+
+    @Test
+    public void testMostRecentlyBoughtFirst() {
+        sells.onBought(item(10, 100, 120), 10, 0, 1);
+        sells.onBought(item(20, 100, 120), 20, 1, 1);
+        sells.onBought(item(30, 100, 120), 30, 2, 1);
+        sells.onBought(item(10, 100, 120), 10, 4, 1);
+
+        List<FlippingItem> list = sells.list();
+        assertEquals(3, list.size());
+        assertEquals("10", list.get(0).getId());
+        assertEquals("30", list.get(1).getId());
+        assertEquals("20", list.get(2).getId());
+    }
+
+    @Test
+    public void testRepriceAndRemove() {
+        sells.onBought(item(10, 100, 120), 10, 0, 250);
+
+        FlippingItem repriced = sells.reprice(item(10, 90, 110), 10);
+        assertEquals(110, repriced.getAdjustedHighPrice());
+        assertEquals(250, repriced.getQuantity());
+        assertNull(sells.reprice(item(20, 1, 2), 20));
+
+        assertTrue(sells.remove(10));
+        assertFalse(sells.remove(10));
+        assertFalse(sells.contains(10));
+        assertTrue(sells.list().isEmpty());
+    }
+}
@@ -0,0 +1,222 @@
+package flippinghelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PriceHistoryStoreTest {
+
+    private static final int ITEM_ID = 4151;
+    // An hour boundary, so every resolution's buckets start at BASE
+    private static final long BASE = 472_223L * 60 * 60_000L;
+    private static final long MINUTE = 60_000L;
+
+    private File dir;
+    private File file;
+    private final List<PriceHistoryStore> stores = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("price-history").toFile();
+        file = new File(dir, "prices.dat");
+    }
+
+    @After
+    public void tearDown() {
+        stores.forEach(PriceHistoryStore::shutDown);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private PriceHistoryStore store() {
+        PriceHistoryStore store = new PriceHistoryStore(file);
+        stores.add(store);
+        return store;
+    }
+
+    private static List<FlippingItem> prices(long low, long high, long volume) {
+        FlippingItem item = new FlippingItem();
+        item.setId(String.valueOf(ITEM_ID));
+        item.setAdjustedLowPrice(low);
+        item.setAdjustedHighPrice(high);
+        item.setDailyVolume(volume);
+        FlippingItem invalid = new FlippingItem();
+        invalid.setId("not-a-number");
+        return Arrays.asList(item, invalid);
+    }
+
+    private static void assertSeries(PriceHistoryStore.PriceSeries expected, PriceHistoryStore.PriceSeries actual) {
+        assertEquals(expected.getResolution(), actual.getResolution());
+        assertArrayEquals(expected.getTimestamps(), actual.getTimestamps());
+        assertArrayEquals(expected.getLow(), actual.getLow());
+        assertArrayEquals(expected.getHigh(), actual.getHigh());
+        assertArrayEquals(expected.getVolume(), actual.getVolume());
+    }
+
+    @Test
+    public void testVarIntRoundTrip() {
+        long[] values = {0, 1, 127, 128, 300, -1, -64, 64, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long value : values) {
+            VarInts.writeSigned(out, value);
+        }
+        VarInts.writeUnsigned(out, Long.MAX_VALUE);
+        VarInts.writeUnsigned(out, 127);
+
+        byte[] bytes = out.toByteArray();
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        for (long value : values) {
+            assertEquals(value, VarInts.readSigned(in));
+        }
+        assertEquals(Long.MAX_VALUE, VarInts.readUnsigned(in));
+        assertEquals(127, VarInts.readUnsigned(in));
+        assertFalse(in.hasRemaining());
+        // Small values take a single byte
+        assertEquals(0x7F, bytes[bytes.length - 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedVarInt() {
+        byte[] bytes = new byte[11];
+        Arrays.fill(bytes, (byte) 0x80);
+        VarInts.readUnsigned(ByteBuffer.wrap(bytes));
+    }
+
+    @Test
+    public void testRollup() {
+        PriceHistoryStore store = store();
+        store.record(prices(100, 110, 1_000), BASE);
+        store.record(prices(200, 210, 2_000), BASE + 30_000);
+        store.record(prices(300, 310, 3_000), BASE + MINUTE);
+        store.record(prices(400, 410, 4_000), BASE + 2 * MINUTE);
+
+        PriceHistoryStore.PriceSeries minutes = store.getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE);
+        assertArrayEquals(new long[]{BASE, BASE + MINUTE, BASE + 2 * MINUTE}, minutes.getTimestamps());
+        assertArrayEquals(new long[]{150, 300, 400}, minutes.getLow());
+        assertArrayEquals(new long[]{160, 310, 410}, minutes.getHigh());
+        assertArrayEquals(new long[]{1_500, 3_000, 4_000}, minutes.getVolume());
+
+        // Closed minutes only: the open one is not rolled up yet
+        PriceHistoryStore.PriceSeries fives = store.getSeries(ITEM_ID, PriceHistoryStore.Resolution.FIVE_MINUTES);
+        assertArrayEquals(new long[]{BASE}, fives.getTimestamps());
+        assertArrayEquals(new long[]{(100 + 200 + 300) / 3}, fives.getLow());
+        assertEquals(0, store.getSeries(ITEM_ID, PriceHistoryStore.Resolution.HOUR).size());
+
+        // Opening the next hour closes the last minute, then the five minutes, then the hour
+        store.record(prices(500, 510, 5_000), BASE + 60 * MINUTE);
+        store.record(prices(600, 610, 6_000), BASE + 61 * MINUTE);
+        store.record(prices(700, 710, 7_000), BASE + 65 * MINUTE);
+        PriceHistoryStore.PriceSeries hours = store.getSeries(ITEM_ID, PriceHistoryStore.Resolution.HOUR);
+        assertArrayEquals(new long[]{BASE}, hours.getTimestamps());
+        assertArrayEquals(new long[]{(100 + 200 + 300 + 400) / 4}, hours.getLow());
+        assertArrayEquals(new long[]{BASE, BASE + 60 * MINUTE},
+            store.getSeries(ITEM_ID, PriceHistoryStore.Resolution.FIVE_MINUTES).getTimestamps());
+
+        // Samples older than the last bucket are dropped
+        store.record(prices(1, 1, 1), BASE);
+        assertArrayEquals(new long[]{150, 300, 400, 500, 600, 700},
+            store.getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE).getLow());
+    }
+
+    @Test
+    public void testRetention() {
+        PriceHistoryStore store = store();
+        long day = PriceHistoryStore.Resolution.MINUTE.getRetention();
+        store.record(prices(100, 110, 1_000), BASE);
+        store.record(prices(200, 210, 2_000), BASE + MINUTE);
+        store.record(prices(300, 310, 3_000), BASE + day + MINUTE);
+
+        // The first minute is more than a day older than the newest one
+        PriceHistoryStore.PriceSeries minutes = store.getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE);
+        assertArrayEquals(new long[]{BASE + MINUTE, BASE + day + MINUTE}, minutes.getTimestamps());
+        // Coarser resolutions keep it
+        assertEquals(BASE, store.getSeries(ITEM_ID, PriceHistoryStore.Resolution.FIVE_MINUTES).getTimestamps()[0]);
+
+        // Never more buckets than fit in the retention window
+        int capacity = (int) (day / MINUTE);
+        for (int i = 0; i < capacity + 10; i++) {
+            store.record(prices(100 + i, 110 + i, 1_000), BASE + 2 * day + i * MINUTE);
+        }
+        assertTrue(store.getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE).size() <= capacity);
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        PriceHistoryStore store = store();
+        for (int i = 0; i < 200; i++) {
+            store.record(prices(1_000 + i * 7 % 50, 1_100 - i % 13, 50_000 + i), BASE + i * 2 * MINUTE);
+        }
+        store.save();
+
+        PriceHistoryStore loaded = new PriceHistoryStore(file);
+        for (PriceHistoryStore.Resolution resolution : PriceHistoryStore.Resolution.values()) {
+            assertSeries(store.getSeries(ITEM_ID, resolution), loaded.getSeries(ITEM_ID, resolution));
+        }
+        assertEquals(0, loaded.getSeries(1, PriceHistoryStore.Resolution.MINUTE).size());
+    }
+
+    @Test
+    public void testCorruptFileIsIgnored() throws IOException {
+        PriceHistoryStore store = store();
+        store.record(prices(100, 110, 1_000), BASE);
+        store.record(prices(200, 210, 2_000), BASE + MINUTE);
+        store.save();
+        stores.remove(store);
+        store.shutDown();
+        byte[] saved = Files.readAllBytes(file.toPath());
+
+        Files.write(file.toPath(), Arrays.copyOf(saved, saved.length - 2));
+        assertEquals("Truncated", 0, new PriceHistoryStore(file).getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE).size());
+
+        byte[] format = saved.clone();
+        format[7]++;
+        Files.write(file.toPath(), format);
+        assertEquals("Unknown version", 0, new PriceHistoryStore(file).getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE).size());
+
+        byte[] garbage = saved.clone();
+        Arrays.fill(garbage, 8, garbage.length, (byte) 0xFF);
+        Files.write(file.toPath(), garbage);
+        PriceHistoryStore recovered = store();
+        assertEquals(0, recovered.getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE).size());
+
+        // Recording starts over
+        recovered.record(prices(300, 310, 3_000), BASE);
+        assertEquals(1, recovered.getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE).size());
+    }
+
+    @Test
+    public void testOnlyOneClientWrites() {
+        PriceHistoryStore first = store();
+        PriceHistoryStore second = store();
+        first.record(prices(100, 110, 1_000), BASE);
+        second.record(prices(900, 910, 9_000), BASE);
+        first.save();
+        second.save();
+
+        assertArrayEquals(new long[]{100},
+            new PriceHistoryStore(file).getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE).getLow());
+
+        // Once the first lets go, the other one writes
+        stores.remove(first);
+        first.shutDown();
+        second.save();
+        assertArrayEquals(new long[]{900},
+            new PriceHistoryStore(file).getSeries(ITEM_ID, PriceHistoryStore.Resolution.MINUTE).getLow());
+    }
+}
@@ -0,0 +1,84 @@
+package flippinghelper;
+
+import net.runelite.api.GrandExchangeOfferState;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProfitTrackerTest {
+
+    private static final int ITEM_ID = 4151;
+
+    private ProfitTracker tracker;
+    private long clock;
+
+    @Before
+    public void setUp() {
+        tracker = new ProfitTracker(null);
+        clock = System.currentTimeMillis();
+    }
+
+    private void record(int slot, GrandExchangeOfferState state, int price, int total, int filled, long spent) {
+        tracker.onRecord(new TradeRecord(++clock, slot, ITEM_ID, state, price, total, filled, spent));
+    }
+
+    private void empty(int slot) {
+        tracker.onRecord(new TradeRecord(++clock, slot, 0, GrandExchangeOfferState.EMPTY, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void testGeTax() {
+        assertEquals("Items under 50 gp are tax free", 0, ProfitTracker.geTax(49));
+        assertEquals(1, ProfitTracker.geTax(50));
+        assertEquals(2_000, ProfitTracker.geTax(100_000));
+        assertEquals("Tax is capped per item", ProfitTracker.GE_TAX_CAP, ProfitTracker.geTax(1_000_000_000));
+    }
+
+    @Test
+    public void testSimpleFlip() {
+        record(0, GrandExchangeOfferState.BOUGHT, 1_000, 10, 10, 10_000);
+        empty(0);
+        record(0, GrandExchangeOfferState.SOLD, 1_200, 10, 10, 12_000);
+
+        // 12,000 - 10,000 - 10 * 24 tax
+        assertEquals(1_760, tracker.getItemProfit(ITEM_ID));
+        assertEquals(1_760, tracker.getSessionProfit());
+        assertTrue(tracker.hasRealizedProfit(ITEM_ID));
+    }
+
+    @Test
+    public void testSellsMatchOldestLotsFirst() {
+        record(0, GrandExchangeOfferState.BOUGHT, 100, 5, 5, 500);
+        empty(0);
+        record(0, GrandExchangeOfferState.BOUGHT, 200, 5, 5, 1_000);
+        empty(0);
+
+        // Selling 5 matches the first lot only (cost 500)
+        record(1, GrandExchangeOfferState.SOLD, 300, 5, 5, 1_500);
+        assertEquals(1_500 - 500 - 5 * 6, tracker.getItemProfit(ITEM_ID));
+    }
+
+    @Test
+    public void testPartialFillsAreCountedOnce() {
+        record(0, GrandExchangeOfferState.BUYING, 100, 10, 4, 400);
+        record(0, GrandExchangeOfferState.BUYING, 100, 10, 10, 1_000);
+        // The game re-sends every slot on login
+        record(0, GrandExchangeOfferState.BOUGHT, 100, 10, 10, 1_000);
+        empty(0);
+
+        record(1, GrandExchangeOfferState.SELLING, 150, 10, 3, 450);
+        record(1, GrandExchangeOfferState.SELLING, 150, 10, 3, 450);
+        record(1, GrandExchangeOfferState.SOLD, 150, 10, 10, 1_500);
+
+        assertEquals(1_500 - 1_000 - 10 * 3, tracker.getItemProfit(ITEM_ID));
+    }
+
+    @Test
+    public void testSellWithoutBuyIsIgnored() {
+        record(0, GrandExchangeOfferState.SOLD, 1_000, 10, 10, 10_000);
+
+        assertEquals(0, tracker.getItemProfit(ITEM_ID));
+        assertFalse(tracker.hasRealizedProfit(ITEM_ID));
+    }
+}
@@ -0,0 +1,150 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RankingStrategiesTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static FlippingItem item(int id, double score, long buyPrice, long profit, long hourlyVolume) {
+        FlippingItem item = new FlippingItem();
+        item.setId(String.valueOf(id));
+        item.setScore(score);
+        item.setAdjustedLowPrice(buyPrice);
+        item.setProfit(profit);
+        item.setQuantity(100);
+        item.setMedianHourlyVolume(hourlyVolume);
+        return item;
+    }
+
+    /**
+     * Four items, each best at something different.
+     */
+    private static ItemColumns columns() {
+        return ItemColumns.of(Arrays.asList(
+            item(1, 10, 1_000, 100, 10),
+            item(2, 30, 100, 50, 1_000),
+            item(3, 20, 10_000, 500, 1),
+            item(4, 5, 0, 20, 100)));
+    }
+
+    private static void assertRanking(ItemColumns columns, RankingStrategy strategy, String... ids) {
+        List<String> ranked = new ArrayList<>();
+        for (FlippingItem item : columns.rank(strategy)) {
+            ranked.add(item.getId());
+        }
+        assertEquals(strategy.getName(), Arrays.asList(ids), ranked);
+    }
+
+    @Test
+    public void testSingleKeyStrategies() {
+        ItemColumns columns = columns();
+        assertRanking(columns, RankingStrategies.SCORE, "2", "3", "1", "4");
+        assertRanking(columns, RankingStrategies.PROFIT, "3", "1", "2", "4");
+        // No buy price means no ROI
+        assertRanking(columns, RankingStrategies.ROI, "2", "1", "3", "4");
+        assertEquals(0, columns.keyColumn(RankingStrategies.ROI)[3], DELTA);
+        // 500 * log(2) just beats 50 * log(1001)
+        assertRanking(columns, RankingStrategies.VOLUME_MARGIN, "3", "2", "1", "4");
+    }
+
+    @Test
+    public void testGpPerHour() {
+        FlippingItem quick = item(1, 0, 1_000, 100, 1_000_000);
+        quick.setQuantity(1);
+        FlippingItem slow = item(2, 0, 1_000, 100, 100);
+        FlippingItem losing = item(3, 0, 1_000, -100, 1_000);
+        FlippingItem unsold = item(4, 0, 1_000, 100, 0);
+        double[] keys = ItemColumns.of(Arrays.asList(quick, slow, losing, unsold))
+            .keyColumn(RankingStrategies.GP_PER_HOUR);
+
+        // A one-item flip still takes the minimum handling time
+        assertEquals(100 / GpPerHourRanking.MIN_FLIP_HOURS, keys[0], DELTA);
+        // Buying and selling 100 at a share of 100 an hour
+        double hours = 2 * 100 / (100 * CapitalAllocator.VOLUME_SHARE);
+        assertEquals(100 * 100 / hours, keys[1], DELTA);
+        assertEquals(0, keys[2], DELTA);
+        assertEquals(0, keys[3], DELTA);
+    }
+
+    @Test
+    public void testTiesKeepRowOrder() {
+        ItemColumns columns = ItemColumns.of(Arrays.asList(
+            item(1, 0, 100, 10, 1),
+            item(2, 0, 100, 50, 1),
+            item(3, 0, 100, 10, 1),
+            item(4, 0, 100, 50, 1),
+            item(5, 0, 100, 10, 1)));
+        assertRanking(columns, RankingStrategies.PROFIT, "2", "4", "1", "3", "5");
+
+        double[] keys = {1, 3, 1, 2, 3, 1, 2};
+        assertArrayEquals(new int[]{1, 4, 3, 6, 0, 2, 5}, ItemColumns.orderDescending(keys));
+        assertEquals(0, ItemColumns.orderDescending(new double[0]).length);
+    }
+
+    @Test
+    public void testBlendOfOneComponent() {
+        ItemColumns columns = columns();
+        assertRanking(columns, RankingStrategies.blend(1, 0, 0, 0, 0), "2", "3", "1", "4");
+        assertRanking(columns, RankingStrategies.blend(0, 1, 0, 0, 0), "3", "1", "2", "4");
+        assertRanking(columns, RankingStrategies.blend(0, 0, 2, 0, 0), "2", "1", "3", "4");
+        assertRanking(columns, RankingStrategies.blend(0, 0, 0, 0, 0.5), "3", "2", "1", "4");
+    }
+
+    @Test
+    public void testBlendWeights() {
+        ItemColumns columns = columns();
+        // Score ranks 2, 3, 1, 4 and profit 3, 1, 2, 4: each position is worth (n - position) / n
+        double[] keys = columns.keyColumn(RankingStrategies.blend(1, 1, 0, 0, 0));
+        assertArrayEquals(new double[]{0.5 + 0.75, 1 + 0.5, 0.75 + 1, 0.25 + 0.25}, keys, DELTA);
+        assertRanking(columns, RankingStrategies.blend(1, 1, 0, 0, 0), "3", "2", "1", "4");
+
+        // Only the ratio of the weights changes the order
+        double[] scaled = columns.keyColumn(RankingStrategies.blend(3, 3, 0, 0, 0));
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(3 * keys[i], scaled[i], DELTA);
+        }
+
+        // A heavier score weight puts the best scored item first
+        assertRanking(columns, RankingStrategies.blend(3, 1, 0, 0, 0), "2", "3", "1", "4");
+        assertRanking(columns, RankingStrategies.blend(1, 3, 0, 0, 0), "3", "1", "2", "4");
+
+        // No weight at all keeps the row order
+        assertRanking(columns, RankingStrategies.blend(0, 0, 0, 0, 0), "1", "2", "3", "4");
+    }
+
+    @Test
+    public void testBlendsWithEqualWeightsShareCachedKeys() {
+        ItemColumns columns = columns();
+        RankingStrategy blend = RankingStrategies.blend(1, 2, 3, 4, 5);
+        assertEquals(blend, RankingStrategies.blend(1, 2, 3, 4, 5));
+        assertNotEquals(blend, RankingStrategies.blend(1, 2, 3, 4, 6));
+        assertSame(columns.order(blend), columns.order(RankingStrategies.blend(1, 2, 3, 4, 5)));
+        assertSame(columns.order(RankingStrategies.PROFIT), columns.order(RankingStrategies.PROFIT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBlendNeedsEveryWeight() {
+        RankingStrategies.blend(1, 1, 1, 1);
+    }
+
+    @Test
+    public void testForMode() {
+        FlippingHelperConfig config = new FlippingHelperConfig() {
+        };
+        assertSame(RankingStrategies.SCORE, RankingStrategies.forMode(FlippingHelperConfig.RankingMode.SCORE, config));
+        assertSame(RankingStrategies.GP_PER_HOUR,
+            RankingStrategies.forMode(FlippingHelperConfig.RankingMode.GP_PER_HOUR, config));
+        assertEquals(RankingStrategies.blend(config.blendScoreWeight(), config.blendProfitWeight(),
+                config.blendRoiWeight(), config.blendGpPerHourWeight(), config.blendVolumeMarginWeight()),
+            RankingStrategies.forMode(FlippingHelperConfig.RankingMode.BLEND, config));
+        assertNull("Not a sort key",
+            RankingStrategies.forMode(FlippingHelperConfig.RankingMode.CAPITAL_ALLOCATION, config));
+    }
+}
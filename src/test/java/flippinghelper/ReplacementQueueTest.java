@@ -0,0 +1,98 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ReplacementQueueTest {
+
+    private final ReplacementQueue queue = new ReplacementQueue(3, 2);
+    private final Set<String> excluded = new HashSet<>();
+    private int formatted = 0;
+
+    private static List<FlippingItem> items(int count) {
+        List<FlippingItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            FlippingItem item = new FlippingItem();
+            item.setId(String.valueOf(i));
+            item.setName("Item " + i);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private void refill() {
+        queue.refill(item -> !excluded.contains(item.getId()), item -> {
+            formatted++;
+            return new SuggestionRowModel(item, Integer.parseInt(item.getId()), item.getName(),
+                "", "", "", "", null, null);
+        });
+    }
+
+    private String poll() {
+        SuggestionRowModel row = queue.poll(item -> !excluded.contains(item.getId()));
+        return row == null ? null : row.getItem().getId();
+    }
+
+    @Test
+    public void testPopsInRankingOrderSkippingIneligible() {
+        queue.reset(items(10));
+        excluded.add("0");
+        excluded.add("2");
+        refill();
+
+        assertEquals(3, queue.size());
+        assertEquals(3, formatted);
+        assertEquals("1", poll());
+        assertEquals("3", poll());
+        assertTrue(queue.needsRefill());
+
+        refill();
+        assertEquals("4", poll());
+        assertEquals("5", poll());
+        assertEquals("6", poll());
+    }
+
+    @Test
+    public void testItemsExcludedAfterQueueingAreSkipped() {
+        queue.reset(items(10));
+        refill();
+
+        excluded.add("0");
+        assertEquals("1", poll());
+    }
+
+    @Test
+    public void testWrapsAroundToItemsOutOfCooldown() {
+        queue.reset(items(4));
+        excluded.add("0");
+        refill();
+        assertEquals("1", poll());
+        assertEquals("2", poll());
+        assertEquals("3", poll());
+        assertNull(poll());
+
+        excluded.clear();
+        excluded.add("1");
+        excluded.add("2");
+        excluded.add("3");
+        refill();
+        assertEquals("0", poll());
+        assertNull(poll());
+    }
+
+    @Test
+    public void testResetDropsQueuedRows() {
+        queue.reset(items(10));
+        refill();
+        queue.reset(items(0));
+        refill();
+
+        assertNull(poll());
+    }
+}
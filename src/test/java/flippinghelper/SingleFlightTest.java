@@ -0,0 +1,76 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareOneRequest() {
+        SingleFlight<String> flight = new SingleFlight<>(60_000);
+        AtomicInteger requests = new AtomicInteger();
+
+        SingleFlight.Flight<String> first = flight.join(() -> {
+            requests.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        SingleFlight.Flight<String> second = flight.join(() -> {
+            requests.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertSame(first, second);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testFinishedRequestStartsNewGeneration() {
+        SingleFlight<String> flight = new SingleFlight<>(60_000);
+
+        SingleFlight.Flight<String> first = flight.join(() -> CompletableFuture.completedFuture("a"));
+        SingleFlight.Flight<String> second = flight.join(() -> CompletableFuture.completedFuture("b"));
+
+        assertNotSame(first, second);
+        assertTrue(second.getGeneration() > first.getGeneration());
+        assertEquals("b", second.getFuture().join());
+    }
+
+    @Test
+    public void testStaleRequestIsCancelledAndReplaced() {
+        SingleFlight<String> flight = new SingleFlight<>(0);
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        SingleFlight.Flight<String> first = flight.join(
+            () -> SingleFlight.cancelling(upstream.thenApply(String::trim), upstream));
+        SingleFlight.Flight<String> second = flight.join(CompletableFuture::new);
+
+        assertTrue(first.getFuture().isCancelled());
+        assertTrue("Cancellation reaches the request", upstream.isCancelled());
+        assertSame(second, flight.latest());
+    }
+
+    @Test
+    public void testFailedDerivedFutureCancelsRequest() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> derived = SingleFlight.cancelling(upstream.thenApply(String::trim), upstream);
+
+        derived.completeExceptionally(new IllegalStateException("timed out"));
+
+        assertTrue(upstream.isCancelled());
+    }
+
+    @Test
+    public void testCancel() {
+        SingleFlight<String> flight = new SingleFlight<>(60_000);
+        SingleFlight.Flight<String> first = flight.join(CompletableFuture::new);
+
+        flight.cancel();
+
+        assertTrue(first.getFuture().isCancelled());
+        assertNull(flight.latest());
+    }
+}
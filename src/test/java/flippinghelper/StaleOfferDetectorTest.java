@@ -0,0 +1,111 @@
+package flippinghelper;
+
+import net.runelite.api.GrandExchangeOfferState;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StaleOfferDetectorTest {
+
+    private static final long MINUTE = 60_000;
+
+    private final StaleOfferDetector detector = new StaleOfferDetector();
+    private final FlippingItem item = new FlippingItem();
+
+    public StaleOfferDetectorTest() {
+        item.setId("10");
+        item.setName("Item 10");
+        item.setAdjustedLowPrice(1_000);
+        item.setAdjustedHighPrice(1_100);
+        // 100 offers an hour for us, so 100 items take an hour to fill
+        item.setMedianHourlyVolume(400);
+    }
+
+    private List<StaleOfferDetector.StaleOffer> check(long now) {
+        return detector.check(itemId -> itemId == 10 ? item : null, now);
+    }
+
+    private void buy(int slot, long price, int total, int filled, long now) {
+        detector.onOfferChanged(slot, 10, GrandExchangeOfferState.BUYING, price, total, filled, now);
+    }
+
+    @Test
+    public void testExpectedFillTime() {
+        assertEquals(60 * MINUTE, StaleOfferDetector.expectedFillMillis(100, item), 1);
+
+        FlippingItem noVolume = new FlippingItem();
+        assertTrue(Double.isInfinite(StaleOfferDetector.expectedFillMillis(100, noVolume)));
+    }
+
+    @Test
+    public void testFillingOfferIsNotStale() {
+        buy(0, 1_000, 100, 0, 0);
+        assertEquals(1, check(130 * MINUTE).size());
+
+        // Each fill restarts the idle time
+        buy(0, 1_000, 100, 10, 130 * MINUTE);
+        assertTrue(check(180 * MINUTE).isEmpty());
+    }
+
+    @Test
+    public void testIdleBuyRelistsHigher() {
+        buy(2, 1_000, 100, 0, 0);
+        assertTrue(check(119 * MINUTE).isEmpty());
+
+        List<StaleOfferDetector.StaleOffer> stale = check(121 * MINUTE);
+        assertEquals(1, stale.size());
+        StaleOfferDetector.StaleOffer offer = stale.get(0);
+        assertEquals(2, offer.getSlot());
+        assertTrue(offer.isBuy());
+        assertEquals(1_010, offer.getRelistPrice());
+    }
+
+    @Test
+    public void testBuyBelowMarket() {
+        buy(0, 950, 100, 0, 0);
+        assertTrue(check(MINUTE).isEmpty());
+        assertEquals(1_000, check(11 * MINUTE).get(0).getRelistPrice());
+    }
+
+    @Test
+    public void testBuyWithoutMarginIsAborted() {
+        // Selling at 1,100 pays 22 gp tax, so buying at 1,080 loses money
+        buy(0, 1_080, 100, 0, 0);
+        List<StaleOfferDetector.StaleOffer> stale = check(0);
+        assertEquals(1, stale.size());
+        assertEquals(1_000, stale.get(0).getRelistPrice());
+
+        // And no price leaves a margin once the spread is gone
+        item.setAdjustedLowPrice(1_090);
+        assertEquals(-1, check(0).get(0).getRelistPrice());
+        assertTrue(check(0).get(0).describe().startsWith("Abort"));
+    }
+
+    @Test
+    public void testSellAboveMarket() {
+        detector.onOfferChanged(1, 10, GrandExchangeOfferState.SELLING, 1_200, 100, 0, 0);
+        assertTrue(check(5 * MINUTE).isEmpty());
+
+        StaleOfferDetector.StaleOffer offer = check(11 * MINUTE).get(0);
+        assertFalse(offer.isBuy());
+        assertEquals(1_100, offer.getRelistPrice());
+    }
+
+    @Test
+    public void testFinishedOrChangedOffersAreDropped() {
+        buy(0, 1_000, 100, 0, 0);
+        detector.onOfferChanged(0, 10, GrandExchangeOfferState.BOUGHT, 1_000, 100, 100, MINUTE);
+        assertTrue(check(200 * MINUTE).isEmpty());
+
+        // A new offer in the slot is timed from when it was seen
+        buy(0, 1_000, 100, 0, 0);
+        buy(0, 1_005, 100, 0, 150 * MINUTE);
+        assertTrue(check(200 * MINUTE).isEmpty());
+
+        // Items missing from the catalogue are not checked
+        detector.onOfferChanged(3, 99, GrandExchangeOfferState.BUYING, 1, 1, 0, 0);
+        assertTrue(check(200 * MINUTE).isEmpty());
+    }
+}
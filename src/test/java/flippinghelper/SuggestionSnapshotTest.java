@@ -0,0 +1,57 @@
+package flippinghelper;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SuggestionSnapshotTest {
+
+    private final ProfitTracker profitTracker = new ProfitTracker(null);
+
+    private static FlippingItem item(String id, String name) {
+        FlippingItem item = new FlippingItem();
+        item.setId(id);
+        item.setName(name);
+        item.setPredictedAction("buy");
+        return item;
+    }
+
+    private static SuggestionSnapshot snapshot(List<FlippingItem> catalogue) {
+        return SuggestionSnapshot.of(1, catalogue, ItemColumns.of(catalogue), catalogue,
+            Collections.emptyList(), Collections.emptyList(), Collections.emptySet());
+    }
+
+    @Test
+    public void testFindCatalogueItem() {
+        FlippingItem whip = item("4151", "Abyssal whip");
+        SuggestionSnapshot snapshot = snapshot(Arrays.asList(
+            item("not-a-number", "Invalid"), whip, item("4151", "Duplicate"), item("995", "Coins")));
+
+        assertSame("The first item with an id", whip, snapshot.findCatalogueItem(4151));
+        assertEquals("Coins", snapshot.findCatalogueItem(995).getName());
+        assertNull(snapshot.findCatalogueItem(1));
+        assertNull(SuggestionSnapshot.EMPTY.findCatalogueItem(4151));
+    }
+
+    @Test
+    public void testIndexFollowsUpdates() {
+        FlippingItem whip = item("4151", "Abyssal whip");
+        SuggestionSnapshot snapshot = SuggestionSnapshot.of(1, Collections.singletonList(whip),
+            ItemColumns.of(Collections.singletonList(whip)), Collections.singletonList(whip),
+            Collections.singletonList(whip), Collections.singletonList(SuggestionRowModel.of(whip, profitTracker)),
+            Collections.emptySet());
+
+        SuggestionSnapshot pinned = snapshot.withSuggestion(2, 0, SuggestionRowModel.of(whip, profitTracker), true);
+        assertSame(whip, pinned.findCatalogueItem(4151));
+
+        FlippingItem repriced = item("4151", "Abyssal whip");
+        repriced.setAdjustedLowPrice(1_500_000);
+        SuggestionSnapshot updated = pinned.withItemUpdated(3, SuggestionRowModel.of(repriced, profitTracker));
+        assertSame(repriced, updated.findCatalogueItem(4151));
+        assertSame("Earlier snapshots are not changed", whip, pinned.findCatalogueItem(4151));
+    }
+}
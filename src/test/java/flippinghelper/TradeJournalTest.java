@@ -0,0 +1,248 @@
+package flippinghelper;
+
+import net.runelite.api.GrandExchangeOfferState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TradeJournalTest {
+
+    private static final long ACCOUNT = 12345;
+    private static final long OTHER_ACCOUNT = 67890;
+
+    private File root;
+    private final List<TradeJournal> journals = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("trade-journal").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        journals.forEach(TradeJournal::shutDown);
+        try (Stream<Path> paths = Files.walk(root.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private TradeJournal start(long account) {
+        TradeJournal journal = new TradeJournal(root);
+        journals.add(journal);
+        journal.startUp();
+        journal.openAccount(account);
+        return journal;
+    }
+
+    private void stop(TradeJournal journal) {
+        journal.shutDown();
+        journals.remove(journal);
+    }
+
+    private static TradeRecord record(long timestamp) {
+        return new TradeRecord(timestamp, (int) (timestamp % 8), 4151, GrandExchangeOfferState.BUYING,
+            1_500_000, 10, (int) (timestamp % 10), 1_500_000L * (timestamp % 10));
+    }
+
+    /**
+     * Wait until the journal thread has run everything submitted so far.
+     */
+    private static void sync(TradeJournal journal) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        journal.replayAndListen(record -> {
+        }, latch::countDown);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+    }
+
+    private List<TradeRecord> replay(long account) throws InterruptedException {
+        List<TradeRecord> records = new ArrayList<>();
+        TradeJournal journal = start(account);
+        journal.replayAndListen(records::add, records::clear);
+        sync(journal);
+        stop(journal);
+        return records;
+    }
+
+    private static void assertTimestamps(List<TradeRecord> records, long first, int count) {
+        assertEquals(count, records.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(first + i, records.get(i).getTimestamp());
+        }
+    }
+
+    @Test
+    public void testAppendAndReopen() throws InterruptedException {
+        TradeJournal journal = start(ACCOUNT);
+        for (long t = 1; t <= 3; t++) {
+            journal.append(record(t));
+        }
+        stop(journal);
+
+        // The write index is found again, so the next record follows the others
+        journal = start(ACCOUNT);
+        journal.append(record(4));
+        stop(journal);
+
+        List<TradeRecord> records = replay(ACCOUNT);
+        assertTimestamps(records, 1, 4);
+        TradeRecord last = records.get(3);
+        assertEquals(4, last.getSlot());
+        assertEquals(4151, last.getItemId());
+        assertEquals(GrandExchangeOfferState.BUYING, last.getState());
+        assertEquals(1_500_000, last.getPrice());
+        assertEquals(10, last.getTotalQuantity());
+        assertEquals(4, last.getQuantityFilled());
+        assertEquals(6_000_000L, last.getSpent());
+    }
+
+    @Test
+    public void testFindWriteIndex() {
+        ByteBuffer buffer = ByteBuffer.allocate(TradeJournal.HEADER_SIZE
+            + TradeJournal.RECORD_SIZE * TradeJournal.RECORDS_PER_SEGMENT);
+        assertEquals(0, TradeJournal.findWriteIndex(buffer));
+
+        for (int i = 0; i < 5; i++) {
+            TradeJournal.encode(buffer, TradeJournal.HEADER_SIZE + i * TradeJournal.RECORD_SIZE, record(i + 1));
+        }
+        assertEquals(5, TradeJournal.findWriteIndex(buffer));
+
+        // A record torn before its timestamp was written is free to overwrite
+        int torn = TradeJournal.HEADER_SIZE + 5 * TradeJournal.RECORD_SIZE;
+        TradeJournal.encode(buffer, torn, record(6));
+        buffer.putLong(torn, 0);
+        assertEquals(5, TradeJournal.findWriteIndex(buffer));
+        assertNull(TradeJournal.decode(buffer, torn));
+
+        for (int i = 0; i < TradeJournal.RECORDS_PER_SEGMENT; i++) {
+            TradeJournal.encode(buffer, TradeJournal.HEADER_SIZE + i * TradeJournal.RECORD_SIZE, record(i + 1));
+        }
+        assertEquals(TradeJournal.RECORDS_PER_SEGMENT, TradeJournal.findWriteIndex(buffer));
+    }
+
+    @Test
+    public void testTornRecordIsOverwritten() throws IOException, InterruptedException {
+        TradeJournal journal = start(ACCOUNT);
+        journal.append(record(1));
+        journal.append(record(2));
+        stop(journal);
+
+        // Simulate a crash while writing the third record
+        File segment = new File(new File(root, Long.toString(ACCOUNT)), "journal-000000.dat");
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int offset = TradeJournal.HEADER_SIZE + 2 * TradeJournal.RECORD_SIZE;
+            TradeJournal.encode(buffer, offset, record(99));
+            buffer.putLong(offset, 0);
+            buffer.force();
+        }
+        assertTimestamps(replay(ACCOUNT), 1, 2);
+
+        journal = start(ACCOUNT);
+        journal.append(record(3));
+        stop(journal);
+        assertTimestamps(replay(ACCOUNT), 1, 3);
+    }
+
+    @Test
+    public void testSegmentRollover() throws InterruptedException {
+        int count = TradeJournal.RECORDS_PER_SEGMENT + 10;
+        TradeJournal journal = start(ACCOUNT);
+        for (int i = 1; i <= count; i++) {
+            journal.append(record(i));
+        }
+        stop(journal);
+
+        File directory = new File(root, Long.toString(ACCOUNT));
+        assertTrue(new File(directory, "journal-000000.dat").exists());
+        assertTrue(new File(directory, "journal-000001.dat").exists());
+        assertTimestamps(replay(ACCOUNT), 1, count);
+
+        // Reopening continues in the latest segment
+        journal = start(ACCOUNT);
+        journal.append(record(count + 1));
+        stop(journal);
+        assertFalse(new File(directory, "journal-000002.dat").exists());
+        assertTimestamps(replay(ACCOUNT), 1, count + 1);
+    }
+
+    @Test
+    public void testAccountsAreSeparate() throws InterruptedException {
+        List<TradeRecord> records = new ArrayList<>();
+        TradeJournal journal = new TradeJournal(root);
+        journals.add(journal);
+        journal.startUp();
+        journal.replayAndListen(records::add, records::clear);
+
+        // Nothing is recorded before an account is open
+        journal.append(record(1));
+        journal.openAccount(ACCOUNT);
+        journal.append(record(2));
+        sync(journal);
+        assertTimestamps(records, 2, 1);
+
+        journal.openAccount(OTHER_ACCOUNT);
+        sync(journal);
+        assertTrue(records.isEmpty());
+        journal.append(record(3));
+
+        journal.openAccount(ACCOUNT);
+        sync(journal);
+        assertTimestamps(records, 2, 1);
+        stop(journal);
+
+        assertTimestamps(replay(OTHER_ACCOUNT), 3, 1);
+    }
+
+    @Test
+    public void testSecondClientIsReadOnly() throws InterruptedException {
+        TradeJournal first = start(ACCOUNT);
+        first.append(record(1));
+        sync(first);
+
+        List<TradeRecord> records = new ArrayList<>();
+        TradeJournal second = start(ACCOUNT);
+        second.replayAndListen(records::add, records::clear);
+        second.append(record(2));
+        sync(second);
+        // Records are still followed, but not written
+        assertTimestamps(records, 1, 2);
+        stop(second);
+
+        first.append(record(3));
+        stop(first);
+        List<TradeRecord> written = replay(ACCOUNT);
+        assertEquals(2, written.size());
+        assertEquals(1, written.get(0).getTimestamp());
+        assertEquals(3, written.get(1).getTimestamp());
+    }
+
+    @Test
+    public void testReleaseLetsAnotherClientWrite() throws InterruptedException {
+        TradeJournal first = start(ACCOUNT);
+        first.release();
+        sync(first);
+
+        TradeJournal second = start(ACCOUNT);
+        second.append(record(1));
+        stop(second);
+        stop(first);
+        assertTimestamps(replay(ACCOUNT), 1, 1);
+    }
+}